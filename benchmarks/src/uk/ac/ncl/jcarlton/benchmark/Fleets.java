@@ -0,0 +1,87 @@
+package uk.ac.ncl.jcarlton.benchmark;
+
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+
+import java.util.GregorianCalendar;
+
+/**
+ * <h1>Fleets</h1>
+ *
+ * Builds the fleets and customers used by the benchmarks.
+ * Everything is derived from an index so that each run of
+ * a benchmark sees exactly the same data.
+ *
+ * @author Jonathan Carlton
+ */
+final class Fleets {
+
+    private Fleets() {
+    }
+
+    /**
+     * Get the {@code Registration} for an index, each index
+     * below 26^5 * 100 maps to a different plate.
+     *
+     * @param index the index of the plate.
+     * @return the registration.
+     */
+    static Registration registration(int index) {
+        int digits = index % 100;
+        int letters = index / 100;
+        char[] first = {
+                letter(letters / 26 / 26 / 26 / 26 % 26),
+                letter(letters / 26 / 26 / 26 % 26),
+                (char) ('0' + digits / 10),
+                (char) ('0' + digits % 10)
+        };
+        char[] second = {
+                letter(letters / 26 / 26 % 26),
+                letter(letters / 26 % 26),
+                letter(letters % 26)
+        };
+        return Registration.getInstance(new String(first), new String(second));
+    }
+
+    /**
+     * Build a fleet of the given size, one in every three
+     * cars is a {@code LargeCar}.
+     *
+     * @param size the number of cars.
+     * @return the fleet.
+     */
+    static FleetStore fleet(int size) {
+        FleetStore store = new FleetStore();
+        for (int i = 0; i < size; i++) {
+            if (i % 3 == 0)
+                store.add(new LargeCar(registration(i)));
+            else
+                store.add(new SmallCar(registration(i)));
+        }
+        return store;
+    }
+
+    /**
+     * Build a customer who is old enough, and has held
+     * a full license for long enough, to rent any car.
+     *
+     * @param index the index of the customer.
+     * @return the customer.
+     */
+    static Person customer(int index) {
+        return new Person(
+                "Customer",
+                "Number" + index,
+                new GregorianCalendar(1960 + index % 30, index % 12, 1 + index % 28).getTime(),
+                true,
+                new GregorianCalendar(1990 + index % 10, index % 12, 1 + index % 28).getTime()
+        );
+    }
+
+    private static char letter(int n) {
+        return (char) ('A' + n);
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.ncl.jcarlton.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>ObjectsBenchmark</h1>
+ *
+ * Benchmarks the hot paths of the domain objects: interning
+ * registrations and licenses, converting a {@code Person} to
+ * and from a {@code String} and driving the cars.
+ *
+ * @author Jonathan Carlton
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ObjectsBenchmark {
+
+    @Param({"30", "100000"})
+    public int registrations;
+
+    private String[][] plates;
+    private String[] whole;
+    private Person person;
+    private String personString;
+    private Date licenseIssue;
+
+    /**
+     * Intern the registrations and build the customer.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        plates = new String[registrations][];
+        whole = new String[registrations];
+        for (int i = 0; i < registrations; i++) {
+            Registration registration = Fleets.registration(i);
+            plates[i] = new String[]{registration.getFirstComponent(), registration.getSecondComponent()};
+            whole[i] = registration.toString();
+        }
+
+        licenseIssue = new GregorianCalendar(2001, 3, 14).getTime();
+        person = new Person("Jonathan", "Carlton", new GregorianCalendar(1980, 8, 27).getTime(), true, licenseIssue);
+        personString = person.toString();
+    }
+
+    /**
+     * Per-thread cars, the drive benchmarks put back the fuel
+     * they use so that the cars can always be driven.
+     */
+    @State(Scope.Thread)
+    public static class Cars {
+        final Car small = new SmallCar(Fleets.registration(1));
+        final Car large = new LargeCar(Fleets.registration(2));
+        int next;
+
+        @Setup(Level.Trial)
+        public void rent() {
+            small.setRented(true);
+            large.setRented(true);
+        }
+    }
+
+    @Benchmark
+    public Registration registrationGetInstance(Cars cars) {
+        String[] plate = plates[cars.next++ % plates.length];
+        return Registration.getInstance(plate[0], plate[1]);
+    }
+
+    @Benchmark
+    public Registration registrationGetInstanceWhole(Cars cars) {
+        return Registration.getInstance(whole[cars.next++ % whole.length]);
+    }
+
+    @Benchmark
+    public Person personValueOf() throws ParseException {
+        return Person.valueOf(personString);
+    }
+
+    @Benchmark
+    public String personToString() {
+        return person.toString();
+    }
+
+    @Benchmark
+    public DrivingLicense drivingLicenseGetInstance() {
+        return DrivingLicense.getInstance(person, licenseIssue, true);
+    }
+
+    @Benchmark
+    public int smallCarDrive(Cars cars) {
+        int used = cars.small.drive(120);
+        cars.small.addFuel(used);
+        return used;
+    }
+
+    @Benchmark
+    public int largeCarDrive(Cars cars) {
+        int used = cars.large.drive(120);
+        cars.large.addFuel(used);
+        return used;
+    }
+}
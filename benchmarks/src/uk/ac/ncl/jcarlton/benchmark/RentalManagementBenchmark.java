@@ -0,0 +1,113 @@
+package uk.ac.ncl.jcarlton.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ncl.jcarlton.app.RentalManagement;
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>RentalManagementBenchmark</h1>
+ *
+ * Benchmarks the public operations of {@code RentalManagement}
+ * over a range of fleet sizes and customer counts.
+ * <p>
+ * {@code customers} of the fleet's cars are rented out before
+ * the measurements start, the issue/terminate benchmark then
+ * rents and returns the remaining cars so that the state of the
+ * fleet is the same after every invocation.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RentalManagementBenchmark {
+
+    @Param({"30", "10000", "1000000", "10000000"})
+    public int fleetSize;
+
+    @Param({"10", "10000"})
+    public int customers;
+
+    private RentalManagement management;
+    private Person[] renters;
+    private Person walkIn;
+    private Car[] free;
+
+    /**
+     * Build the fleet and rent out a car to each customer.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        management = new RentalManagement(Fleets.fleet(fleetSize));
+
+        int rented = Math.min(customers, fleetSize / 2);
+        renters = new Person[rented];
+        for (int i = 0; i < rented; i++) {
+            renters[i] = Fleets.customer(i);
+            management.issueCar(renters[i], renters[i].getLicense(), carAt(i));
+        }
+
+        free = new Car[fleetSize - rented];
+        for (int i = rented; i < fleetSize; i++)
+            free[i - rented] = carAt(i);
+
+        walkIn = Fleets.customer(Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Per-thread cursor so each invocation works on a
+     * different car or customer.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public int issueAndTerminate(Cursor cursor) {
+        Car car = free[cursor.next++ % free.length];
+        management.issueCar(walkIn, walkIn.getLicense(), car);
+        return management.terminateRental(walkIn);
+    }
+
+    @Benchmark
+    public Car getCar(Cursor cursor) {
+        return management.getCar(renters[cursor.next++ % renters.length]);
+    }
+
+    @Benchmark
+    public int availableCars() {
+        return management.availableCars(SmallCar.class) + management.availableCars(LargeCar.class);
+    }
+
+    @Benchmark
+    public List<Car> getRentedCars() {
+        return management.getRentedCars();
+    }
+
+    @Benchmark
+    public List<Car> getRentedCarsPage(Cursor cursor) {
+        return management.getRentedCars(cursor.next++ % 64 * 20, 20);
+    }
+
+    @Benchmark
+    public int rentedCount() {
+        return management.rentedCount();
+    }
+
+    private static Car carAt(int index) {
+        return index % 3 == 0
+                ? new LargeCar(Fleets.registration(index))
+                : new SmallCar(Fleets.registration(index));
+    }
+}
@@ -0,0 +1,96 @@
+package uk.ac.ncl.jcarlton.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.TelemetryEngine;
+import uk.ac.ncl.jcarlton.app.TripEvent;
+import uk.ac.ncl.jcarlton.objects.Car;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>TelemetryBenchmark</h1>
+ *
+ * Measures how many trips a second the {@code TelemetryEngine}
+ * applies. Every car is rented and refilled before each
+ * iteration, each invocation submits one trip and the trips
+ * are flushed at the end of the iteration.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.TelemetryEngine
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TelemetryBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int fleetSize;
+
+    @Param({"1", "4", "8"})
+    public int workers;
+
+    private FleetStore fleet;
+    private TelemetryEngine engine;
+    private TripEvent[] events;
+
+    /**
+     * Build the fleet, rent every car and create the trips.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        fleet = Fleets.fleet(fleetSize);
+        List<Car> cars = new ArrayList<>(fleet.cars());
+        events = new TripEvent[cars.size()];
+        for (int i = 0; i < cars.size(); i++) {
+            fleet.claim(cars.get(i), Fleets.customer(i));
+            events[i] = new TripEvent(cars.get(i).getRegistration(), 1 + i % 40);
+        }
+        engine = new TelemetryEngine(fleet, workers, 1024, null);
+    }
+
+    /**
+     * Refill every car, so trips aren't rejected for running out of fuel.
+     */
+    @Setup(Level.Iteration)
+    public void refill() {
+        for (Car car : fleet.cars())
+            car.addFuel(car.getFuelCapacity());
+    }
+
+    /**
+     * Wait for the trips submitted in the iteration to be applied.
+     *
+     * @throws InterruptedException thrown if interrupted.
+     */
+    @TearDown(Level.Iteration)
+    public void flush() throws InterruptedException {
+        engine.flush();
+    }
+
+    /**
+     * Stop the engine.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Per-thread cursor so each invocation submits a different trip.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void submit(Cursor cursor) throws InterruptedException {
+        engine.submit(events[cursor.next++ % events.length]);
+    }
+}
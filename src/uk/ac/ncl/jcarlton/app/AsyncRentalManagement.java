@@ -0,0 +1,207 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * <h1>AsyncRentalManagement</h1>
+ * <p>
+ * Runs the operations of a {@code RentalManagement} in the
+ * background, each returning a {@code CompletableFuture}.
+ * <p>
+ * By default each call runs on its own virtual thread, where
+ * the Java runtime has them, so many thousands of calls can be
+ * in flight without a platform thread each. On older runtimes
+ * a pool of daemon threads is used instead.
+ * <p>
+ * The number of calls in flight is bounded. Once the bound is
+ * reached, starting another call waits until one finishes, so a
+ * caller that is going faster than the rental system is slowed
+ * down rather than queueing without limit.
+ * <p>
+ * An operation that throws completes its future exceptionally,
+ * for example {@code getCar()} for someone who isn't renting.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement
+ */
+public final class AsyncRentalManagement implements Closeable {
+
+    private final RentalManagement management;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    /**
+     * Create a facade that runs calls on the given executor.
+     *
+     * @param management    the rental management to call.
+     * @param executor      runs each call, shut down by {@link #close()}.
+     * @param maxInFlight   the most calls that can be running or waiting to run.
+     * @throws IllegalArgumentException thrown if the management or executor are
+     *                                  null, or the bound isn't positive.
+     */
+    public AsyncRentalManagement(RentalManagement management, ExecutorService executor, int maxInFlight) {
+        if (management == null)
+            throw new IllegalArgumentException("Management cannot be null.");
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null.");
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("Calls in flight must be positive: " + maxInFlight);
+
+        this.management = management;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Create a facade that runs each call on its own virtual thread,
+     * or on a pool of daemon threads if virtual threads aren't there.
+     *
+     * @param management    the rental management to call.
+     * @param maxInFlight   the most calls that can be running or waiting to run.
+     * @return the facade.
+     * @see #defaultExecutor()
+     */
+    public static AsyncRentalManagement create(RentalManagement management, int maxInFlight) {
+        return new AsyncRentalManagement(management, defaultExecutor(), maxInFlight);
+    }
+
+    /**
+     * Get an executor that starts a virtual thread for each task, if
+     * the runtime has virtual threads (Java 21 and later), else one
+     * that reuses a pool of daemon threads.
+     *
+     * @return a new executor.
+     */
+    public static ExecutorService defaultExecutor() {
+        try {
+            // looked up by name, so this still compiles for and runs on older runtimes
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "rental-async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @see RentalManagement#issueCar(Person, DrivingLicense, Car)
+     * @param person  the person who wants to rent a car.
+     * @param license the driving license of the person.
+     * @param car     the car that the person wants to rent.
+     * @return completes with whether the car was issued.
+     */
+    public CompletableFuture<Boolean> issueCar(Person person, DrivingLicense license, Car car) {
+        return submit(() -> management.issueCar(person, license, car));
+    }
+
+    /**
+     * @see RentalManagement#issueCars(List)
+     * @param requests the requests to issue.
+     * @return completes with the outcome of each request.
+     */
+    public CompletableFuture<RentalOutcome[]> issueCars(List<RentalRequest> requests) {
+        return submit(() -> management.issueCars(requests));
+    }
+
+    /**
+     * @see RentalManagement#terminateRental(Person)
+     * @param person the person ending their rental.
+     * @return completes with the fuel needed to fill the car, or -1.
+     */
+    public CompletableFuture<Integer> terminateRental(Person person) {
+        return submit(() -> management.terminateRental(person));
+    }
+
+    /**
+     * @see RentalManagement#getCar(Person)
+     * @param person the person who has rented a car.
+     * @return completes with the car they have rented.
+     */
+    public CompletableFuture<Car> getCar(Person person) {
+        return submit(() -> management.getCar(person));
+    }
+
+    /**
+     * @see RentalManagement#availableCars(Class)
+     * @param type the type of car.
+     * @return completes with the number of available cars, or -1.
+     */
+    public CompletableFuture<Integer> availableCars(Class<?> type) {
+        return submit(() -> management.availableCars(type));
+    }
+
+    /**
+     * @see RentalManagement#getRentedCars()
+     * @return completes with the rented cars.
+     */
+    public CompletableFuture<List<Car>> getRentedCars() {
+        return submit(management::getRentedCars);
+    }
+
+    /**
+     * Get the number of calls that are running or waiting to run.
+     *
+     * @return the calls in flight.
+     */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Stop accepting calls, calls already in flight still complete.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Run a call once there is room for it, waiting if there are
+     * already too many in flight.
+     */
+    private <T> CompletableFuture<T> submit(final Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        try {
+            executor.execute(() -> {
+                // the permit is given back before completing, as completing runs the caller's callbacks
+                T result;
+                try {
+                    result = call.get();
+                } catch (Throwable t) {
+                    permits.release();
+                    future.completeExceptionally(t);
+                    return;
+                }
+                permits.release();
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
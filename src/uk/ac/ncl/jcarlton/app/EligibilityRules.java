@@ -0,0 +1,174 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h1>EligibilityRules</h1>
+ * <p>
+ * The rules for who can rent each type of {@code Car}: how old
+ * they have to be and how many years they must have held their
+ * license for.
+ * <p>
+ * Once a day the rules are compiled into the latest date of
+ * birth, and the latest license issue date, that still meet
+ * them. Checking a request is then two integer comparisons
+ * against epoch days, rather than working out the person's age.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement
+ * @see uk.ac.ncl.jcarlton.util.EpochDays
+ */
+public final class EligibilityRules {
+
+    private final EpochDayClock clock;
+
+    // car type -> {minimum age, minimum years the license has been held}
+    private volatile Map<Class<? extends Car>, int[]> rules = Collections.emptyMap();
+
+    // the rules compiled for the current day, recompiled if the rules change
+    private volatile Compiled compiled;
+
+    /**
+     * Object constructor, create an empty set of rules.
+     *
+     * @param clock the clock that gives the current day.
+     * @throws IllegalArgumentException thrown if the clock is null.
+     */
+    public EligibilityRules(EpochDayClock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("Clock cannot be null.");
+        this.clock = clock;
+    }
+
+    /**
+     * Get the standard rules of the rental company:
+     * <ul><li>{@code SmallCar}: 20+ years old, license held for 1+ year</li>
+     * <li>{@code LargeCar}: 25+ years old, license held for 5+ years</li></ul>
+     *
+     * @param clock the clock that gives the current day.
+     * @return the rules.
+     */
+    public static EligibilityRules standard(EpochDayClock clock) {
+        EligibilityRules rules = new EligibilityRules(clock);
+        rules.register(LargeCar.class, 25, 5);
+        rules.register(SmallCar.class, 20, 1);
+        return rules;
+    }
+
+    /**
+     * Add, or replace, the rule for a type of car.
+     *
+     * @param type              the type of car.
+     * @param minimumAge        how old, in whole years, the person
+     *                          has to be.
+     * @param minimumYearsHeld  how long, in whole years, they must
+     *                          have held their license.
+     * @throws IllegalArgumentException thrown if the type is null
+     *                                  or either minimum is negative.
+     */
+    public synchronized void register(Class<? extends Car> type, int minimumAge, int minimumYearsHeld) {
+        if (type == null)
+            throw new IllegalArgumentException("Type cannot be null.");
+        if (minimumAge < 0 || minimumYearsHeld < 0)
+            throw new IllegalArgumentException("Minimums cannot be negative.");
+
+        Map<Class<? extends Car>, int[]> updated = new LinkedHashMap<>(rules);
+        updated.put(type, new int[]{minimumAge, minimumYearsHeld});
+        rules = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Get the types of car that there are rules for.
+     *
+     * @return the types of car.
+     */
+    public Set<Class<? extends Car>> types() {
+        return rules.keySet();
+    }
+
+    /**
+     * Get the current day, from the rules' clock.
+     *
+     * @return the local epoch day.
+     */
+    public int today() {
+        return clock.today();
+    }
+
+    /**
+     * Check whether a person can rent a type of car today.
+     *
+     * @param type          the type of car.
+     * @param birthDay      the person's date of birth, as an epoch day.
+     * @param licenseDay    the license issue date, as an epoch day.
+     * @return {@code ISSUED} if they can, {@code TOO_YOUNG} or
+     * {@code LICENSE_TOO_RECENT} if they can't or {@code CAR_UNAVAILABLE}
+     * if there isn't a rule for the type of car.
+     */
+    public RentalOutcome check(Class<?> type, int birthDay, int licenseDay) {
+        return check(type, birthDay, licenseDay, clock.today());
+    }
+
+    /**
+     * Check whether a person can rent a type of car on a given day.
+     *
+     * @param type          the type of car.
+     * @param birthDay      the person's date of birth, as an epoch day.
+     * @param licenseDay    the license issue date, as an epoch day.
+     * @param today         the day of the rental, as an epoch day.
+     * @return {@code ISSUED} if they can, {@code TOO_YOUNG} or
+     * {@code LICENSE_TOO_RECENT} if they can't or {@code CAR_UNAVAILABLE}
+     * if there isn't a rule for the type of car.
+     */
+    public RentalOutcome check(Class<?> type, int birthDay, int licenseDay, int today) {
+        Map<Class<? extends Car>, int[]> source = rules;
+        Compiled current = compiled;
+        if (current == null || current.day != today || current.source != source) {
+            current = new Compiled(source, today);
+            compiled = current;
+        }
+
+        int[] latest = current.latest.get(type);
+        if (latest == null)
+            return RentalOutcome.CAR_UNAVAILABLE;
+        if (birthDay > latest[0])
+            return RentalOutcome.TOO_YOUNG;
+        if (licenseDay > latest[1])
+            return RentalOutcome.LICENSE_TOO_RECENT;
+        return RentalOutcome.ISSUED;
+    }
+
+    /**
+     * The rules for a single day: for each type of car the
+     * latest date of birth and license issue date, as epoch
+     * days, that meet the rule.
+     */
+    private static final class Compiled {
+        private final Map<Class<? extends Car>, int[]> source;
+        private final int day;
+        private final Map<Class<?>, int[]> latest = new HashMap<>();
+
+        private Compiled(Map<Class<? extends Car>, int[]> source, int day) {
+            this.source = source;
+            this.day = day;
+            for (Map.Entry<Class<? extends Car>, int[]> m : source.entrySet()) {
+                latest.put(m.getKey(), new int[]{
+                        EpochDays.minusYears(day, m.getValue()[0]),
+                        EpochDays.minusYears(day, m.getValue()[1])
+                });
+            }
+        }
+    }
+}
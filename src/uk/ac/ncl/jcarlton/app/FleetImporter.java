@@ -0,0 +1,281 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+import uk.ac.ncl.jcarlton.util.ImportReport;
+import uk.ac.ncl.jcarlton.util.LineChunks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>FleetImporter</h1>
+ *
+ * Imports cars in bulk into a {@code FleetStore} from a CSV
+ * fleet manifest, one car per line:
+ * <pre>
+ * registration,type,fuel
+ * NG57 HXE,large,60
+ * FP61RVG,small,12
+ * </pre>
+ * The type is {@code small} or {@code large}, in any case, and
+ * the fuel is the litres in the tank. A car whose tank isn't full
+ * waits to be refilled before it can be rented, as if it had
+ * just been returned. The header line is optional.
+ *
+ * The file is split into chunks at line boundaries and each
+ * chunk is memory-mapped and parsed on its own core, straight
+ * from the mapped bytes without decoding them into a
+ * {@code String}. Each car is added to the fleet as soon as its
+ * line is parsed, so the import is a single pass, after which
+ * the fleet can be given to a {@code RentalManagement}.
+ *
+ * Blank lines are skipped, lines that cannot be imported, such
+ * as a registration that is already in the fleet, are reported
+ * with their line number and the import carries on. If a
+ * registration appears twice, which of the two lines is reported
+ * depends on which chunk is parsed first.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.util.CustomerImporter
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement#RentalManagement(FleetStore)
+ */
+public final class FleetImporter {
+
+    // the size each chunk is split at, the chunk carries on to the end of the line
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final String HEADER = "registration,type,fuel";
+
+    private FleetImporter() {
+    }
+
+    /**
+     * Import the cars in a file into a fleet.
+     *
+     * @param file  the file to import.
+     * @param fleet the fleet to add the cars to.
+     * @return the number imported and the lines that couldn't be.
+     * @throws IOException thrown if the file cannot be read.
+     * @throws IllegalArgumentException thrown if the fleet is null.
+     */
+    public static ImportReport importFile(Path file, FleetStore fleet) throws IOException {
+        return importFile(file, fleet, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Import the cars in a file into a fleet, split into chunks
+     * of a given size.
+     *
+     * @param file      the file to import.
+     * @param fleet     the fleet to add the cars to.
+     * @param chunkSize the number of bytes each chunk is split at.
+     * @return the number imported and the lines that couldn't be.
+     * @throws IOException thrown if the file cannot be read, or a
+     *                     single line is too long to map.
+     * @throws IllegalArgumentException thrown if the fleet is null or
+     *                                  the chunk size isn't positive.
+     */
+    public static ImportReport importFile(Path file, final FleetStore fleet, int chunkSize) throws IOException {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long[] bounds = LineChunks.split(channel, chunkSize);
+            final Chunk[] chunks = new Chunk[bounds.length - 1];
+
+            try {
+                IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                    try {
+                        chunks[i] = parse(channel, bounds[i], bounds[i + 1], fleet);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // number the errors now the lines in each chunk are known
+            long imported = 0;
+            long firstLine = 1;
+            List<ImportReport.LineError> errors = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                imported += chunk.imported;
+                for (int i = 0; i < chunk.errorLines.size(); i++)
+                    errors.add(new ImportReport.LineError(firstLine + chunk.errorLines.get(i), chunk.errorMessages.get(i)));
+                firstLine += chunk.lines;
+            }
+            return new ImportReport(imported, errors);
+        }
+    }
+
+    /**
+     * Parse each line of a chunk, adding each car to the fleet.
+     */
+    private static Chunk parse(FileChannel channel, long start, long end, FleetStore fleet) throws IOException {
+        Bytes bytes = new Bytes(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        Chunk chunk = new Chunk();
+
+        int length = bytes.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes.charAt(lineEnd) != '\n')
+                lineEnd++;
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && bytes.charAt(lineEnd - 1) == '\r')
+                lineEnd--;
+
+            boolean header = start == 0 && chunk.lines == 0 && matches(bytes, lineStart, lineEnd, HEADER);
+            if (lineEnd > lineStart && !(header)) {
+                String error;
+                try {
+                    error = addCar(bytes, lineStart, lineEnd, fleet);
+                } catch (IllegalArgumentException e) {
+                    // already in the fleet, or a type the fleet doesn't hold
+                    error = e.getMessage();
+                }
+                if (error == null) {
+                    chunk.imported++;
+                } else {
+                    chunk.errorLines.add(chunk.lines);
+                    chunk.errorMessages.add(error);
+                }
+            }
+
+            chunk.lines++;
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    /**
+     * Parse a line and add its car to the fleet.
+     *
+     * @return null, if the car was added, else why the line is invalid.
+     */
+    private static String addCar(Bytes line, int start, int end, FleetStore fleet) {
+        int firstComma = indexOf(line, ',', start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOf(line, ',', firstComma + 1, end);
+        if (secondComma < 0 || indexOf(line, ',', secondComma + 1, end) >= 0)
+            return "Expected 3 fields: registration, type and fuel";
+
+        long packed = Registration.pack(line, skipSpaces(line, start, firstComma), trimSpaces(line, start, firstComma));
+        if (packed < 0)
+            return "Invalid registration: " + line.subSequence(start, firstComma);
+
+        int typeStart = skipSpaces(line, firstComma + 1, secondComma);
+        int typeEnd = trimSpaces(line, firstComma + 1, secondComma);
+        boolean small = matches(line, typeStart, typeEnd, "small");
+        if (!(small || matches(line, typeStart, typeEnd, "large")))
+            return "Unknown car type: " + line.subSequence(typeStart, typeEnd);
+
+        int fuelStart = skipSpaces(line, secondComma + 1, end);
+        int fuelEnd = trimSpaces(line, secondComma + 1, end);
+        int fuel = 0;
+        for (int i = fuelStart; i < fuelEnd && fuel >= 0; i++) {
+            char c = line.charAt(i);
+            fuel = c >= '0' && c <= '9' && fuel <= 1000 ? fuel * 10 + (c - '0') : -1;
+        }
+
+        Registration registration = Registration.getInstance(packed);
+        Car car = small ? new SmallCar(registration) : new LargeCar(registration);
+        if (fuelStart == fuelEnd || fuel < 0 || fuel > car.getFuelCapacity())
+            return "Invalid fuel level: " + line.subSequence(secondComma + 1, end);
+
+        car.useFuel(car.getFuelCapacity() - fuel);
+        fleet.add(car);
+        return null;
+    }
+
+    private static int indexOf(Bytes line, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(Bytes line, int start, int end) {
+        while (start < end && line.charAt(start) == ' ')
+            start++;
+        return start;
+    }
+
+    private static int trimSpaces(Bytes line, int start, int end) {
+        while (end > start && line.charAt(end - 1) == ' ')
+            end--;
+        return end;
+    }
+
+    /**
+     * Check if a region is a word, ignoring case.
+     */
+    private static boolean matches(Bytes line, int start, int end, String word) {
+        if (end - start != word.length())
+            return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(line.charAt(start + i)) != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The bytes of a chunk as characters, one per byte, so a
+     * manifest can be parsed without decoding it. Anything that
+     * isn't ASCII is never valid, so is never mistaken for a
+     * valid character.
+     */
+    private static final class Bytes implements CharSequence {
+        private final ByteBuffer buffer;
+
+        private Bytes(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            char[] chars = new char[end - start];
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = charAt(start + i);
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    /**
+     * The result of parsing one chunk, with its errors
+     * numbered from the start of the chunk.
+     */
+    private static final class Chunk {
+        private long lines;
+        private long imported;
+        private final List<Long> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+    }
+}
@@ -0,0 +1,378 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.util.IdBitmap;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h1>FleetIndex</h1>
+ * <p>
+ * Bitmap indexes over the cars in a {@code FleetStore}, used to
+ * answer a {@code FleetQuery} such as "available large cars with
+ * at least 40 litres" without looking at any of the cars.
+ * <p>
+ * Each car is given a small id when it is added, and the index
+ * keeps an {@code IdBitmap} of ids for each type of car, for each
+ * tank capacity, for the rented cars and for the cars waiting for
+ * fuel. The fuel in each tank is held as a bit-sliced index, one
+ * bitmap for each bit of the litres, so a range of fuel levels is
+ * found with a handful of bitmap operations.
+ * <p>
+ * The index listens to the store, and on every change re-reads
+ * the state of the car that changed from the store. As changes are
+ * applied under a lock, the index always ends up agreeing with the
+ * store even when the changes to a car are reported out of order.
+ * A query runs under the same lock, so sees every index at the same
+ * moment.
+ * <p>
+ * Fuel changes, which every trip makes, don't take the lock. The
+ * car is only marked as changed, in a concurrent map of the cars
+ * whose fuel has changed since the last query, and the next query
+ * applies them all under the lock before it runs. A car driven
+ * many times between queries is applied once.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetQuery
+ */
+public final class FleetIndex implements FleetListener, Closeable {
+
+    private final FleetStore fleet;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // the cars whose fuel has changed and isn't in the indexes yet
+    private final ConcurrentMap<Registration, Car> fuelChanged = new ConcurrentHashMap<>();
+
+    // car -> id, and id -> car, ids of removed cars are reused
+    private final Map<Car, Integer> ids = new IdentityHashMap<>();
+    private Car[] cars = new Car[64];
+    private int[] litres = new int[64];
+    private final List<Integer> freeIds = new ArrayList<>();
+    private int nextId;
+
+    private final IdBitmap all = new IdBitmap();
+    private final IdBitmap rented = new IdBitmap();
+    private final IdBitmap awaitingFuel = new IdBitmap();
+    private final Map<Class<?>, IdBitmap> types = new HashMap<>();
+    private final Map<Integer, IdBitmap> capacities = new TreeMap<>();
+
+    // bit i of the litres in each car's tank
+    private final List<IdBitmap> fuelSlices = new ArrayList<>();
+
+    /**
+     * Create an index of a fleet, the cars already in the fleet
+     * are indexed straight away.
+     *
+     * @param fleet the fleet to index.
+     * @throws IllegalArgumentException thrown if the fleet is null.
+     */
+    public FleetIndex(FleetStore fleet) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+        this.fleet = fleet;
+
+        // listen first, so no change is missed
+        fleet.addListener(this);
+        for (Car car : fleet.cars())
+            sync(car);
+    }
+
+    /**
+     * Count the cars that match a query.
+     *
+     * @param query the query.
+     * @return the number of matching cars.
+     * @throws IllegalArgumentException thrown if the query is null.
+     */
+    public int count(FleetQuery query) {
+        checkQuery(query);
+        applyFuelChanges();
+        lock.readLock().lock();
+        try {
+            return query.evaluate(this).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the cars that match a query.
+     *
+     * @param query the query.
+     * @return a new bitmap of the matching ids.
+     * @throws IllegalArgumentException thrown if the query is null.
+     * @see #car(int)
+     */
+    public IdBitmap select(FleetQuery query) {
+        checkQuery(query);
+        applyFuelChanges();
+        lock.readLock().lock();
+        try {
+            return query.evaluate(this).copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the cars that match a query, in id order.
+     *
+     * @param query the query.
+     * @return a new {@code List<Car>} of the matching cars.
+     * @throws IllegalArgumentException thrown if the query is null.
+     */
+    public List<Car> cars(FleetQuery query) {
+        checkQuery(query);
+        applyFuelChanges();
+        lock.readLock().lock();
+        try {
+            IdBitmap matches = query.evaluate(this);
+            List<Car> result = new ArrayList<>(matches.cardinality());
+            for (PrimitiveIterator.OfInt it = matches.iterator(); it.hasNext(); )
+                result.add(cars[it.nextInt()]);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the id of a car.
+     *
+     * @param car the car.
+     * @return its id, or -1 if it isn't in the fleet.
+     */
+    public int idOf(Car car) {
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(car);
+            return id == null ? -1 : id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the car with an id.
+     *
+     * @param id the id.
+     * @return the car, or {@code null} if no car has the id.
+     */
+    public Car car(int id) {
+        lock.readLock().lock();
+        try {
+            return id >= 0 && id < nextId ? cars[id] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stop listening to the fleet, the index no longer changes.
+     */
+    @Override
+    public void close() {
+        fleet.removeListener(this);
+    }
+
+    @Override
+    public void carAdded(Car car) {
+        sync(car);
+    }
+
+    @Override
+    public void carRemoved(Car car) {
+        sync(car);
+    }
+
+    @Override
+    public void carIssued(Car car, Person person) {
+        sync(car);
+    }
+
+    @Override
+    public void carReturned(Car car, Person person) {
+        sync(car);
+    }
+
+    @Override
+    public void carRefilled(Car car) {
+        sync(car);
+    }
+
+    @Override
+    public void fuelChanged(Car car, int previous, int current) {
+        // applied by the next query, a newer car with the same registration replaces this one
+        fuelChanged.put(car.getRegistration(), car);
+    }
+
+    /*
+     * The indexes, read by FleetQuery with the read lock held.
+     */
+
+    IdBitmap all() {
+        return all;
+    }
+
+    IdBitmap rented() {
+        return rented;
+    }
+
+    IdBitmap awaitingFuel() {
+        return awaitingFuel;
+    }
+
+    IdBitmap type(Class<?> type) {
+        IdBitmap bitmap = types.get(type);
+        return bitmap == null ? new IdBitmap() : bitmap;
+    }
+
+    Map<Integer, IdBitmap> capacities() {
+        return Collections.unmodifiableMap(capacities);
+    }
+
+    /**
+     * Get the cars with at least some litres, using the bit-sliced
+     * index: going from the top bit down, keep the cars equal to
+     * the litres so far, and collect those that are already greater.
+     */
+    IdBitmap fuelAtLeast(int litres) {
+        if (litres <= 0)
+            return all;
+        int bits = fuelSlices.size();
+        if (bits < 31 && litres >= 1 << bits)
+            return new IdBitmap();
+
+        IdBitmap greater = new IdBitmap();
+        IdBitmap equal = all;
+        for (int bit = bits - 1; bit >= 0; bit--) {
+            IdBitmap slice = fuelSlices.get(bit);
+            if ((litres >>> bit & 1) == 1) {
+                equal = equal.and(slice);
+            } else {
+                greater = greater.or(equal.and(slice));
+                equal = equal.andNot(slice);
+            }
+        }
+        return greater.or(equal);
+    }
+
+    /**
+     * Bring the indexes of the cars whose fuel has changed in line
+     * with the store. A car is taken out of the map before it's
+     * read, so a change made while it's being applied is kept for
+     * the next query.
+     */
+    private void applyFuelChanges() {
+        if (fuelChanged.isEmpty())
+            return;
+
+        lock.writeLock().lock();
+        try {
+            for (Registration registration : fuelChanged.keySet()) {
+                Car car = fuelChanged.remove(registration);
+                if (car != null)
+                    syncLocked(car);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bring the indexes of a car in line with its state in the store.
+     */
+    private void sync(Car car) {
+        lock.writeLock().lock();
+        try {
+            syncLocked(car);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void syncLocked(Car car) {
+        Integer id = ids.get(car);
+        if (fleet.find(car.getRegistration()) != car) {
+            if (id != null)
+                forget(car, id);
+            return;
+        }
+
+        if (id == null)
+            id = assign(car);
+        set(rented, id, fleet.renterOf(car) != null);
+        set(awaitingFuel, id, fleet.isAwaitingFuel(car));
+        setLitres(id, car.getFuelAmount());
+    }
+
+    private int assign(Car car) {
+        int id = freeIds.isEmpty() ? nextId++ : freeIds.remove(freeIds.size() - 1);
+        if (id == cars.length) {
+            cars = Arrays.copyOf(cars, id * 2);
+            litres = Arrays.copyOf(litres, id * 2);
+        }
+        cars[id] = car;
+        ids.put(car, id);
+
+        all.add(id);
+        types.computeIfAbsent(car.getClass(), type -> new IdBitmap()).add(id);
+        capacities.computeIfAbsent(car.getFuelCapacity(), capacity -> new IdBitmap()).add(id);
+        return id;
+    }
+
+    private void forget(Car car, int id) {
+        setLitres(id, 0);
+        rented.remove(id);
+        awaitingFuel.remove(id);
+        types.get(car.getClass()).remove(id);
+        capacities.get(car.getFuelCapacity()).remove(id);
+        all.remove(id);
+
+        ids.remove(car);
+        cars[id] = null;
+        freeIds.add(id);
+    }
+
+    /**
+     * Change the bits of the litres that differ from before.
+     */
+    private void setLitres(int id, int amount) {
+        int changed = litres[id] ^ amount;
+        litres[id] = amount;
+        while (changed != 0) {
+            int bit = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            while (fuelSlices.size() <= bit)
+                fuelSlices.add(new IdBitmap());
+            set(fuelSlices.get(bit), id, (amount >>> bit & 1) == 1);
+        }
+    }
+
+    private static void set(IdBitmap bitmap, int id, boolean value) {
+        if (value)
+            bitmap.add(id);
+        else
+            bitmap.remove(id);
+    }
+
+    private static void checkQuery(FleetQuery query) {
+        if (query == null)
+            throw new IllegalArgumentException("Query cannot be null.");
+    }
+}
@@ -0,0 +1,78 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+/**
+ * <h1>FleetListener</h1>
+ *
+ * Told about every change to the state of the cars held
+ * in a {@code FleetStore}. Each method does nothing by
+ * default, so a listener only needs to implement the
+ * changes it is interested in.
+ * <p>
+ * Listeners are called on the thread that made the
+ * change, so they should be quick and thread-safe.
+ * Issues, returns and fuel changes are all reported
+ * while the car's monitor is held, so the changes to
+ * any one car arrive in order. A listener must not wait
+ * on another thread that uses the store.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetStore#addListener(FleetListener)
+ */
+public interface FleetListener {
+
+    /**
+     * A car has been added to the fleet.
+     *
+     * @param car the car.
+     */
+    default void carAdded(Car car) {
+    }
+
+    /**
+     * A car has been removed from the fleet.
+     *
+     * @param car the car.
+     */
+    default void carRemoved(Car car) {
+    }
+
+    /**
+     * A car has been rented to a person.
+     *
+     * @param car    the car.
+     * @param person the person renting it.
+     */
+    default void carIssued(Car car, Person person) {
+    }
+
+    /**
+     * A rented car has been returned.
+     *
+     * @param car    the car.
+     * @param person the person who was renting it.
+     */
+    default void carReturned(Car car, Person person) {
+    }
+
+    /**
+     * A car that was returned with a tank that wasn't full
+     * has been refilled, and is available to rent again.
+     *
+     * @param car the car.
+     */
+    default void carRefilled(Car car) {
+    }
+
+    /**
+     * The amount of fuel in one of the fleet's cars has changed.
+     *
+     * @param car      the car.
+     * @param previous the amount of fuel before the change.
+     * @param current  the amount of fuel after the change.
+     */
+    default void fuelChanged(Car car, int previous, int current) {
+    }
+}
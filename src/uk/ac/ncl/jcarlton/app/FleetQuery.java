@@ -0,0 +1,221 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.util.IdBitmap;
+
+import java.util.Map;
+
+/**
+ * <h1>FleetQuery</h1>
+ *
+ * A condition on the cars in a fleet, answered by a
+ * {@code FleetIndex} from its bitmaps without looking at
+ * any of the cars. Conditions are combined with
+ * {@link #and(FleetQuery)}, {@link #or(FleetQuery)} and
+ * {@link #not()}, for example the available large cars
+ * with at least 40 litres:
+ * <pre>
+ *     FleetQuery.available()
+ *             .and(FleetQuery.type(LargeCar.class))
+ *             .and(FleetQuery.fuelAtLeast(40))
+ * </pre>
+ * Queries are immutable, so can be built once and reused.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetIndex#count(FleetQuery)
+ */
+public abstract class FleetQuery {
+
+    // only built by the factories here
+    FleetQuery() {
+    }
+
+    /**
+     * Work out the ids of the cars that match, the index
+     * is locked for reading while this runs.
+     *
+     * @param index the index to query.
+     * @return the matching ids, which may be shared with the index.
+     */
+    abstract IdBitmap evaluate(FleetIndex index);
+
+    /**
+     * Match every car.
+     * @return the query.
+     */
+    public static FleetQuery all() {
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.all();
+            }
+        };
+    }
+
+    /**
+     * Match the cars of a type.
+     *
+     * @param type the type of car.
+     * @return the query.
+     * @throws IllegalArgumentException thrown if the type is null.
+     */
+    public static FleetQuery type(final Class<? extends Car> type) {
+        if (type == null)
+            throw new IllegalArgumentException("Type cannot be null.");
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.type(type);
+            }
+        };
+    }
+
+    /**
+     * Match the cars that are rented.
+     * @return the query.
+     */
+    public static FleetQuery rented() {
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.rented();
+            }
+        };
+    }
+
+    /**
+     * Match the cars that have been returned and are
+     * waiting to be refilled.
+     * @return the query.
+     */
+    public static FleetQuery awaitingFuel() {
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.awaitingFuel();
+            }
+        };
+    }
+
+    /**
+     * Match the cars that are available to rent, those
+     * that are neither rented nor waiting for fuel.
+     * @return the query.
+     */
+    public static FleetQuery available() {
+        return rented().or(awaitingFuel()).not();
+    }
+
+    /**
+     * Match the cars with at least some fuel in the tank.
+     *
+     * @param litres the least fuel.
+     * @return the query.
+     */
+    public static FleetQuery fuelAtLeast(final int litres) {
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.fuelAtLeast(litres);
+            }
+        };
+    }
+
+    /**
+     * Match the cars with less than some fuel in the tank.
+     *
+     * @param litres the fuel.
+     * @return the query.
+     */
+    public static FleetQuery fuelBelow(int litres) {
+        return fuelAtLeast(litres).not();
+    }
+
+    /**
+     * Match the cars whose tank is less than a fraction full,
+     * such as 0.25 for below a quarter of a tank.
+     *
+     * @param fraction the fraction of the tank, from 0 to 1.
+     * @return the query.
+     * @throws IllegalArgumentException thrown if the fraction is out of range.
+     */
+    public static FleetQuery tankBelow(final double fraction) {
+        if (!(fraction >= 0 && fraction <= 1))
+            throw new IllegalArgumentException("Fraction must be from 0 to 1: " + fraction);
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                IdBitmap result = new IdBitmap();
+                for (Map.Entry<Integer, IdBitmap> m : index.capacities().entrySet()) {
+                    // fuel / capacity < fraction, for whole litres
+                    int litres = (int) Math.ceil(fraction * m.getKey());
+                    result = result.or(m.getValue().andNot(index.fuelAtLeast(litres)));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Match the cars whose tank is at least a fraction full.
+     *
+     * @param fraction the fraction of the tank, from 0 to 1.
+     * @return the query.
+     * @throws IllegalArgumentException thrown if the fraction is out of range.
+     */
+    public static FleetQuery tankAtLeast(double fraction) {
+        return tankBelow(fraction).not();
+    }
+
+    /**
+     * Match the cars that match both this and another query.
+     *
+     * @param other the other query.
+     * @return the query.
+     */
+    public FleetQuery and(final FleetQuery other) {
+        final FleetQuery self = check(other);
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return self.evaluate(index).and(other.evaluate(index));
+            }
+        };
+    }
+
+    /**
+     * Match the cars that match either this or another query.
+     *
+     * @param other the other query.
+     * @return the query.
+     */
+    public FleetQuery or(final FleetQuery other) {
+        final FleetQuery self = check(other);
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return self.evaluate(index).or(other.evaluate(index));
+            }
+        };
+    }
+
+    /**
+     * Match the cars that don't match this query.
+     * @return the query.
+     */
+    public FleetQuery not() {
+        final FleetQuery self = this;
+        return new FleetQuery() {
+            @Override
+            IdBitmap evaluate(FleetIndex index) {
+                return index.all().andNot(self.evaluate(index));
+            }
+        };
+    }
+
+    private FleetQuery check(FleetQuery other) {
+        if (other == null)
+            throw new IllegalArgumentException("Query cannot be null.");
+        return this;
+    }
+}
@@ -0,0 +1,354 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>FleetSnapshot</h1>
+ * <p>
+ * Saves a {@code FleetStore} to, and loads it from, a compact
+ * binary file. The file holds:
+ * <ul><li>a header, with the number of cars and the car types</li>
+ * <li>a fixed size record for each car: its packed registration,
+ * type, fuel level and whether it's rented</li>
+ * <li>the renter of each rented car, with their whole license</li></ul>
+ * <p>
+ * A snapshot is written to a temporary file which is then moved
+ * over the old snapshot, so a reader only ever sees a complete
+ * snapshot. It is loaded through a memory-mapped read, with the
+ * car records split across all of the available cores. A file
+ * that is cut short, or whose rented cars and renters don't
+ * match, isn't loaded.
+ * <p>
+ * A snapshot taken while the fleet is in use is not a single
+ * point in time, each car is saved as it was when it was reached.
+ * Use it together with a {@code RentalJournal} to recover exactly.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetStore
+ */
+public final class FleetSnapshot {
+
+    // "FLT2", renters are written with their whole license
+    private static final int MAGIC = 0x464C5432;
+
+    // packed registration, type, fuel level and rented flag
+    private static final int RECORD_SIZE = 8 + 1 + 1 + 1;
+
+    // the types of car that are found by name, without loading a class
+    private static final Map<String, Class<? extends Car>> KNOWN_TYPES = new HashMap<>();
+
+    static {
+        KNOWN_TYPES.put(SmallCar.class.getName(), SmallCar.class);
+        KNOWN_TYPES.put(LargeCar.class.getName(), LargeCar.class);
+    }
+
+    private FleetSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of a fleet, replacing any snapshot
+     * that is already in the file.
+     *
+     * @param fleet the fleet to save.
+     * @param file  the snapshot file.
+     * @throws IOException thrown if the snapshot cannot be written.
+     * @throws IllegalArgumentException thrown if the fleet has more than
+     *                                  127 car types.
+     */
+    public static void write(FleetStore fleet, Path file) throws IOException {
+        List<Class<?>> types = new ArrayList<>(fleet.types());
+        if (types.size() > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Too many car types: " + types.size());
+
+        // copy the cars first, the fleet can change size while it's being saved
+        List<Car> cars = new ArrayList<>(fleet.cars());
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        boolean moved = false;
+        try {
+            writeCars(fleet, types, cars, temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            // don't leave a partly written snapshot behind
+            if (!(moved))
+                deleteQuietly(temporary);
+        }
+    }
+
+    private static void writeCars(FleetStore fleet, List<Class<?>> types, List<Car> cars, Path temporary)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(cars.size());
+            out.writeByte(types.size());
+            for (Class<?> type : types)
+                out.writeUTF(type.getName());
+
+            List<Integer> rentedIndexes = new ArrayList<>();
+            List<Person> renters = new ArrayList<>();
+            for (int i = 0; i < cars.size(); i++) {
+                Car car = cars.get(i);
+                Person renter = fleet.renterOf(car);
+                out.writeLong(car.getRegistration().getPackedValue());
+                out.writeByte(types.indexOf(car.getClass()));
+                out.writeByte(car.getFuelAmount());
+                out.writeBoolean(renter != null);
+                if (renter != null) {
+                    rentedIndexes.add(i);
+                    renters.add(renter);
+                }
+            }
+
+            out.writeInt(renters.size());
+            for (int i = 0; i < renters.size(); i++) {
+                byte[] renter = RenterRecord.encode(renters.get(i));
+                out.writeInt(rentedIndexes.get(i));
+                out.writeInt(renter.length);
+                out.write(renter);
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // the write has already failed, that is what's reported
+        }
+    }
+
+    /**
+     * Write a snapshot of a fleet in the background.
+     *
+     * @param fleet     the fleet to save.
+     * @param file      the snapshot file.
+     * @param executor  runs the write.
+     * @return completes with the file once the snapshot is in place.
+     * @see #write(FleetStore, Path)
+     */
+    public static CompletableFuture<Path> writeInBackground(final FleetStore fleet, final Path file, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write(fleet, file);
+                return file;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Load a fleet from a snapshot.
+     *
+     * @param file  the snapshot file.
+     * @return a new store holding the fleet.
+     * @throws IOException thrown if the file cannot be read, isn't
+     *                     a snapshot, or is cut short or inconsistent.
+     */
+    public static FleetStore load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return load(buffer, file);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot is cut short: " + file, e);
+        }
+    }
+
+    private static FleetStore load(final MappedByteBuffer buffer, Path file) throws IOException {
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC)
+            throw new IOException("Not a fleet snapshot: " + file);
+
+        final int count = buffer.getInt();
+        final Constructor<?>[] types = new Constructor<?>[buffer.get()];
+        List<Class<? extends Car>> classes = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            Class<? extends Car> type = carType(readUTF(buffer));
+            classes.add(type);
+            try {
+                types[i] = type.getConstructor(Registration.class);
+            } catch (NoSuchMethodException e) {
+                throw new IOException("Cannot create cars of type " + type.getName(), e);
+            }
+        }
+
+        final int start = buffer.position();
+        if (count < 0 || (long) count * RECORD_SIZE > buffer.remaining())
+            throw new IOException("Snapshot is cut short, it cannot hold " + count + " cars: " + file);
+
+        final FleetStore fleet = new FleetStore(classes);
+        final Car[] cars = new Car[count];
+        final boolean[] rented = new boolean[count];
+
+        // the car records are fixed size, so they can be created in parallel
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    cars[i] = readCar(buffer, start + i * RECORD_SIZE, types, rented, i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // renters are given their car before its fuel level is restored
+        buffer.position(start + count * RECORD_SIZE);
+        Map<Integer, Person> renters = new HashMap<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            int index = buffer.getInt();
+            int length = buffer.getInt();
+            if (index < 0 || index >= count || !(rented[index]) || renters.containsKey(index))
+                throw new IOException("Renter for car " + index + ", which isn't rented.");
+            if (length < 0 || length > buffer.remaining())
+                throw new IOException("The renter of car " + index + " is cut short.");
+
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            buffer.position(buffer.position() + length);
+            try {
+                renters.put(index, RenterRecord.decode(record));
+            } catch (IOException e) {
+                throw new IOException("Cannot read the renter of car " + index, e);
+            }
+        }
+
+        if (renters.size() != rentedCount(rented))
+            throw new IOException("Snapshot has " + rentedCount(rented) + " rented cars but "
+                    + renters.size() + " renters: " + file);
+
+        for (Map.Entry<Integer, Person> m : renters.entrySet()) {
+            Car car = cars[m.getKey()];
+            int fuel = car.getFuelAmount();
+            car.addFuel(car.getFuelCapacity());
+            add(fleet, car);
+            if (!(fleet.claim(car, m.getValue())))
+                throw new IOException("Cannot rent car " + car.getRegistration() + " to " + m.getValue());
+            car.useFuel(car.getFuelCapacity() - fuel);
+            cars[m.getKey()] = null;
+        }
+
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                if (cars[i] != null) {
+                    try {
+                        add(fleet, cars[i]);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return fleet;
+    }
+
+    /**
+     * Create the car in a record.
+     */
+    private static Car readCar(MappedByteBuffer buffer, int at, Constructor<?>[] types, boolean[] rented, int i)
+            throws IOException {
+        int type = buffer.get(at + 8);
+        if (type < 0 || type >= types.length)
+            throw new IOException("Car " + i + " has an unknown type: " + type);
+        byte flag = buffer.get(at + 10);
+        if (flag != 0 && flag != 1)
+            throw new IOException("Car " + i + " has an invalid rented flag: " + flag);
+        rented[i] = flag == 1;
+
+        Car car;
+        try {
+            car = (Car) types[type].newInstance(Registration.getInstance(buffer.getLong(at)));
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new IOException("Cannot create car " + i, e);
+        }
+        int fuel = buffer.get(at + 9);
+        if (fuel < 0 || fuel > car.getFuelCapacity())
+            throw new IOException("Car " + i + " has an invalid fuel level: " + fuel);
+        car.useFuel(car.getFuelCapacity() - fuel);
+        return car;
+    }
+
+    private static void add(FleetStore fleet, Car car) throws IOException {
+        try {
+            fleet.add(car);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot add car " + car.getRegistration() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int rentedCount(boolean[] rented) {
+        int count = 0;
+        for (boolean r : rented) {
+            if (r)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Find a car type by the name in a snapshot. The fleet's own
+     * types are looked up by name, any other class is loaded
+     * without being initialised, and only used if it's a type of
+     * car, so a snapshot cannot run the code of any other class.
+     */
+    private static Class<? extends Car> carType(String name) throws IOException {
+        Class<? extends Car> known = KNOWN_TYPES.get(name);
+        if (known != null)
+            return known;
+
+        Class<?> type;
+        try {
+            type = Class.forName(name, false, FleetSnapshot.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown car type: " + name, e);
+        }
+        if (!(Car.class.isAssignableFrom(type)))
+            throw new IOException("Not a type of car: " + name);
+        return type.asSubclass(Car.class);
+    }
+
+    /**
+     * Read a string written by {@code DataOutputStream.writeUTF()}.
+     */
+    private static String readUTF(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        // modified UTF-8 only differs for the null character and supplementary characters
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,638 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.AbstractCar;
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h1>FleetStore</h1>
+ * <p>
+ * Holds every {@code Car} that the rental company owns,
+ * along with who (if anyone) is currently renting it.
+ * <p>
+ * The store keeps a number of indexes so that none of the
+ * operations in {@code RentalManagement} have to scan the
+ * whole fleet:
+ * <ul><li>{@code Registration} to {@code Car}</li>
+ * <li>{@code Person} to the {@code Car} they are renting (and back)</li>
+ * <li>a count of the available cars for each car type</li>
+ * <li>the rented cars, kept up to date on every issue and return</li></ul>
+ * <p>
+ * Cars that are returned with a tank that isn't full are
+ * held back until they have been refilled, they become
+ * available again as soon as their tank is full.
+ * <p>
+ * The store is safe to use from many threads without any
+ * global lock. Each car has its own holder which is claimed
+ * and released with a compare-and-set, and a person is
+ * claimed with a {@code putIfAbsent} so that they can only
+ * ever hold one car. The compare-and-set on the car's
+ * holder is the point at which a rental starts or ends,
+ * it is made under the car's own lock along with setting
+ * the car's rented flag, so that the flag changes in the
+ * same order as the holder however rentals interleave.
+ * The tank is checked under the car's monitor too, so fuel
+ * taken by whoever holds that monitor and sees the car is
+ * still rented is always taken before the return, and an
+ * available car always has a full tank.
+ * Listeners are told about each issue and return while
+ * the car's monitor is still held, the same monitor its
+ * fuel is changed under, so they see every change to a
+ * car in the order it happened, and a person's return
+ * before the next car they rent.
+ * The rented cars are kept in a concurrent set of their own,
+ * so that reading them costs the number of rented cars
+ * rather than the size of the fleet.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement
+ */
+public final class FleetStore {
+
+    // held by returned cars that still need their tank filling
+    private static final Object AWAITING_FUEL = new Object();
+
+    // held by cars that have been removed from the fleet
+    private static final Object REMOVED = new Object();
+
+    // held by returned cars that are moving to another fleet
+    private static final Object MOVING = new Object();
+
+    // registration -> slot, for every car in the fleet
+    private final ConcurrentMap<Registration, Slot> byRegistration = new ConcurrentHashMap<>();
+
+    // person -> slot of the car they are renting (or are about to rent)
+    private final ConcurrentMap<Person, Slot> byRenter = new ConcurrentHashMap<>();
+
+    // car type -> number of cars of that type which are available to rent
+    private final Map<Class<?>, AtomicInteger> available = new HashMap<>();
+
+    // the cars that are rented, in no particular order
+    private final RentedCars rented = new RentedCars();
+
+    // told about every change to the fleet
+    private final List<FleetListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Object constructor, creates an empty store that
+     * tracks {@code SmallCar} and {@code LargeCar} types.
+     */
+    public FleetStore() {
+        this(Arrays.asList(LargeCar.class, SmallCar.class));
+    }
+
+    /**
+     * Object constructor, creates an empty store that
+     * tracks the given types of car.
+     *
+     * @param types the types of car that the fleet can hold.
+     * @throws IllegalArgumentException thrown if the types are null.
+     */
+    public FleetStore(Collection<Class<? extends Car>> types) {
+        if (types == null)
+            throw new IllegalArgumentException("Types cannot be null.");
+        for (Class<? extends Car> type : types)
+            available.put(type, new AtomicInteger());
+    }
+
+    /**
+     * Add a {@code Car} to the fleet, it will be available
+     * to rent straight away if its tank is full, otherwise
+     * once it has been refilled.
+     *
+     * @param car the car to add.
+     * @throws IllegalArgumentException thrown if the car is null, is
+     *                                  of a type that isn't tracked or if
+     *                                  a car with the same registration
+     *                                  is already in the fleet.
+     */
+    public void add(Car car) {
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+
+        AtomicInteger count = available.get(car.getClass());
+        if (count == null)
+            throw new IllegalArgumentException("Unsupported car type: " + car.getClass().getName());
+        Slot slot = new Slot(car);
+        boolean full = car.isTankFull();
+        if (!full)
+            slot.holder.set(AWAITING_FUEL);
+        if (byRegistration.putIfAbsent(car.getRegistration(), slot) != null)
+            throw new IllegalArgumentException("Duplicate registration: " + car.getRegistration());
+
+        if (full)
+            count.incrementAndGet();
+        if (car instanceof AbstractCar)
+            ((AbstractCar) car).setObserver(this::fuelChanged);
+        for (FleetListener listener : listeners)
+            listener.carAdded(car);
+    }
+
+    /**
+     * Remove a {@code Car} from the fleet, so long as it isn't rented.
+     *
+     * @param car the car to remove.
+     * @return true, if the car was removed, else false if it
+     * isn't in the fleet or is rented.
+     */
+    public boolean remove(Car car) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        if (slot == null || slot.car != car)
+            return false;
+
+        Object holder;
+        do {
+            holder = slot.holder.get();
+            if (holder == REMOVED || holder == MOVING || holder instanceof Person)
+                return false;
+        } while (!(slot.holder.compareAndSet(holder, REMOVED)));
+
+        byRegistration.remove(car.getRegistration(), slot);
+        if (holder == null)
+            available.get(car.getClass()).decrementAndGet();
+        if (car instanceof AbstractCar)
+            ((AbstractCar) car).setObserver(null);
+        for (FleetListener listener : listeners)
+            listener.carRemoved(car);
+        return true;
+    }
+
+    /**
+     * Add a listener that is told about every change
+     * to the fleet from now on.
+     *
+     * @param listener the listener.
+     * @throws IllegalArgumentException thrown if the listener is null.
+     */
+    public void addListener(FleetListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null.");
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener that was previously added.
+     *
+     * @param listener the listener.
+     */
+    public void removeListener(FleetListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the fleet's {@code Car} with the given registration.
+     *
+     * @param registration the registration to look up.
+     * @return the car, or {@code null} if it isn't in the fleet.
+     */
+    public Car find(Registration registration) {
+        Slot slot = byRegistration.get(registration);
+        return slot == null ? null : slot.car;
+    }
+
+    /**
+     * Get the {@code Car} that a {@code Person} is renting.
+     *
+     * @param person the renter.
+     * @return the car, or {@code null} if they aren't renting one.
+     */
+    public Car carOf(Person person) {
+        Slot slot = byRenter.get(person);
+        return slot != null && person.equals(slot.holder.get()) ? slot.car : null;
+    }
+
+    /**
+     * Get the {@code Person} who is renting a {@code Car}.
+     *
+     * @param car the rented car.
+     * @return the renter, or {@code null} if the car isn't rented.
+     */
+    public Person renterOf(Car car) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        if (slot == null)
+            return null;
+        Object holder = slot.holder.get();
+        return holder instanceof Person ? (Person) holder : null;
+    }
+
+    /**
+     * Check whether a {@code Person} is currently renting a car.
+     *
+     * @param person the person to check.
+     * @return true, if they are renting, else false.
+     */
+    public boolean isRenting(Person person) {
+        return carOf(person) != null;
+    }
+
+    /**
+     * Check whether a {@code Car} is being held back until
+     * its tank has been refilled.
+     *
+     * @param car the car to check.
+     * @return true, if the car is waiting for fuel, else false.
+     */
+    public boolean isAwaitingFuel(Car car) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        return slot != null && slot.holder.get() == AWAITING_FUEL;
+    }
+
+    /**
+     * Count the available cars of a given type.
+     *
+     * @param type the type of car.
+     * @return the number of available cars, or -1 if the
+     * type isn't tracked by the store.
+     */
+    public int available(Class<?> type) {
+        AtomicInteger count = available.get(type);
+        return count == null ? -1 : count.get();
+    }
+
+    /**
+     * Rent the fleet's {@code Car} to the given {@code Person}.
+     * <p>
+     * The car has to be available (not rented and not
+     * waiting to be refuelled) and the person cannot
+     * already be renting a car.
+     *
+     * @param car    the fleet car to rent.
+     * @param person the person renting it.
+     * @return true, if the car was claimed, else false.
+     */
+    public boolean claim(Car car, Person person) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        if (slot == null || slot.car != car)
+            return false;
+
+        // claim the person, they can only be renting one car.
+        for (Slot held; (held = byRenter.putIfAbsent(person, slot)) != null; ) {
+            if (person.equals(held.holder.get()))
+                return false;
+            // another claim or release for this person is in-flight, let it settle
+            Thread.yield();
+        }
+
+        // a returned car may have been refilled since it came back
+        if (slot.holder.get() == AWAITING_FUEL && car.isTankFull())
+            refilled(slot);
+
+        // then claim the car, which can only be rented with a full tank
+        synchronized (slot) {
+            synchronized (car) {
+                if (!(car.isTankFull() && slot.holder.compareAndSet(null, person))) {
+                    byRenter.remove(person, slot);
+                    return false;
+                }
+                car.setRented(true);
+                for (FleetListener listener : listeners)
+                    listener.carIssued(car, person);
+            }
+            rented.sync(slot);
+            available.get(car.getClass()).decrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * End the rental held by a {@code Person}. The car becomes
+     * available again if the tank is full, otherwise it is
+     * held back until it has been refilled.
+     *
+     * @param person the renter.
+     * @return the car that was returned, or {@code null}
+     * if the person wasn't renting one.
+     */
+    public Car release(Person person) {
+        return release(person, false);
+    }
+
+    /**
+     * End the rental held by a {@code Person}, holding the car back
+     * as it moves to another fleet. It can't be rented or removed
+     * until the move is finished with {@link #moved(Car)}, once it
+     * has been added to the other fleet, or abandoned with
+     * {@link #stay(Car)}.
+     *
+     * @param person the renter.
+     * @return the car that was returned, or {@code null}
+     * if the person wasn't renting one.
+     */
+    Car releaseMoving(Person person) {
+        return release(person, true);
+    }
+
+    /**
+     * Take a car that was held back as moving out of the fleet,
+     * leaving its fuel to be observed by the fleet it moved to.
+     *
+     * @param car the car.
+     * @return true, if the car was moving and has been removed.
+     */
+    boolean moved(Car car) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        if (slot == null || slot.car != car || !(slot.holder.compareAndSet(MOVING, REMOVED)))
+            return false;
+
+        byRegistration.remove(car.getRegistration(), slot);
+        for (FleetListener listener : listeners)
+            listener.carRemoved(car);
+        return true;
+    }
+
+    /**
+     * Keep a car that was held back as moving in the fleet after
+     * all, it becomes available as if it had just been returned.
+     *
+     * @param car the car.
+     * @return true, if the car was moving.
+     */
+    boolean stay(Car car) {
+        Slot slot = byRegistration.get(car.getRegistration());
+        if (slot == null || slot.car != car)
+            return false;
+
+        synchronized (slot) {
+            boolean full;
+            synchronized (car) {
+                full = car.isTankFull();
+                if (!(slot.holder.compareAndSet(MOVING, full ? null : AWAITING_FUEL)))
+                    return false;
+            }
+            if (full)
+                available.get(car.getClass()).incrementAndGet();
+            else if (car.isTankFull())
+                refilled(slot);
+        }
+        return true;
+    }
+
+    /**
+     * End a rental, the car is either made available, held
+     * back until it has been refilled, or held back as moving.
+     */
+    private Car release(Person person, boolean moving) {
+        Slot slot = byRenter.get(person);
+        if (slot == null)
+            return null;
+
+        Object holder = slot.holder.get();
+        if (!(person.equals(holder)))
+            return null;
+
+        boolean full;
+        synchronized (slot) {
+            synchronized (slot.car) {
+                full = slot.car.isTankFull();
+                Object next = moving ? MOVING : full ? null : AWAITING_FUEL;
+                if (!(slot.holder.compareAndSet(holder, next)))
+                    return null;
+                slot.car.setRented(false);
+                for (FleetListener listener : listeners)
+                    listener.carReturned(slot.car, person);
+            }
+            rented.sync(slot);
+            if (!(moving)) {
+                if (full)
+                    available.get(slot.car.getClass()).incrementAndGet();
+
+                // the tank may have been filled after it was checked, and before
+                // the car was awaiting fuel, so nothing else would make it available
+                if (!(full) && slot.car.isTankFull())
+                    refilled(slot);
+            }
+        }
+
+        // only now can the person rent again, after their return has been reported
+        byRenter.remove(person, slot);
+        return slot.car;
+    }
+
+    /**
+     * Get all of the cars that are currently rented.
+     *
+     * @return a new {@code List<Car>} of the rented cars.
+     */
+    public List<Car> rentedCars() {
+        return rented.page(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a page of the cars that are currently rented. The cars
+     * aren't in any particular order, and the cars skipped over are
+     * read rather than counted, so paging while cars are issued or
+     * returned can miss or repeat a car.
+     *
+     * @param offset the number of rented cars to skip.
+     * @param limit  the most cars to return.
+     * @return a new {@code List<Car>} of at most {@code limit} cars.
+     * @throws IllegalArgumentException thrown if the offset or
+     *                                  limit is negative.
+     */
+    public List<Car> rentedCars(int offset, int limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Offset and limit cannot be negative: " + offset + ", " + limit);
+        return rented.page(offset, limit);
+    }
+
+    /**
+     * Get the cars that are currently rented, without copying them.
+     * The iterator is weakly consistent, as with {@code cars()}, it
+     * never fails but may miss or repeat a car issued or returned
+     * while iterating. Its spliterator doesn't report a size, as the
+     * number of cars can change while a stream of them is running.
+     *
+     * @return a read-only, live, view of the rented cars.
+     */
+    public Collection<Car> rentedCarsView() {
+        return new AbstractCollection<Car>() {
+            @Override
+            public Iterator<Car> iterator() {
+                return rented.iterator();
+            }
+
+            @Override
+            public Spliterator<Car> spliterator() {
+                return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL | Spliterator.CONCURRENT);
+            }
+
+            @Override
+            public int size() {
+                return rented.size();
+            }
+        };
+    }
+
+    /**
+     * Count the cars that are currently rented.
+     *
+     * @return the number of rented cars.
+     */
+    public int rentedCount() {
+        return rented.size();
+    }
+
+    /**
+     * Get every car in the fleet.
+     *
+     * @return a read-only, live, view of the cars.
+     */
+    public Collection<Car> cars() {
+        return new AbstractCollection<Car>() {
+            @Override
+            public Iterator<Car> iterator() {
+                final Iterator<Slot> slots = byRegistration.values().iterator();
+                return new Iterator<Car>() {
+                    @Override
+                    public boolean hasNext() {
+                        return slots.hasNext();
+                    }
+
+                    @Override
+                    public Car next() {
+                        return slots.next().car;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return byRegistration.size();
+            }
+        };
+    }
+
+    /**
+     * Get the types of car that the fleet can hold.
+     *
+     * @return the types of car.
+     */
+    public Set<Class<?>> types() {
+        return Collections.unmodifiableSet(available.keySet());
+    }
+
+    /**
+     * Get the number of cars in the fleet.
+     *
+     * @return the fleet size.
+     */
+    public int size() {
+        return byRegistration.size();
+    }
+
+    /**
+     * Pass a change to a car's fuel level on to the listeners,
+     * and make a returned car available once its tank is full.
+     */
+    private void fuelChanged(Car car, int previous, int current) {
+        for (FleetListener listener : listeners)
+            listener.fuelChanged(car, previous, current);
+
+        if (current == car.getFuelCapacity()) {
+            Slot slot = byRegistration.get(car.getRegistration());
+            if (slot != null && slot.car == car && slot.holder.get() == AWAITING_FUEL)
+                refilled(slot);
+        }
+    }
+
+    /**
+     * Make a car that was waiting for fuel available, only one
+     * caller succeeds for each time the car is refilled.
+     */
+    private void refilled(Slot slot) {
+        if (!(slot.holder.compareAndSet(AWAITING_FUEL, null)))
+            return;
+
+        available.get(slot.car.getClass()).incrementAndGet();
+        for (FleetListener listener : listeners)
+            listener.carRefilled(slot.car);
+    }
+
+    /**
+     * A car in the fleet along with whoever is holding it,
+     * either {@code null} (available), the renting {@code Person},
+     * {@code AWAITING_FUEL}, {@code MOVING} or {@code REMOVED}.
+     */
+    private static final class Slot {
+        private final Car car;
+        private final AtomicReference<Object> holder = new AtomicReference<>();
+
+        private Slot(Car car) {
+            this.car = car;
+        }
+    }
+
+    /**
+     * The slots of the rented cars, in a concurrent set with a
+     * separate count so that neither adding, removing nor reading
+     * them takes a lock shared by the whole fleet.
+     * <p>
+     * Each claim and release syncs the slot with its holder while
+     * holding the car's lock, so the rented cars change in the same
+     * order as the holders. Paging and iterating are weakly
+     * consistent, as with any concurrent set.
+     */
+    private static final class RentedCars {
+        private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void sync(Slot slot) {
+            if (slot.holder.get() instanceof Person) {
+                if (slots.add(slot))
+                    size.incrementAndGet();
+            } else if (slots.remove(slot)) {
+                size.decrementAndGet();
+            }
+        }
+
+        private int size() {
+            return Math.max(0, size.get());
+        }
+
+        private List<Car> page(int offset, int limit) {
+            List<Car> page = new ArrayList<>(Math.min(limit, size()));
+            Iterator<Slot> iterator = slots.iterator();
+            for (int i = 0; i < offset && iterator.hasNext(); i++)
+                iterator.next();
+            while (page.size() < limit && iterator.hasNext())
+                page.add(iterator.next().car);
+            return page;
+        }
+
+        private Iterator<Car> iterator() {
+            final Iterator<Slot> iterator = slots.iterator();
+            return new Iterator<Car>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Car next() {
+                    return iterator.next().car;
+                }
+            };
+        }
+    }
+}
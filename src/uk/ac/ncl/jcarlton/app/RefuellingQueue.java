@@ -0,0 +1,218 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>RefuellingQueue</h1>
+ * <p>
+ * Refills the cars that are returned to a {@code FleetStore}
+ * with a tank that isn't full, so they don't sit unrentable.
+ * <p>
+ * The queue listens to the store, every car returned without
+ * a full tank (from {@code RentalManagement.terminateRental()}
+ * or any other caller) becomes a refuelling job. Jobs are done
+ * in priority order:
+ * <ol><li>cars of the type with the fewest available cars
+ * first, as that type is in the most demand</li>
+ * <li>then the cars needing the fewest litres first, as they
+ * are back in service the soonest</li>
+ * <li>then in the order they were returned</li></ol>
+ * The demand for a type is measured when the car is returned.
+ * <p>
+ * Worker threads take the jobs in batches and fill each car
+ * with {@code addFuel()}. The store makes a car available the
+ * moment its tank is full.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetStore#isAwaitingFuel(Car)
+ */
+public final class RefuellingQueue implements FleetListener, Closeable {
+
+    // orders the jobs, the stop job comes after every real job
+    private static final Comparator<Job> PRIORITY = Comparator
+            .comparingInt((Job job) -> job.available)
+            .thenComparingInt(job -> job.litres)
+            .thenComparingLong(job -> job.sequence);
+
+    private final FleetStore fleet;
+    private final int batchSize;
+    private final PriorityBlockingQueue<Job> jobs = new PriorityBlockingQueue<>(64, PRIORITY);
+    private final Thread[] workers;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder refilled = new LongAdder();
+    private final LongAdder litres = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Create a queue and start its workers. Any cars in the store
+     * that are already waiting for fuel are queued straight away.
+     *
+     * @param fleet     the store whose returned cars are refilled.
+     * @param workers   the number of worker threads.
+     * @param batchSize the most cars a worker refills at once.
+     * @throws IllegalArgumentException thrown if the fleet is null or the
+     *                                  workers or batch size aren't positive.
+     */
+    public RefuellingQueue(FleetStore fleet, int workers, int batchSize) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+        if (workers < 1)
+            throw new IllegalArgumentException("Workers must be positive: " + workers);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+
+        this.fleet = fleet;
+        this.batchSize = batchSize;
+
+        // listen first, so no returned car is missed
+        fleet.addListener(this);
+        for (Car car : fleet.cars()) {
+            if (fleet.isAwaitingFuel(car))
+                enqueue(car);
+        }
+
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Thread(this::work, "refuelling-" + i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Queue a returned car if its tank isn't full.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void carReturned(Car car, Person person) {
+        if (!(car.isTankFull()))
+            enqueue(car);
+    }
+
+    /**
+     * Get the number of cars waiting to be refilled.
+     * @return the number of jobs.
+     */
+    public int pending() {
+        return jobs.size();
+    }
+
+    /**
+     * Get the number of cars that have been refilled.
+     * @return the number refilled.
+     */
+    public long refilled() {
+        return refilled.sum();
+    }
+
+    /**
+     * Get the litres of fuel that have been added.
+     * @return the litres added.
+     */
+    public long litres() {
+        return litres.sum();
+    }
+
+    /**
+     * Stop listening to the store, refill the cars already
+     * queued, then stop the workers.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        fleet.removeListener(this);
+
+        for (int i = 0; i < workers.length; i++)
+            jobs.add(new Job(null, 0, Integer.MAX_VALUE, Long.MAX_VALUE));
+
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void enqueue(Car car) {
+        if (closed)
+            return;
+        jobs.add(new Job(car, car.getFuelCapacity() - car.getFuelAmount(),
+                fleet.available(car.getClass()), sequence.getAndIncrement()));
+    }
+
+    /**
+     * Take jobs in batches and refill the cars, until told to stop.
+     */
+    private void work() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(jobs.take());
+            } catch (InterruptedException e) {
+                // only stopped by a stop job, so the queue is always drained
+                continue;
+            }
+            jobs.drainTo(batch, batchSize - 1);
+
+            int stops = 0;
+            for (Job job : batch) {
+                if (job.car == null) {
+                    stops++;
+                    continue;
+                }
+
+                // the car may have been refilled by someone else already
+                int added = job.car.addFuel(job.car.getFuelCapacity());
+                if (added > 0) {
+                    refilled.increment();
+                    litres.add(added);
+                }
+            }
+            batch.clear();
+
+            if (stops > 0) {
+                // put back the other stop jobs taken in this batch, for the other workers
+                for (int i = 1; i < stops; i++)
+                    jobs.add(new Job(null, 0, Integer.MAX_VALUE, Long.MAX_VALUE));
+                return;
+            }
+        }
+    }
+
+    /**
+     * A car waiting to be refilled, the car is null for a stop job.
+     */
+    private static final class Job {
+        private final Car car;
+        private final int litres;
+        private final int available;
+        private final long sequence;
+
+        private Job(Car car, int litres, int available, long sequence) {
+            this.car = car;
+            this.litres = litres;
+            this.available = available;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * <h1>RentalJournal</h1>
+ * <p>
+ * An append-only journal of every change made to a
+ * {@code FleetStore}: cars being issued and returned, and
+ * every change to a car's fuel level (adding fuel, using
+ * fuel and driving).
+ * <p>
+ * The journal is a memory-mapped file, so appending a record
+ * is a write to memory rather than a system call. The mapped
+ * pages are forced to disk together, in the background, every
+ * commit interval (group commit). A crash can therefore lose
+ * at most the records written since the last commit.
+ * <p>
+ * Appending takes no lock: each record reserves its place with
+ * a compare-and-set on the write position, and records are
+ * written side by side. A lock is only taken to map the next region of
+ * the file once the current one is full.
+ * <p>
+ * Each record is written as its length, a CRC32 checksum, a
+ * type and then the payload. The length is written last, and
+ * replay stops at the first record whose length or checksum
+ * doesn't match, so a record that was only partly written, or
+ * whose pages reached the disk out of order after a crash, is
+ * seen as the end of the journal. The store reports every
+ * change to a car under that car's monitor, so the records of
+ * a car are in the order the changes were made. A renter is
+ * written with their whole license, so they are replayed with
+ * the same license number.
+ * <p>
+ * To recover, {@link #replay(Path, FleetStore)} the journal into
+ * a store holding the same cars, then
+ * {@link #open(Path, long, FleetStore)} it, which starts it
+ * listening to the store until it's closed.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.FleetStore#addListener(FleetListener)
+ */
+public final class RentalJournal implements FleetListener, Closeable {
+
+    // the size of each mapped region of the file
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    // length written at the end of a segment, the journal carries on in the next
+    private static final int END_OF_SEGMENT = -1;
+
+    // the length and checksum before each record
+    private static final int HEADER_SIZE = 4 + 4;
+
+    // record types
+    private static final byte ISSUED = 1;
+    private static final byte RETURNED = 2;
+    private static final byte FUEL = 3;
+
+    private final FileChannel channel;
+    private final FleetStore fleet;
+    private final ScheduledExecutorService committer;
+
+    // where the next record goes in the file
+    private final AtomicLong next;
+
+    // the region of the file currently being written
+    private volatile Segment segment;
+    private volatile boolean dirty;
+    private volatile boolean closed;
+
+    // held while forcing the file to disk, so commits don't overlap
+    private final Object committing = new Object();
+
+    private RentalJournal(FileChannel channel, long end, long commitIntervalMillis, FleetStore fleet)
+            throws IOException {
+        this.channel = channel;
+        this.fleet = fleet;
+        this.next = new AtomicLong(end);
+
+        // anything after the end is a torn record or what followed it, and must not be replayed
+        long index = end / SEGMENT_SIZE;
+        if (channel.size() > (index + 1) * SEGMENT_SIZE)
+            channel.truncate((index + 1) * SEGMENT_SIZE);
+        this.segment = new Segment(index, channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_SIZE, SEGMENT_SIZE));
+        clear(segment.buffer, (int) (end - index * SEGMENT_SIZE));
+
+        committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rental-journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a journal, creating the file if it doesn't exist, ready
+     * to append after the last complete record, and start
+     * recording the changes made to a {@code FleetStore}.
+     *
+     * @param file                  the journal file.
+     * @param commitIntervalMillis  how often, in milliseconds, the
+     *                              journal is forced to disk.
+     * @param fleet                 the store to record, the journal
+     *                              listens to it until it's closed.
+     * @return the journal.
+     * @throws IOException thrown if the file cannot be opened or read.
+     * @throws IllegalArgumentException thrown if the commit interval
+     *                                  isn't positive or the fleet is null.
+     */
+    public static RentalJournal open(Path file, long commitIntervalMillis, FleetStore fleet) throws IOException {
+        if (commitIntervalMillis <= 0)
+            throw new IllegalArgumentException("Commit interval must be positive: " + commitIntervalMillis);
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        RentalJournal journal;
+        try {
+            journal = new RentalJournal(channel, scan(channel, null), commitIntervalMillis, fleet);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        fleet.addListener(journal);
+        return journal;
+    }
+
+    /**
+     * Replay a journal into a {@code FleetStore}, re-issuing and
+     * returning cars and restoring their fuel levels. The store
+     * should hold the same cars as when the journal was written,
+     * and the journal shouldn't be listening to it yet.
+     *
+     * @param file  the journal file, nothing happens if it doesn't exist.
+     * @param fleet the store to rebuild.
+     * @return the number of records that were replayed.
+     * @throws IOException thrown if the file cannot be read, or
+     *                     holds a record that cannot be replayed.
+     */
+    public static long replay(Path file, FleetStore fleet) throws IOException {
+        if (!(file.toFile().exists()))
+            return 0;
+
+        Replayer replayer = new Replayer(fleet);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, replayer);
+        }
+        return replayer.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void carIssued(Car car, Person person) {
+        byte[] renter = RenterRecord.encode(person);
+        ByteBuffer record = record(ISSUED, car, 4 + renter.length);
+        record.putInt(renter.length).put(renter);
+        append(record);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void carReturned(Car car, Person person) {
+        append(record(RETURNED, car, 0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fuelChanged(Car car, int previous, int current) {
+        ByteBuffer record = record(FUEL, car, 4);
+        record.putInt(current);
+        append(record);
+    }
+
+    /**
+     * Force everything written so far to disk. This is called
+     * in the background every commit interval, appends carry
+     * on while the pages are being written.
+     */
+    public void commit() {
+        synchronized (committing) {
+            if (!dirty)
+                return;
+            dirty = false;
+
+            // a record may still be going into the previous segment
+            Segment written = segment;
+            Segment previous = written.previous;
+            if (previous != null)
+                previous.buffer.force();
+            written.buffer.force();
+        }
+    }
+
+    /**
+     * Stop listening to the store, commit the journal and close
+     * the file. A change the store was reporting while the
+     * journal closed isn't recorded.
+     *
+     * @throws IOException thrown if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        fleet.removeListener(this);
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        committer.shutdown();
+        commit();
+        channel.close();
+    }
+
+    /**
+     * Start a record, leaving room for its length and checksum.
+     *
+     * @param size  the size of the payload after the registration.
+     * @return the record, positioned after the registration.
+     */
+    private static ByteBuffer record(byte type, Car car, int size) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1 + 8 + size);
+        record.position(HEADER_SIZE);
+        record.put(type).putLong(car.getRegistration().getPackedValue());
+        return record;
+    }
+
+    /**
+     * Reserve a place for a record and write it there, the
+     * length going last, which makes it part of the journal.
+     */
+    private void append(ByteBuffer record) {
+        if (closed)
+            return;
+
+        int size = record.capacity();
+        if (size > SEGMENT_SIZE)
+            throw new IllegalArgumentException("Record is too large: " + size);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, size - HEADER_SIZE);
+        record.putInt(4, (int) crc.getValue());
+
+        long start = reserve(size);
+        MappedByteBuffer buffer = segment(start / SEGMENT_SIZE);
+        if (buffer == null)
+            return;
+
+        int offset = (int) (start % SEGMENT_SIZE);
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + 4);
+        target.put(record.array(), 4, size - 4);
+        buffer.putInt(offset, size - HEADER_SIZE);
+        if (!(dirty))
+            dirty = true;
+    }
+
+    /**
+     * Reserve a place for a record with a compare-and-set on the
+     * write position. A record never crosses into the next segment,
+     * if it doesn't fit the position is moved to the start of the
+     * next segment, and whoever moves it marks the end of this one.
+     *
+     * @param size  the size of the record, including its length.
+     * @return where the record starts in the file.
+     */
+    private long reserve(int size) {
+        while (true) {
+            long position = next.get();
+            int offset = (int) (position % SEGMENT_SIZE);
+            if (offset + size <= SEGMENT_SIZE) {
+                if (next.compareAndSet(position, position + size))
+                    return position;
+            } else if (next.compareAndSet(position, position - offset + SEGMENT_SIZE)) {
+                MappedByteBuffer buffer = segment(position / SEGMENT_SIZE);
+                if (buffer != null && offset + 4 <= SEGMENT_SIZE)
+                    buffer.putInt(offset, END_OF_SEGMENT);
+            }
+        }
+    }
+
+    /**
+     * Get the mapped region of the file for a segment, mapping
+     * the next one if the writes have reached it.
+     *
+     * @return the region, or {@code null} if the journal was closed
+     * before it could be mapped.
+     */
+    private MappedByteBuffer segment(long index) {
+        Segment current = segment;
+        if (current.index == index)
+            return current.buffer;
+        Segment previous = current.previous;
+        if (previous != null && previous.index == index)
+            return previous.buffer;
+
+        try {
+            if (index < current.index) {
+                // a write that has fallen well behind, map its segment again
+                return channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_SIZE, SEGMENT_SIZE);
+            }
+            synchronized (this) {
+                while (segment.index < index) {
+                    Segment full = segment;
+                    Segment mapped = new Segment(full.index + 1,
+                            channel.map(FileChannel.MapMode.READ_WRITE, (full.index + 1) * SEGMENT_SIZE, SEGMENT_SIZE));
+                    // the segment before the full one is no longer committed, so force it now
+                    Segment older = full.previous;
+                    if (older != null)
+                        older.buffer.force();
+                    full.previous = null;
+                    mapped.previous = full;
+                    segment = mapped;
+                }
+                return segment.index == index ? segment.buffer : segment.previous.buffer;
+            }
+        } catch (IOException e) {
+            if (closed)
+                return null;
+            throw new IllegalStateException("Cannot extend the journal.", e);
+        }
+    }
+
+    /**
+     * Zero a segment from a position to its end.
+     */
+    private static void clear(MappedByteBuffer buffer, int from) {
+        byte[] zeros = new byte[64 * 1024];
+        ByteBuffer target = buffer.duplicate();
+        target.position(from);
+        while (target.hasRemaining())
+            target.put(zeros, 0, Math.min(zeros.length, target.remaining()));
+    }
+
+    /**
+     * Read each complete record in the journal, in order,
+     * stopping at the first record that is cut short or whose
+     * checksum doesn't match.
+     *
+     * @param channel   the journal file.
+     * @param replayer  given each record, may be null.
+     * @return the position after the last complete record.
+     */
+    private static long scan(FileChannel channel, Replayer replayer) throws IOException {
+        CRC32 crc = new CRC32();
+        long start = 0;
+        while (true) {
+            long remaining = Math.min(SEGMENT_SIZE, channel.size() - start);
+            if (remaining < HEADER_SIZE)
+                return start;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, remaining);
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt(buffer.position());
+                if (length == END_OF_SEGMENT)
+                    break;
+                if (length <= 0 || length > buffer.remaining() - HEADER_SIZE)
+                    return start + buffer.position();
+
+                ByteBuffer body = buffer.duplicate();
+                body.position(buffer.position() + HEADER_SIZE);
+                body.limit(body.position() + length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(buffer.position() + 4))
+                    return start + buffer.position();
+
+                if (replayer != null)
+                    replayer.replay(body, length);
+                buffer.position(buffer.position() + HEADER_SIZE + length);
+            }
+
+            // a segment that isn't full is the end of the file
+            if (remaining < SEGMENT_SIZE)
+                return start + buffer.position();
+            start += SEGMENT_SIZE;
+        }
+    }
+
+    /**
+     * A mapped region of the file, along with the one before
+     * it, which may still be being written by a slow append.
+     */
+    private static final class Segment {
+        private final long index;
+        private final MappedByteBuffer buffer;
+        private volatile Segment previous;
+
+        private Segment(long index, MappedByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Applies journal records to a {@code FleetStore}.
+     */
+    private static final class Replayer {
+        private final FleetStore fleet;
+        private long count;
+
+        private Replayer(FleetStore fleet) {
+            this.fleet = fleet;
+        }
+
+        private void replay(ByteBuffer record, int length) throws IOException {
+            byte type = record.get();
+            Registration registration = Registration.getInstance(record.getLong());
+            Car car = fleet.find(registration);
+            if (car == null)
+                throw new IOException("Journal refers to a car that isn't in the fleet: " + registration);
+
+            switch (type) {
+                case ISSUED:
+                    int size = record.getInt();
+                    if (size < 0 || size != length - 1 - 8 - 4)
+                        throw new IOException("Not a valid rental record of " + registration + ": " + size);
+                    if (!(fleet.claim(car, RenterRecord.decode(record.slice()))))
+                        throw new IOException("Cannot replay rental of " + registration);
+                    break;
+                case RETURNED:
+                    Person person = fleet.renterOf(car);
+                    if (person != null)
+                        fleet.release(person);
+                    break;
+                case FUEL:
+                    int level = record.getInt();
+                    if (level > car.getFuelAmount())
+                        car.addFuel(level - car.getFuelAmount());
+                    else
+                        car.useFuel(car.getFuelAmount() - level);
+                    break;
+                default:
+                    throw new IOException("Unknown journal record type: " + type + " (" + length + " bytes)");
+            }
+            count++;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package uk.ac.ncl.jcarlton.app;
 
 import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
 import uk.ac.ncl.jcarlton.util.RegistrationGenerator;
 
-import java.time.LocalDate;
-import java.time.Period;
 import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * <h1>Car Rental Management</h1>
@@ -19,14 +20,90 @@ import java.util.*;
  */
 public final class RentalManagement {
 
-    // all the cars that the company has and if they are rented.
-    private Map<Car, Person> rentedCars;
+    // all the cars that the company has and who is renting them.
+    private final FleetStore fleet;
+
+    // who can rent each type of car.
+    private final EligibilityRules rules;
+
+    // counts and times each operation, null if nothing is recorded.
+    private final RentalMetrics metrics;
+
+    // future bookings of the cars, null if cars cannot be booked.
+    private final ReservationBook reservations;
 
     /**
      * Object constructor.
      */
     public RentalManagement() {
-        rentedCars = populateMap();
+        rules = EligibilityRules.standard(EpochDayClock.system());
+        fleet = populateFleet();
+        metrics = null;
+        reservations = null;
+    }
+
+    /**
+     * Object constructor, manage an existing fleet
+     * of cars rather than the default one.
+     *
+     * @param fleet the cars to manage.
+     * @throws IllegalArgumentException thrown if the fleet is null.
+     */
+    public RentalManagement(FleetStore fleet) {
+        this(fleet, EligibilityRules.standard(EpochDayClock.system()));
+    }
+
+    /**
+     * Object constructor, manage an existing fleet of cars
+     * using a given set of eligibility rules.
+     *
+     * @param fleet the cars to manage.
+     * @param rules who can rent each type of car.
+     * @throws IllegalArgumentException thrown if either parameter is null.
+     */
+    public RentalManagement(FleetStore fleet, EligibilityRules rules) {
+        this(fleet, rules, null);
+    }
+
+    /**
+     * Object constructor, manage an existing fleet of cars using
+     * a given set of eligibility rules, recording the outcome and
+     * latency of each operation.
+     *
+     * @param fleet   the cars to manage.
+     * @param rules   who can rent each type of car.
+     * @param metrics where to record each operation, may be null
+     *                to record nothing.
+     * @throws IllegalArgumentException thrown if the fleet or rules are null.
+     */
+    public RentalManagement(FleetStore fleet, EligibilityRules rules, RentalMetrics metrics) {
+        this(fleet, rules, metrics, null);
+    }
+
+    /**
+     * Object constructor, manage an existing fleet of cars using
+     * a given set of eligibility rules, recording each operation
+     * and refusing to issue a car that is booked by someone else
+     * today.
+     *
+     * @param fleet        the cars to manage.
+     * @param rules        who can rent each type of car.
+     * @param metrics      where to record each operation, may be null
+     *                     to record nothing.
+     * @param reservations the bookings of the cars, may be null if
+     *                     cars cannot be booked.
+     * @throws IllegalArgumentException thrown if the fleet or rules are null.
+     */
+    public RentalManagement(FleetStore fleet, EligibilityRules rules, RentalMetrics metrics,
+                            ReservationBook reservations) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+        if (rules == null)
+            throw new IllegalArgumentException("Rules cannot be null.");
+        this.fleet = fleet;
+        this.rules = rules;
+        this.metrics = metrics;
+        this.reservations = reservations;
     }
 
     /**
@@ -40,23 +117,13 @@ public final class RentalManagement {
      * -1 if the class type is anything else.
      */
     public int availableCars(Class<?> type) {
-        int count = 0;
-        if (type == LargeCar.class) { // if its a large car
-            for (Map.Entry<Car, Person> m : rentedCars.entrySet()) {
-                if (m.getValue() == null && m.getKey() instanceof LargeCar)
-                    count++;
-            }
-            return count;
-        } else if (type == SmallCar.class) { // else its a small car
-            for (Map.Entry<Car, Person> m : rentedCars.entrySet()) {
-                if (m.getValue() == null && m.getKey() instanceof SmallCar)
-                    count++;
-            }
-            return count;
-        } else { // else its of neither class type
-            return -1;
-        }
+        if (metrics == null)
+            return fleet.available(type);
 
+        long start = System.nanoTime();
+        int available = fleet.available(type);
+        metrics.recordOperation(RentalMetrics.Operation.AVAILABLE_CARS, System.nanoTime() - start);
+        return available;
     }
 
     /**
@@ -66,12 +133,52 @@ public final class RentalManagement {
      * @return {@code List<Car>} of all rented Car's
      */
     public List<Car> getRentedCars() {
-        List<Car> rented = new ArrayList<>();
-        for (Car car : rentedCars.keySet()) {
-            if (car.isRented()) // check if the current car is rented
-                rented.add(car);
-        }
-        return rented;
+        return fleet.rentedCars();
+    }
+
+    /**
+     * Get a page of the rented cars, for example to show them a
+     * page at a time. The cars aren't in any particular order.
+     *
+     * @param offset the number of rented cars to skip.
+     * @param limit  the most cars to return.
+     * @return {@code List<Car>} of at most {@code limit} rented cars.
+     * @throws IllegalArgumentException thrown if the offset or
+     *                                  limit is negative.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCars(int, int)
+     */
+    public List<Car> getRentedCars(int offset, int limit) {
+        return fleet.rentedCars(offset, limit);
+    }
+
+    /**
+     * Get a live view of the rented cars, which is kept up to date
+     * as cars are issued and returned rather than copied.
+     *
+     * @return a read-only {@code Collection<Car>} of the rented cars.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCarsView()
+     */
+    public Collection<Car> getRentedCarsView() {
+        return fleet.rentedCarsView();
+    }
+
+    /**
+     * Get a stream of the rented cars, read from the live view
+     * as it goes, without copying them first.
+     *
+     * @return {@code Stream<Car>} of the rented cars.
+     */
+    public Stream<Car> rentedCarStream() {
+        return fleet.rentedCarsView().stream();
+    }
+
+    /**
+     * Count the rented cars, without looking at any of them.
+     *
+     * @return the number of rented cars.
+     */
+    public int rentedCount() {
+        return fleet.rentedCount();
     }
 
     /**
@@ -89,17 +196,15 @@ public final class RentalManagement {
         if (person == null)
             throw new IllegalArgumentException("Cannot be a null Person.");
 
+        long start = metrics == null ? 0 : System.nanoTime();
+        Car rentedCar = fleet.carOf(person);
+        if (metrics != null)
+            metrics.recordOperation(RentalMetrics.Operation.GET_CAR, System.nanoTime() - start);
+
         // the person hasn't rented a car from the car rental company
-        if (!(rentedCars.containsValue(person)))
+        if (rentedCar == null)
             throw new IllegalArgumentException("Person has not rented a Car");
 
-        Car rentedCar = null;
-        for (Map.Entry<Car, Person> m : rentedCars.entrySet()) {
-            if (m.getValue() != null && m.getValue().equals(person)) {
-                rentedCar = m.getKey();
-                break; // break, one-to-one mapping
-            }
-        }
         return rentedCar;
     }
 
@@ -116,7 +221,9 @@ public final class RentalManagement {
      * <li>The tank (of the {@code Car} that is to be rented) isn't full</li>
      * <li>If they aren't older enough to rent the {@code Car} (Large = 25+ and Small = 20+)</li>
      * <li>The {@code Person} hasn't held their license for long enough (Large = 5 years+
-     * and Small = 2 years+)</li></ul>
+     * and Small = 2 years+)</li>
+     * <li>The {@code Car} is booked by someone else today, if there
+     * is a {@code ReservationBook}</li></ul>
      * <p>
      * Note: There is an assumption that the person using this method
      * will input Cars that do exist in the rental system.
@@ -144,99 +251,121 @@ public final class RentalManagement {
         if (car == null)
             throw new IllegalArgumentException("Car cannot be null.");
 
+        if (metrics == null)
+            return issue(person, license, car, rules.today()).isIssued();
+
+        long start = System.nanoTime();
+        RentalOutcome outcome = issue(person, license, car, rules.today());
+        metrics.recordOperation(RentalMetrics.Operation.ISSUE_CAR, System.nanoTime() - start);
+        metrics.recordOutcome(outcome);
+        return outcome.isIssued();
+    }
+
+    /**
+     * Issue a batch of cars in one pass, the same as calling
+     * {@code issueCar()} for each request in order.
+     *
+     * @param requests the requests to issue.
+     * @return the outcome of each request, in the same order
+     * as the requests.
+     * @throws IllegalArgumentException thrown if the list, or
+     *                                  any of the requests, are null.
+     * @see #issueCar(Person, DrivingLicense, Car)
+     */
+    public RentalOutcome[] issueCars(List<RentalRequest> requests) {
+        return issueCars(requests, false);
+    }
+
+    /**
+     * Issue a batch of cars in one pass, optionally partitioning
+     * the batch across all of the available cores.
+     * <p>
+     * When run in parallel, requests that compete for the same
+     * {@code Car} or {@code Person} are still only issued once but
+     * which of them wins isn't determined by their order in the list.
+     *
+     * @param requests the requests to issue.
+     * @param parallel if the batch should be split across cores.
+     * @return the outcome of each request, in the same order
+     * as the requests.
+     * @throws IllegalArgumentException thrown if the list, or
+     *                                  any of the requests, are null.
+     * @see #issueCar(Person, DrivingLicense, Car)
+     */
+    public RentalOutcome[] issueCars(List<RentalRequest> requests, boolean parallel) {
+        if (requests == null)
+            throw new IllegalArgumentException("Requests cannot be null.");
+        final RentalRequest[] batch = requests.toArray(new RentalRequest[0]);
+        for (RentalRequest request : batch) {
+            if (request == null)
+                throw new IllegalArgumentException("Request cannot be null.");
+        }
+
+        // the date is only worked out once for the whole batch
+        final int today = rules.today();
+        final RentalOutcome[] outcomes = new RentalOutcome[batch.length];
+        IntStream indexes = IntStream.range(0, batch.length);
+        if (parallel)
+            indexes = indexes.parallel();
+        indexes.forEach(i -> {
+            if (metrics == null) {
+                outcomes[i] = issue(batch[i].getPerson(), batch[i].getLicense(), batch[i].getCar(), today);
+                return;
+            }
+
+            // each request is timed as a call to issueCar()
+            long start = System.nanoTime();
+            outcomes[i] = issue(batch[i].getPerson(), batch[i].getLicense(), batch[i].getCar(), today);
+            metrics.recordOperation(RentalMetrics.Operation.ISSUE_CAR, System.nanoTime() - start);
+            metrics.recordOutcome(outcomes[i]);
+        });
+        return outcomes;
+    }
 
+    /**
+     * Work out whether a car can be issued and, if it can,
+     * issue it.
+     *
+     * @param today the current date, as an epoch day.
+     * @return the outcome of the request.
+     * @see #issueCar(Person, DrivingLicense, Car)
+     */
+    private RentalOutcome issue(Person person, DrivingLicense license, Car car, int today) {
         // the licence belongs to this person.
         if (!(license.getOwner().equals(person)))
-            return false;
+            return RentalOutcome.LICENSE_NOT_OWNED;
 
         // already renting a car.
-        if (rentedCars.containsValue(person))
-            return false;
+        if (fleet.isRenting(person))
+            return RentalOutcome.ALREADY_RENTING;
 
         // doesn't have a full license
         if (!(person.getLicense().isFullLicense()))
-            return false;
+            return RentalOutcome.NO_FULL_LICENSE;
 
         // if the tank isn't full
         if (!(car.isTankFull()))
-            return false;
-
-        // calculate persons age.
-        LocalDate now = LocalDate.now();
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(person.getDateOfBirth());
-        LocalDate ageDate = LocalDate.of(
-                calendar.get(Calendar.YEAR),
-                calendar.get(Calendar.MONTH) + 1,
-                calendar.get(Calendar.DAY_OF_MONTH)
+            return RentalOutcome.TANK_NOT_FULL;
+
+        // old enough, and held their license for long enough, for this type of car
+        RentalOutcome eligibility = rules.check(
+                car.getClass(),
+                person.getBirthDay(),
+                license.getIssueDay(),
+                today
         );
-        int age = Period.between(ageDate, now).getYears();
-
-        // if they want a small car
-        if (car instanceof SmallCar) {
-            // they are older than 20
-            if (age >= 20) {
-                calendar.setTime(license.getSecondComponent());
-                LocalDate heldDate = LocalDate.of(
-                        calendar.get(Calendar.YEAR),
-                        calendar.get(Calendar.MONTH) + 1,
-                        calendar.get(Calendar.DAY_OF_MONTH)
-                );
-                // held their license for a least 1 year
-                if ((1 <= Period.between(heldDate, now).getYears())) {
-                    Car issuedCar = null;
-                    // find the required car
-                    for (Car c : rentedCars.keySet()) {
-                        if (c instanceof SmallCar && !c.isRented() && c.getRegistration().equals(car.getRegistration())) {
-                            issuedCar = c;
-                            break;
-                        }
-                    }
-                    // if it exists
-                    if (issuedCar != null) {
-                        issuedCar.setRented(true);
-                        rentedCars.put(issuedCar, person);
-                        return true;
-                    }
-                    return false;
-                }
-                return false;
-            }
-            return false;
-        }
+        if (!(eligibility.isIssued()))
+            return eligibility;
 
-        // if they want a large car
-        if (car instanceof LargeCar) {
-            // if they are least 25 years old
-            if (age >= 25) {
-                calendar.setTime(license.getSecondComponent());
-                LocalDate heldDate = LocalDate.of(
-                        calendar.get(Calendar.YEAR),
-                        calendar.get(Calendar.MONTH) + 1,
-                        calendar.get(Calendar.DAY_OF_MONTH)
-                );
-                // if they've held their license for at least 5 years.
-                if ((5 <= Period.between(heldDate, now).getYears())) {
-                    Car issuedCar = null;
-                    // find the requested car
-                    for (Car c : rentedCars.keySet()) {
-                        if (c instanceof LargeCar && !c.isRented() && c.getRegistration().equals(car.getRegistration())) {
-                            issuedCar = c;
-                            break;
-                        }
-                    }
-                    // if it exists
-                    if (issuedCar != null) {
-                        issuedCar.setRented(true);
-                        rentedCars.put(issuedCar, person);
-                        return true;
-                    }
-                    return false;
-                }
-            }
-        }
+        // find the requested car, of the same type
+        Car issuedCar = fleet.find(car.getRegistration());
+        if (issuedCar == null || issuedCar.getClass() != car.getClass())
+            return RentalOutcome.CAR_UNAVAILABLE;
 
-        return false;
+        // rent it out, unless it's booked by someone else today
+        if (reservations != null)
+            return reservations.claim(issuedCar, person, today);
+        return fleet.claim(issuedCar, person) ? RentalOutcome.ISSUED : RentalOutcome.CAR_UNAVAILABLE;
     }
 
     /**
@@ -253,46 +382,98 @@ public final class RentalManagement {
      *                                  passed to the method is a null value.
      */
     public int terminateRental(Person person) {
+        return terminateRental(person, false);
+    }
+
+    /**
+     * Terminate a rental agreement, either making the car available
+     * or holding it back as it moves to another fleet.
+     *
+     * @param person the person terminating their rental.
+     * @param moving if the car is moving to another fleet.
+     * @return the amount of fuel required to fill the car's tank,
+     * or -1 if the person wasn't renting.
+     * @throws IllegalArgumentException thrown if the person is null.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#releaseMoving(Person)
+     */
+    int terminateRental(Person person, boolean moving) {
         // the person object cannot be null
         if (person == null)
             throw new IllegalArgumentException("Person cannot be null.");
 
-        for (Iterator<Map.Entry<Car, Person>> iterator = rentedCars.entrySet().iterator(); iterator.hasNext(); ) {
-            Map.Entry<Car, Person> mapEntry = iterator.next();
-            // if the person is found
-            if (person.equals(mapEntry.getValue())) {
-                iterator.remove(); // remove from map
-                mapEntry.getKey().setRented(false); // set rented to false
+        if (metrics == null)
+            return terminate(person, moving);
 
-                // return required amount of fuel to fill the car
-                return (mapEntry.getKey().getFuelCapacity() - mapEntry.getKey().getFuelAmount());
-            }
-        }
+        long start = System.nanoTime();
+        int required = terminate(person, moving);
+        metrics.recordOperation(RentalMetrics.Operation.TERMINATE_RENTAL, System.nanoTime() - start);
+        return required;
+    }
+
+    /**
+     * Terminate a batch of rental agreements in one pass, the same
+     * as calling {@code terminateRental()} for each person in order.
+     *
+     * @param people the people who want to terminate their
+     *               rental contracts.
+     * @return the amount of fuel required to fill each car's tank,
+     * or -1 for a non-existent contract, in the same order as the people.
+     * @throws IllegalArgumentException thrown if the list, or
+     *                                  any of the people, are null.
+     * @see #terminateRental(Person)
+     */
+    public int[] terminateRentals(List<Person> people) {
+        if (people == null)
+            throw new IllegalArgumentException("People cannot be null.");
+
+        int[] fuel = new int[people.size()];
+        int i = 0;
+        for (Person person : people)
+            fuel[i++] = terminateRental(person);
+        return fuel;
+    }
+
+    /**
+     * End a person's rental.
+     *
+     * @return the fuel needed to fill the car, or -1.
+     * @see #terminateRental(Person, boolean)
+     */
+    private int terminate(Person person, boolean moving) {
+        // work out the fuel needed before the car is returned, it may be refilled straight after
+        Car rented = fleet.carOf(person);
+        if (rented == null)
+            // non-existent rental agreement
+            return -1;
+        int required = rented.getFuelCapacity() - rented.getFuelAmount();
+
+        if ((moving ? fleet.releaseMoving(person) : fleet.release(person)) != rented)
+            return -1;
 
-        // non-existent rental agreement
-        return -1;
+        // return required amount of fuel to fill the car
+        return required;
     }
 
     /**
-     * Populate the map with the rental company's cars.
+     * Populate the fleet with the rental company's cars.
      *
-     * @return the map containing the cars.
+     * @return the store containing the cars.
      */
-    private Map<Car, Person> populateMap() {
-        Map<Car, Person> map = new HashMap<>();
+    private FleetStore populateFleet() {
+        FleetStore store = new FleetStore(rules.types());
         List<Registration> registrations = RegistrationGenerator.registrations();
 
         // generate large cars
         for (int i = 0; i < 10; i++) {
-            map.put(new LargeCar(registrations.get(i)), null);
+            store.add(new LargeCar(registrations.get(i)));
         }
 
         // generate small cars
         for (int i = 10; i < 30; i++) {
-            map.put(new SmallCar(registrations.get(i)), null);
+            store.add(new SmallCar(registrations.get(i)));
         }
 
-        return map;
+        return store;
     }
 
 }
@@ -0,0 +1,241 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>RentalMetrics</h1>
+ * <p>
+ * Counts the outcome of every request to issue a car, and
+ * counts and times each {@code RentalManagement} operation.
+ * <p>
+ * Counters are striped ({@code LongAdder}), so threads
+ * recording at the same time don't contend, and latencies go
+ * into a {@code LatencyHistogram} for each operation. Pass the
+ * metrics to a {@code RentalManagement} to have it record them,
+ * a {@code RentalManagement} without metrics doesn't time
+ * anything.
+ * <p>
+ * The metrics can be published as a JMX MXBean with
+ * {@link #register(String)} and written in the Prometheus
+ * text format with {@link #writePrometheus(Appendable)}.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement#RentalManagement(FleetStore, EligibilityRules, RentalMetrics)
+ */
+public final class RentalMetrics implements RentalMetricsMXBean {
+
+    /**
+     * The operations that are counted and timed.
+     */
+    public enum Operation {
+        ISSUE_CAR("issueCar"),
+        TERMINATE_RENTAL("terminateRental"),
+        GET_CAR("getCar"),
+        AVAILABLE_CARS("availableCars");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Get the name of the method the operation is.
+         * @return the label.
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    // the percentiles reported over JMX
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    // the bucket boundaries written to Prometheus, from 1 microsecond up in powers of 4
+    private static final int PROMETHEUS_BUCKETS = 13;
+
+    private final LongAdder[] outcomes = adders(RentalOutcome.values().length);
+    private final LongAdder[] operations = adders(Operation.values().length);
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+
+    /**
+     * Create a set of metrics, all zero.
+     */
+    public RentalMetrics() {
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Count the outcome of an issue request.
+     *
+     * @param outcome the outcome.
+     */
+    public void recordOutcome(RentalOutcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Count and time a call to an operation.
+     *
+     * @param operation the operation.
+     * @param nanos     how long the call took, in nanoseconds.
+     */
+    public void recordOperation(Operation operation, long nanos) {
+        operations[operation.ordinal()].increment();
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Get the number of issue requests with an outcome.
+     *
+     * @param outcome the outcome.
+     * @return the count.
+     */
+    public long count(RentalOutcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Get the number of calls to an operation.
+     *
+     * @param operation the operation.
+     * @return the count.
+     */
+    public long count(Operation operation) {
+        return operations[operation.ordinal()].sum();
+    }
+
+    /**
+     * Get the latencies of an operation.
+     *
+     * @param operation the operation.
+     * @return the histogram of its latencies.
+     */
+    public LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getOutcomeCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (RentalOutcome outcome : RentalOutcome.values())
+            counts.put(outcome.name(), count(outcome));
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Operation operation : Operation.values())
+            counts.put(operation.getLabel(), count(operation));
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Double> getLatencyMicros() {
+        Map<String, Double> micros = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            for (double percentile : PERCENTILES)
+                micros.put(operation.getLabel() + ".p" + format(percentile), histogram.percentile(percentile) / 1000.0);
+            micros.put(operation.getLabel() + ".max", histogram.max() / 1000.0);
+        }
+        return micros;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder(4096);
+        try {
+            writePrometheus(text);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new AssertionError(e);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the metrics in the Prometheus text exposition format.
+     *
+     * @param out where to write the metrics.
+     * @throws IOException thrown if the {@code Appendable} cannot be written.
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        out.append("# HELP rental_outcomes_total Requests to issue a car, by outcome.\n");
+        out.append("# TYPE rental_outcomes_total counter\n");
+        for (RentalOutcome outcome : RentalOutcome.values()) {
+            out.append("rental_outcomes_total{outcome=\"").append(outcome.name().toLowerCase())
+                    .append("\"} ").append(Long.toString(count(outcome))).append('\n');
+        }
+
+        out.append("# HELP rental_operation_seconds Latency of rental operations.\n");
+        out.append("# TYPE rental_operation_seconds histogram\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            String label = "{operation=\"" + operation.getLabel() + "\"";
+
+            long bound = 1000;
+            for (int i = 0; i < PROMETHEUS_BUCKETS; i++, bound *= 4) {
+                out.append("rental_operation_seconds_bucket").append(label)
+                        .append(",le=\"").append(Double.toString(bound / 1e9)).append("\"} ")
+                        .append(Long.toString(histogram.countAtOrBelow(bound))).append('\n');
+            }
+            long count = histogram.count();
+            out.append("rental_operation_seconds_bucket").append(label).append(",le=\"+Inf\"} ")
+                    .append(Long.toString(count)).append('\n');
+            out.append("rental_operation_seconds_sum").append(label).append("} ")
+                    .append(Double.toString(histogram.sum() / 1e9)).append('\n');
+            out.append("rental_operation_seconds_count").append(label).append("} ")
+                    .append(Long.toString(count)).append('\n');
+        }
+    }
+
+    /**
+     * Register the metrics with the platform MBean server.
+     *
+     * @param name the name of the metrics, such as the branch.
+     * @return the name the metrics were registered under.
+     * @throws JMException thrown if the metrics cannot be registered,
+     *                     such as when the name is already taken.
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("uk.ac.ncl.jcarlton:type=RentalMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile);
+    }
+}
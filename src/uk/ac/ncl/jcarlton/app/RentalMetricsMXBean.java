@@ -0,0 +1,44 @@
+package uk.ac.ncl.jcarlton.app;
+
+import java.util.Map;
+
+/**
+ * <h1>RentalMetricsMXBean</h1>
+ *
+ * The management interface of {@code RentalMetrics}, as
+ * shown by JMX clients such as JConsole.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalMetrics#register(String)
+ */
+public interface RentalMetricsMXBean {
+
+    /**
+     * Get the number of issue requests with each outcome.
+     *
+     * @return the outcome name to its count.
+     */
+    Map<String, Long> getOutcomeCounts();
+
+    /**
+     * Get the number of calls to each operation.
+     *
+     * @return the operation name to its count.
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * Get the latency percentiles of each operation, in
+     * microseconds, keyed such as "issueCar.p99".
+     *
+     * @return the percentile name to its latency.
+     */
+    Map<String, Double> getLatencyMicros();
+
+    /**
+     * Get the metrics in the Prometheus text format.
+     *
+     * @return the metrics.
+     */
+    String getPrometheusText();
+}
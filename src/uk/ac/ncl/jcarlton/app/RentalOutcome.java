@@ -0,0 +1,50 @@
+package uk.ac.ncl.jcarlton.app;
+
+/**
+ * <h1>RentalOutcome</h1>
+ *
+ * The result of a request to issue a {@code Car} to
+ * a {@code Person}, either it was issued or the reason
+ * why it wasn't.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement#issueCars(java.util.List)
+ */
+public enum RentalOutcome {
+
+    /** The car was issued. */
+    ISSUED,
+
+    /** The license doesn't belong to the person. */
+    LICENSE_NOT_OWNED,
+
+    /** The person is already renting a car. */
+    ALREADY_RENTING,
+
+    /** The person doesn't hold a full license. */
+    NO_FULL_LICENSE,
+
+    /** The tank of the requested car isn't full. */
+    TANK_NOT_FULL,
+
+    /** The person isn't old enough to rent the car. */
+    TOO_YOUNG,
+
+    /** The person hasn't held their license for long enough. */
+    LICENSE_TOO_RECENT,
+
+    /** The car isn't in the fleet, is already rented or is waiting for fuel. */
+    CAR_UNAVAILABLE,
+
+    /** The car is booked by someone else today. */
+    RESERVED;
+
+    /**
+     * Check if the car was issued.
+     *
+     * @return true, if issued, else false.
+     */
+    public boolean isIssued() {
+        return this == ISSUED;
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+/**
+ * <h1>RentalRequest</h1>
+ *
+ * An immutable request to issue a {@code Car} to a
+ * {@code Person}, the same as the parameters of
+ * {@code RentalManagement.issueCar()}.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement#issueCars(java.util.List)
+ */
+public final class RentalRequest {
+
+    private final Person person;
+    private final DrivingLicense license;
+    private final Car car;
+
+    /**
+     * Object constructor.
+     *
+     * @param person  the person who wants to rent a car.
+     * @param license the driving license of the person.
+     * @param car     the car that the person wants to rent.
+     * @throws IllegalArgumentException thrown when one of the parameters
+     *                                  passed is a null object.
+     */
+    public RentalRequest(Person person, DrivingLicense license, Car car) {
+        if (person == null)
+            throw new IllegalArgumentException("Person cannot be null.");
+        if (license == null)
+            throw new IllegalArgumentException("License cannot be null.");
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+
+        this.person = person;
+        this.license = license;
+        this.car = car;
+    }
+
+    /**
+     * Get the person who wants to rent a car.
+     * @return the {@code Person}.
+     */
+    public Person getPerson() {
+        return person;
+    }
+
+    /**
+     * Get the driving license of the person.
+     * @return the {@code DrivingLicense}.
+     */
+    public DrivingLicense getLicense() {
+        return license;
+    }
+
+    /**
+     * Get the car that the person wants to rent.
+     * @return the {@code Car}.
+     */
+    public Car getCar() {
+        return car;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return person + " -> " + car;
+    }
+}
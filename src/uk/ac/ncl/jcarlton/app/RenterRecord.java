@@ -0,0 +1,97 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h1>RenterRecord</h1>
+ *
+ * The binary form of a renter, as written to a
+ * {@code RentalJournal} or a {@code FleetSnapshot}. It holds
+ * the whole license, the serial and issue day as well as
+ * whether it's full, so a renter is read back with the exact
+ * license number they had.
+ * <pre>
+ * first name   length (2 bytes) then UTF-8
+ * last name    length (2 bytes) then UTF-8
+ * birth day    epoch day (4 bytes)
+ * issue day    epoch day (4 bytes)
+ * full         1 byte
+ * serial       length (2 bytes) then UTF-8
+ * </pre>
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.objects.Person#restore(String, String, int, boolean, int, String)
+ */
+final class RenterRecord {
+
+    private RenterRecord() {
+    }
+
+    /**
+     * Write a renter.
+     *
+     * @param person    the renter.
+     * @return the record.
+     */
+    static byte[] encode(Person person) {
+        DrivingLicense license = person.getLicense();
+        byte[] firstName = utf8(person.getFirstName());
+        byte[] lastName = utf8(person.getLastName());
+        byte[] serial = utf8(license.getThirdComponent());
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + firstName.length + 2 + lastName.length + 4 + 4 + 1 + 2 + serial.length);
+        buffer.putShort((short) firstName.length).put(firstName);
+        buffer.putShort((short) lastName.length).put(lastName);
+        buffer.putInt(person.getBirthDay());
+        buffer.putInt(license.getIssueDay());
+        buffer.put((byte) (license.isFullLicense() ? 1 : 0));
+        buffer.putShort((short) serial.length).put(serial);
+        return buffer.array();
+    }
+
+    /**
+     * Read a renter, restoring their license.
+     *
+     * @param buffer    the buffer, positioned at the record.
+     * @return the renter.
+     * @throws IOException thrown if the record is cut short or
+     *                     the renter cannot be restored.
+     */
+    static Person decode(ByteBuffer buffer) throws IOException {
+        try {
+            String firstName = readString(buffer);
+            String lastName = readString(buffer);
+            int birthDay = buffer.getInt();
+            int issueDay = buffer.getInt();
+            byte full = buffer.get();
+            String serial = readString(buffer);
+            if (full != 0 && full != 1)
+                throw new IOException("Not a valid renter record, full license flag: " + full);
+
+            return Person.restore(firstName, lastName, birthDay, full == 1, issueDay, serial);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Renter record is cut short.", e);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Cannot restore renter: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF)
+            throw new IllegalArgumentException("Too long to record: " + value.length() + " characters");
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
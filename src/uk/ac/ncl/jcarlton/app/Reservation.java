@@ -0,0 +1,126 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.Date;
+
+/**
+ * <h1>Reservation</h1>
+ *
+ * An immutable booking of a {@code Car} by a {@code Person}
+ * from a first day up to, but not including, an end day.
+ * Days are epoch days, see {@code EpochDays}.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.ReservationBook#reserve(Person, Car, int, int)
+ */
+public final class Reservation {
+
+    private final Person person;
+    private final Car car;
+    private final int fromDay;
+    private final int toDay;
+
+    /**
+     * Object constructor.
+     *
+     * @param person  the person making the booking.
+     * @param car     the car booked.
+     * @param fromDay the first day of the booking.
+     * @param toDay   the day after the last day of the booking.
+     * @throws IllegalArgumentException thrown if the person or car are
+     *                                  null, or the booking is empty.
+     */
+    public Reservation(Person person, Car car, int fromDay, int toDay) {
+        if (person == null)
+            throw new IllegalArgumentException("Person cannot be null.");
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+        if (toDay <= fromDay)
+            throw new IllegalArgumentException("A booking must be at least a day: " + fromDay + " to " + toDay);
+
+        this.person = person;
+        this.car = car;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+    }
+
+    /**
+     * Get the person who made the booking.
+     * @return the {@code Person}.
+     */
+    public Person getPerson() {
+        return person;
+    }
+
+    /**
+     * Get the car that is booked.
+     * @return the {@code Car}.
+     */
+    public Car getCar() {
+        return car;
+    }
+
+    /**
+     * Get the first day of the booking.
+     * @return the epoch day.
+     */
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    /**
+     * Get the day after the last day of the booking.
+     * @return the epoch day.
+     */
+    public int getToDay() {
+        return toDay;
+    }
+
+    /**
+     * Get the first day of the booking.
+     * @return the date.
+     */
+    public Date getFrom() {
+        return EpochDays.toDate(fromDay);
+    }
+
+    /**
+     * Get the day after the last day of the booking.
+     * @return the date.
+     */
+    public Date getTo() {
+        return EpochDays.toDate(toDay);
+    }
+
+    /**
+     * Check if the booking covers a day.
+     *
+     * @param day the epoch day.
+     * @return true, if it does.
+     */
+    public boolean covers(int day) {
+        return day >= fromDay && day < toDay;
+    }
+
+    /**
+     * Check if the booking shares any day with a window.
+     *
+     * @param from the first day of the window.
+     * @param to   the day after the last day of the window.
+     * @return true, if they overlap.
+     */
+    public boolean overlaps(int from, int to) {
+        return fromDay < to && from < toDay;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return person + " -> " + car + " [" + fromDay + ", " + toDay + ")";
+    }
+}
@@ -0,0 +1,253 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h1>ReservationBook</h1>
+ * <p>
+ * Future bookings of the cars in a {@code FleetStore}, each for
+ * a range of days.
+ * <p>
+ * A car can't be booked twice for the same day, so the bookings
+ * of a car never overlap. They are kept in a {@code TreeMap} for
+ * each car, ordered by first day. As they don't overlap, the only
+ * booking that can clash with a window is the last one starting
+ * before the window ends, so checking a window is a single
+ * {@code lowerEntry()}, logarithmic in the bookings of that car.
+ * Each car's bookings are locked separately, so booking different
+ * cars never contends.
+ * <p>
+ * Pass the book to a {@code RentalManagement} to stop it issuing
+ * a car that is booked by someone else today. The car's bookings
+ * are locked while it is checked and issued, so a booking for
+ * today is either made before the car is issued, and stops it, or
+ * after.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement#RentalManagement(FleetStore, EligibilityRules, RentalMetrics, ReservationBook)
+ */
+public final class ReservationBook {
+
+    private final FleetStore fleet;
+
+    // registration -> the bookings of that car
+    private final ConcurrentMap<Registration, Bookings> bookings = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Create an empty book for the cars in a fleet.
+     *
+     * @param fleet the fleet.
+     * @throws IllegalArgumentException thrown if the fleet is null.
+     */
+    public ReservationBook(FleetStore fleet) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+        this.fleet = fleet;
+    }
+
+    /**
+     * Book a car for a range of days, so long as no day is
+     * already booked.
+     *
+     * @param person  the person making the booking.
+     * @param car     the car to book.
+     * @param fromDay the first day, as an epoch day.
+     * @param toDay   the day after the last day, as an epoch day.
+     * @return the booking, or {@code null} if it clashes with another.
+     * @throws IllegalArgumentException thrown if the person or car are null,
+     *                                  the car isn't in the fleet or the
+     *                                  range is empty.
+     */
+    public Reservation reserve(Person person, Car car, int fromDay, int toDay) {
+        Reservation reservation = new Reservation(person, car, fromDay, toDay);
+        if (fleet.find(car.getRegistration()) == null)
+            throw new IllegalArgumentException("Car isn't in the fleet: " + car.getRegistration());
+
+        Bookings forCar = bookings.computeIfAbsent(car.getRegistration(), registration -> new Bookings());
+        synchronized (forCar) {
+            if (forCar.clash(fromDay, toDay) != null)
+                return null;
+            forCar.byStart.put(fromDay, reservation);
+        }
+        size.incrementAndGet();
+        return reservation;
+    }
+
+    /**
+     * Cancel a booking.
+     *
+     * @param reservation the booking.
+     * @return true, if it was cancelled, else false if it
+     * had already been cancelled or expired.
+     */
+    public boolean cancel(Reservation reservation) {
+        Bookings forCar = bookings.get(reservation.getCar().getRegistration());
+        if (forCar == null)
+            return false;
+        synchronized (forCar) {
+            if (!(forCar.byStart.remove(reservation.getFromDay(), reservation)))
+                return false;
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Get the booking of a car that covers a day.
+     *
+     * @param car the car.
+     * @param day the epoch day.
+     * @return the booking, or {@code null} if the car is free that day.
+     */
+    public Reservation reservationOn(Car car, int day) {
+        Bookings forCar = bookings.get(car.getRegistration());
+        if (forCar == null)
+            return null;
+        synchronized (forCar) {
+            return forCar.clash(day, day + 1);
+        }
+    }
+
+    /**
+     * Rent a car from the fleet to a person, unless someone else
+     * has booked it for a day. The car's bookings are locked from
+     * the check until the car has been claimed, so no booking for
+     * the day can be made in between.
+     *
+     * @param car    the fleet car to rent.
+     * @param person the person renting it.
+     * @param day    the epoch day, such as today.
+     * @return {@code RESERVED} if someone else has booked the car
+     * for the day, else {@code ISSUED} or {@code CAR_UNAVAILABLE}
+     * depending on whether it was claimed.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#claim(Car, Person)
+     */
+    RentalOutcome claim(Car car, Person person, int day) {
+        // created even with no bookings, as a booking for the day could be made while the car is claimed
+        Bookings forCar = bookings.computeIfAbsent(car.getRegistration(), registration -> new Bookings());
+        synchronized (forCar) {
+            Reservation booked = forCar.clash(day, day + 1);
+            if (booked != null && !(booked.getPerson().equals(person)))
+                return RentalOutcome.RESERVED;
+            return fleet.claim(car, person) ? RentalOutcome.ISSUED : RentalOutcome.CAR_UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Check if a car has no booking in a window.
+     *
+     * @param car     the car.
+     * @param fromDay the first day of the window.
+     * @param toDay   the day after the last day of the window.
+     * @return true, if no day of the window is booked.
+     * @throws IllegalArgumentException thrown if the window is empty.
+     */
+    public boolean isFree(Car car, int fromDay, int toDay) {
+        checkWindow(fromDay, toDay);
+        Bookings forCar = bookings.get(car.getRegistration());
+        if (forCar == null)
+            return true;
+        synchronized (forCar) {
+            return forCar.clash(fromDay, toDay) == null;
+        }
+    }
+
+    /**
+     * Find every car of a type in the fleet with no booking in
+     * a window.
+     *
+     * @param type    the type of car.
+     * @param fromDay the first day of the window.
+     * @param toDay   the day after the last day of the window.
+     * @return a new {@code List<Car>} of the free cars.
+     * @throws IllegalArgumentException thrown if the window is empty.
+     */
+    public List<Car> freeCars(Class<?> type, int fromDay, int toDay) {
+        checkWindow(fromDay, toDay);
+        List<Car> free = new ArrayList<>();
+        for (Car car : fleet.cars()) {
+            if (car.getClass() == type && isFree(car, fromDay, toDay))
+                free.add(car);
+        }
+        return free;
+    }
+
+    /**
+     * Get the bookings of a car, in date order.
+     *
+     * @param car the car.
+     * @return a new {@code List<Reservation>} of its bookings.
+     */
+    public List<Reservation> reservations(Car car) {
+        Bookings forCar = bookings.get(car.getRegistration());
+        if (forCar == null)
+            return new ArrayList<>();
+        synchronized (forCar) {
+            return new ArrayList<>(forCar.byStart.values());
+        }
+    }
+
+    /**
+     * Drop every booking that ended before a day, so the
+     * book doesn't grow forever.
+     *
+     * @param day the epoch day, such as today.
+     * @return the number of bookings dropped.
+     */
+    public int expire(int day) {
+        int expired = 0;
+        for (Bookings forCar : bookings.values()) {
+            synchronized (forCar) {
+                // in start order, so also in end order, as they don't overlap
+                for (Iterator<Reservation> it = forCar.byStart.values().iterator(); it.hasNext(); ) {
+                    if (it.next().getToDay() > day)
+                        break;
+                    it.remove();
+                    expired++;
+                }
+            }
+        }
+        size.addAndGet(-expired);
+        return expired;
+    }
+
+    /**
+     * Get the number of bookings.
+     * @return the count.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    private static void checkWindow(int fromDay, int toDay) {
+        if (toDay <= fromDay)
+            throw new IllegalArgumentException("A window must be at least a day: " + fromDay + " to " + toDay);
+    }
+
+    /**
+     * The bookings of one car, guarded by its own lock.
+     */
+    private static final class Bookings {
+        private final TreeMap<Integer, Reservation> byStart = new TreeMap<>();
+
+        /**
+         * Get the booking that overlaps a window, or null.
+         */
+        private Reservation clash(int fromDay, int toDay) {
+            Map.Entry<Integer, Reservation> before = byStart.lowerEntry(toDay);
+            return before != null && before.getValue().getToDay() > fromDay ? before.getValue() : null;
+        }
+    }
+}
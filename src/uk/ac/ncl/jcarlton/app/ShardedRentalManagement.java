@@ -0,0 +1,363 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.Registration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <h1>ShardedRentalManagement</h1>
+ * <p>
+ * Splits the fleet into shards, such as one for each branch,
+ * each with its own {@code FleetStore} and {@code RentalManagement}
+ * so that rentals in different shards never touch the same maps
+ * or counters.
+ * <p>
+ * A car is added either to a given shard, or to the shard picked
+ * by a hash of its registration. The router remembers which shard
+ * each car is in and which shard each person is renting from, so:
+ * <ul><li>a person can only rent one car across every shard</li>
+ * <li>a car can be returned to a different shard from the one it
+ * was rented from, and it moves to that shard</li></ul>
+ * Both of these are single {@code ConcurrentHashMap} lookups, so
+ * the router doesn't serialise the shards. A moving car is added
+ * to its new shard before the router points to it there, and is
+ * held back in its old shard until then, so it is always in the
+ * shard the router points to.
+ * <p>
+ * The shards are plain in-process objects, so a multi-branch
+ * fleet can be tested without a network.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.RentalManagement
+ */
+public final class ShardedRentalManagement {
+
+    private final FleetStore[] fleets;
+    private final RentalManagement[] managements;
+
+    // registration -> shard holding the car
+    private final ConcurrentMap<Registration, Integer> locations = new ConcurrentHashMap<>();
+
+    // person -> shard they are renting from (or are about to rent from)
+    private final ConcurrentMap<Person, Integer> renters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a number of empty shards, all using the same
+     * eligibility rules.
+     *
+     * @param shards the number of shards.
+     * @param rules  who can rent each type of car.
+     * @throws IllegalArgumentException thrown if the rules are null
+     *                                  or the number of shards isn't positive.
+     */
+    public ShardedRentalManagement(int shards, EligibilityRules rules) {
+        this(emptyFleets(shards, rules), rules);
+    }
+
+    /**
+     * Create a shard for each existing fleet, such as one for each
+     * branch, all using the same eligibility rules.
+     *
+     * @param fleets the fleet of each shard.
+     * @param rules  who can rent each type of car.
+     * @throws IllegalArgumentException thrown if the fleets or rules are null,
+     *                                  there are no fleets, a registration is in
+     *                                  more than one fleet or a person is renting
+     *                                  from more than one fleet.
+     */
+    public ShardedRentalManagement(List<FleetStore> fleets, EligibilityRules rules) {
+        if (fleets == null || fleets.isEmpty())
+            throw new IllegalArgumentException("There must be at least one fleet.");
+        if (rules == null)
+            throw new IllegalArgumentException("Rules cannot be null.");
+
+        this.fleets = fleets.toArray(new FleetStore[0]);
+        this.managements = new RentalManagement[this.fleets.length];
+        for (int i = 0; i < this.fleets.length; i++) {
+            if (this.fleets[i] == null)
+                throw new IllegalArgumentException("Fleet cannot be null.");
+            managements[i] = new RentalManagement(this.fleets[i], rules);
+
+            for (Car car : this.fleets[i].cars()) {
+                if (locations.putIfAbsent(car.getRegistration(), i) != null)
+                    throw new IllegalArgumentException("Duplicate registration: " + car.getRegistration());
+                Person renter = this.fleets[i].renterOf(car);
+                if (renter != null && renters.putIfAbsent(renter, i) != null)
+                    throw new IllegalArgumentException("Renting from more than one fleet: " + renter);
+            }
+        }
+    }
+
+    /**
+     * Get the number of shards.
+     * @return the shard count.
+     */
+    public int shards() {
+        return fleets.length;
+    }
+
+    /**
+     * Get the fleet of a shard.
+     *
+     * @param shard the shard.
+     * @return its fleet.
+     * @throws IllegalArgumentException thrown if there is no such shard.
+     */
+    public FleetStore fleet(int shard) {
+        return fleets[checkShard(shard)];
+    }
+
+    /**
+     * Get the shard a registration hashes to, where
+     * {@link #addCar(Car)} puts a car.
+     *
+     * @param registration the registration.
+     * @return the shard.
+     */
+    public int shardFor(Registration registration) {
+        // Fibonacci hashing, the top bits depend on every character
+        long hash = registration.getPackedValue() * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % fleets.length);
+    }
+
+    /**
+     * Get the shard a car is currently in.
+     *
+     * @param car the car.
+     * @return the shard, or -1 if the car isn't in any shard.
+     */
+    public int shardOf(Car car) {
+        Integer shard = locations.get(car.getRegistration());
+        return shard == null ? -1 : shard;
+    }
+
+    /**
+     * Add a car to the shard its registration hashes to.
+     *
+     * @param car the car.
+     * @throws IllegalArgumentException thrown if the car is null, of a type
+     *                                  that isn't tracked, or a car with the same
+     *                                  registration is in any shard.
+     * @see #shardFor(Registration)
+     */
+    public void addCar(Car car) {
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+        addCar(shardFor(car.getRegistration()), car);
+    }
+
+    /**
+     * Add a car to a given shard, such as the branch it is kept at.
+     *
+     * @param shard the shard.
+     * @param car   the car.
+     * @throws IllegalArgumentException thrown if there is no such shard, the
+     *                                  car is null, of a type that isn't tracked,
+     *                                  or a car with the same registration is in
+     *                                  any shard.
+     */
+    public void addCar(int shard, Car car) {
+        checkShard(shard);
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+        if (locations.putIfAbsent(car.getRegistration(), shard) != null)
+            throw new IllegalArgumentException("Duplicate registration: " + car.getRegistration());
+
+        try {
+            fleets[shard].add(car);
+        } catch (IllegalArgumentException e) {
+            locations.remove(car.getRegistration(), shard);
+            throw e;
+        }
+    }
+
+    /**
+     * Count the cars of a type that are available across
+     * every shard.
+     *
+     * @param type the type of car.
+     * @return the count, or -1 if the type isn't tracked.
+     * @see RentalManagement#availableCars(Class)
+     */
+    public int availableCars(Class<?> type) {
+        int total = 0;
+        for (RentalManagement management : managements) {
+            int available = management.availableCars(type);
+            if (available < 0)
+                return -1;
+            total += available;
+        }
+        return total;
+    }
+
+    /**
+     * Get the cars that are currently rented, from every shard.
+     *
+     * @return a new {@code List<Car>} of the rented cars.
+     */
+    public List<Car> getRentedCars() {
+        List<Car> rented = new ArrayList<>();
+        for (RentalManagement management : managements)
+            rented.addAll(management.getRentedCars());
+        return rented;
+    }
+
+    /**
+     * Count the cars that are currently rented, in every shard.
+     *
+     * @return the number of rented cars.
+     */
+    public int rentedCount() {
+        int count = 0;
+        for (RentalManagement management : managements)
+            count += management.rentedCount();
+        return count;
+    }
+
+    /**
+     * Get the car a person has rented, from whichever shard.
+     *
+     * @param person the person who has rented a car.
+     * @return the car they have rented.
+     * @throws IllegalArgumentException thrown if the person is null or isn't renting.
+     * @see RentalManagement#getCar(Person)
+     */
+    public Car getCar(Person person) {
+        if (person == null)
+            throw new IllegalArgumentException("Cannot be a null Person.");
+        Integer shard = renters.get(person);
+        if (shard == null)
+            throw new IllegalArgumentException("This person has not rented a car.");
+        return managements[shard].getCar(person);
+    }
+
+    /**
+     * Issue a car from the shard it is in, so long as the person
+     * isn't renting from any shard.
+     *
+     * @param person  the person who wants to rent a car.
+     * @param license the driving license of the person.
+     * @param car     the car that the person wants to rent.
+     * @return true, if the car was issued, else false.
+     * @throws IllegalArgumentException thrown when one of the parameters is null.
+     * @see RentalManagement#issueCar(Person, DrivingLicense, Car)
+     */
+    public boolean issueCar(Person person, DrivingLicense license, Car car) {
+        if (person == null)
+            throw new IllegalArgumentException("Person cannot be null.");
+        if (license == null)
+            throw new IllegalArgumentException("License cannot be null.");
+        if (car == null)
+            throw new IllegalArgumentException("Car cannot be null.");
+
+        while (true) {
+            Integer shard = locations.get(car.getRegistration());
+            if (shard == null)
+                return false;
+
+            // claim the person across every shard first
+            if (renters.putIfAbsent(person, shard) != null)
+                return false;
+            if (managements[shard].issueCar(person, license, car))
+                return true;
+            renters.remove(person, shard);
+
+            // the car may have moved to another shard while it was being issued
+            if (shard.equals(locations.get(car.getRegistration())))
+                return false;
+        }
+    }
+
+    /**
+     * End a person's rental, leaving the car in the shard it
+     * was rented from.
+     *
+     * @param person the person ending their rental.
+     * @return the fuel needed to fill the car, or -1 if they weren't renting.
+     * @throws IllegalArgumentException thrown if the person is null.
+     * @see RentalManagement#terminateRental(Person)
+     */
+    public int terminateRental(Person person) {
+        if (person == null)
+            throw new IllegalArgumentException("Person cannot be null.");
+        Integer shard = renters.get(person);
+        if (shard == null)
+            return -1;
+        return terminateRental(person, shard);
+    }
+
+    /**
+     * End a person's rental, with the car returned to a given
+     * shard. If that isn't the shard it was rented from the car
+     * moves across. While it moves it is held back in its old
+     * shard, so it can always be found in the shard it is
+     * located in, and isn't available in either until it has
+     * been added to the new shard. If the new shard can't hold
+     * the car it stays where it was.
+     *
+     * @param person the person ending their rental.
+     * @param shard  the shard the car is returned to.
+     * @return the fuel needed to fill the car, or -1 if they weren't renting.
+     * @throws IllegalArgumentException thrown if the person is null or
+     *                                  there is no such shard.
+     */
+    public int terminateRental(Person person, int shard) {
+        if (person == null)
+            throw new IllegalArgumentException("Person cannot be null.");
+        checkShard(shard);
+
+        Integer from = renters.get(person);
+        if (from == null)
+            return -1;
+        boolean moving = shard != from;
+        Car car = fleets[from].carOf(person);
+        int required = managements[from].terminateRental(person, moving);
+        if (required < 0)
+            return -1;
+
+        if (moving) {
+            // added to the new shard before it's located there, and only then taken out of the old one
+            boolean added;
+            try {
+                fleets[shard].add(car);
+                added = true;
+            } catch (IllegalArgumentException e) {
+                added = false;
+            }
+            if (added) {
+                locations.put(car.getRegistration(), shard);
+                fleets[from].moved(car);
+            } else {
+                fleets[from].stay(car);
+            }
+        }
+
+        // the car is returned before the person is, so they cannot rent twice
+        renters.remove(person, from);
+        return required;
+    }
+
+    private int checkShard(int shard) {
+        if (shard < 0 || shard >= fleets.length)
+            throw new IllegalArgumentException("No such shard: " + shard);
+        return shard;
+    }
+
+    private static List<FleetStore> emptyFleets(int shards, EligibilityRules rules) {
+        if (shards < 1)
+            throw new IllegalArgumentException("Shards must be positive: " + shards);
+        if (rules == null)
+            throw new IllegalArgumentException("Rules cannot be null.");
+        List<FleetStore> fleets = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++)
+            fleets.add(new FleetStore(rules.types()));
+        return Collections.unmodifiableList(fleets);
+    }
+}
@@ -0,0 +1,308 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * <h1>TelemetryEngine</h1>
+ * <p>
+ * Applies the trips reported by cars to the cars in a
+ * {@code FleetStore}, using many worker threads.
+ * <p>
+ * Trips are partitioned by registration, so every trip of a
+ * car is applied by the same worker and in the order it was
+ * submitted. Each worker takes the trips waiting for it in
+ * batches, looking up each car and its renter once for the
+ * batch, and drives the car for each trip while holding the
+ * car's monitor, so trips and other changes to the fuel are
+ * never lost or counted twice.
+ * <p>
+ * A trip is checked the same way as {@code Car.drive()}: it is
+ * rejected if the car isn't in the fleet, isn't rented, or has
+ * no fuel left when the trip starts. Whether a car is rented is
+ * taken from the fleet, which is where a rental starts and ends.
+ * A trip is only applied while the car is still rented by the
+ * person renting it when the batch first reached the car, the
+ * fleet returns a car under the same monitor, so the trips of a
+ * rental that has ended are rejected as not rented rather than
+ * taking fuel from a car that is back in the fleet.
+ * Rejected trips are passed, with the reason, to a handler on
+ * the worker's thread. A trip that fails, or whose handler
+ * throws, is passed to the worker's uncaught exception handler
+ * and the worker carries on with the next trip.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.TripEvent
+ */
+public final class TelemetryEngine implements Closeable {
+
+    // the number of trips a worker queue holds before submitting blocks
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
+    // tells a worker to stop
+    private static final Object STOP = new Object();
+
+    private final FleetStore fleet;
+    private final BiConsumer<? super TripEvent, TripEvent.Rejection> rejected;
+    private final int batchSize;
+    private final Worker[] workers;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Create and start an engine.
+     *
+     * @param fleet     the cars the trips are applied to.
+     * @param workers   the number of worker threads.
+     * @param batchSize the most trips a worker applies at once.
+     * @param rejected  given each trip that is rejected and why, may be null.
+     * @throws IllegalArgumentException thrown if the fleet is null or the
+     *                                  workers or batch size aren't positive.
+     */
+    public TelemetryEngine(FleetStore fleet, int workers, int batchSize,
+                           BiConsumer<? super TripEvent, TripEvent.Rejection> rejected) {
+        if (fleet == null)
+            throw new IllegalArgumentException("Fleet cannot be null.");
+        if (workers < 1)
+            throw new IllegalArgumentException("Workers must be positive: " + workers);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+
+        this.fleet = fleet;
+        this.batchSize = batchSize;
+        this.rejected = rejected;
+        this.workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Worker(i);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Create and start an engine with a worker for each core.
+     *
+     * @param fleet     the cars the trips are applied to.
+     * @param rejected  given each trip that is rejected and why, may be null.
+     */
+    public TelemetryEngine(FleetStore fleet, BiConsumer<? super TripEvent, TripEvent.Rejection> rejected) {
+        this(fleet, Runtime.getRuntime().availableProcessors(), 1024, rejected);
+    }
+
+    /**
+     * Submit a trip, waiting if its worker has too many trips waiting.
+     *
+     * @param event the trip.
+     * @throws IllegalStateException thrown if the engine is closed.
+     * @throws InterruptedException  thrown if interrupted while waiting.
+     */
+    public void submit(TripEvent event) throws InterruptedException {
+        if (event == null)
+            throw new IllegalArgumentException("Event cannot be null.");
+        if (closed)
+            throw new IllegalStateException("The engine is closed.");
+
+        workers[partition(event)].queue.put(event);
+    }
+
+    /**
+     * Submit many trips.
+     *
+     * @param events the trips.
+     * @throws IllegalStateException thrown if the engine is closed.
+     * @throws InterruptedException  thrown if interrupted while waiting.
+     * @see #submit(TripEvent)
+     */
+    public void submitAll(Iterable<TripEvent> events) throws InterruptedException {
+        for (TripEvent event : events)
+            submit(event);
+    }
+
+    /**
+     * Wait until every trip submitted before this call has
+     * been applied or rejected.
+     *
+     * @throws IllegalStateException thrown if the engine is closed.
+     * @throws InterruptedException  thrown if interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        if (closed)
+            throw new IllegalStateException("The engine is closed.");
+
+        CountDownLatch latch = new CountDownLatch(workers.length);
+        for (Worker worker : workers)
+            worker.queue.put(latch);
+        latch.await();
+    }
+
+    /**
+     * Get the number of trips that have been applied.
+     * @return the number applied.
+     */
+    public long applied() {
+        return applied.sum();
+    }
+
+    /**
+     * Get the number of trips that have been rejected.
+     * @return the number rejected.
+     */
+    public long rejected() {
+        return rejections.sum();
+    }
+
+    /**
+     * Apply the trips already submitted, then stop the workers.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        boolean interrupted = false;
+        for (Worker worker : workers) {
+            while (true) {
+                try {
+                    worker.queue.put(STOP);
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Get the worker for a trip from its registration.
+     */
+    private int partition(TripEvent event) {
+        long packed = event.getRegistration().getPackedValue();
+        int hash = (int) (packed ^ (packed >>> 32)) * 0x9E3779B9;
+        return (hash >>> 1) % workers.length;
+    }
+
+    /**
+     * Takes the trips of one partition and applies them in batches.
+     */
+    private final class Worker extends Thread {
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        // the renter of each car in the batch, when the batch first reached it
+        private final Map<Car, Person> renters = new IdentityHashMap<>();
+
+        private Worker(int index) {
+            super("telemetry-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Object> batch = new ArrayList<>(batchSize);
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    // only stopped by STOP, so the queue is always drained
+                    continue;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                boolean stop = apply(batch);
+                batch.clear();
+                if (stop)
+                    return;
+            }
+        }
+
+        /**
+         * Apply a batch of trips.
+         *
+         * @return true if the worker has been told to stop.
+         */
+        private boolean apply(List<Object> batch) {
+            boolean stop = false;
+            List<CountDownLatch> flushes = null;
+
+            for (Object item : batch) {
+                if (item == STOP) {
+                    stop = true;
+                } else if (item instanceof CountDownLatch) {
+                    if (flushes == null)
+                        flushes = new ArrayList<>();
+                    flushes.add((CountDownLatch) item);
+                } else {
+                    try {
+                        apply((TripEvent) item);
+                    } catch (RuntimeException e) {
+                        report(e);
+                    }
+                }
+            }
+
+            renters.clear();
+
+            if (flushes != null) {
+                for (CountDownLatch flush : flushes)
+                    flush.countDown();
+            }
+            return stop;
+        }
+
+        private void apply(TripEvent event) {
+            Car car = fleet.find(event.getRegistration());
+            TripEvent.Rejection rejection = null;
+
+            if (car == null) {
+                rejection = TripEvent.Rejection.UNKNOWN_CAR;
+            } else {
+                Person renter = renters.get(car);
+                if (renter == null && !(renters.containsKey(car))) {
+                    renter = fleet.renterOf(car);
+                    renters.put(car, renter);
+                }
+
+                // the car can't be returned while its monitor is held
+                synchronized (car) {
+                    if (renter == null || fleet.renterOf(car) != renter)
+                        rejection = TripEvent.Rejection.NOT_RENTED;
+                    else if (car.getFuelAmount() < 1)
+                        rejection = TripEvent.Rejection.NO_FUEL;
+                    else
+                        car.drive(event.getKm());
+                }
+            }
+
+            if (rejection == null) {
+                applied.increment();
+            } else {
+                rejections.increment();
+                if (rejected != null)
+                    rejected.accept(event, rejection);
+            }
+        }
+
+        /**
+         * Report a trip that failed without stopping the worker,
+         * so the trips after it are still applied and flushes
+         * still complete.
+         */
+        private void report(RuntimeException e) {
+            getUncaughtExceptionHandler().uncaughtException(this, e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Registration;
+
+/**
+ * <h1>TripEvent</h1>
+ *
+ * An immutable trip reported by a car: its registration
+ * and the number of kilometres driven.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.TelemetryEngine
+ */
+public final class TripEvent {
+
+    /**
+     * Why a trip couldn't be applied to a car.
+     */
+    public enum Rejection {
+        /** there is no car in the fleet with the registration */
+        UNKNOWN_CAR,
+        /** the car isn't rented, so cannot be driven */
+        NOT_RENTED,
+        /** the car has no fuel left */
+        NO_FUEL
+    }
+
+    private final Registration registration;
+    private final int km;
+
+    /**
+     * Create a trip.
+     *
+     * @param registration  the registration of the car.
+     * @param km            the kilometres driven.
+     * @throws IllegalArgumentException thrown if the registration is null
+     *                                  or the distance is negative.
+     */
+    public TripEvent(Registration registration, int km) {
+        if (registration == null)
+            throw new IllegalArgumentException("Registration cannot be null.");
+        if (km < 0)
+            throw new IllegalArgumentException("Cannot drive a negative amount of KMs: " + km);
+
+        this.registration = registration;
+        this.km = km;
+    }
+
+    /**
+     * Get the registration of the car.
+     * @return the registration.
+     */
+    public Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * Get the kilometres driven.
+     * @return the distance.
+     */
+    public int getKm() {
+        return km;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return registration + " " + km + "km";
+    }
+}
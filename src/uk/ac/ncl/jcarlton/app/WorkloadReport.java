@@ -0,0 +1,134 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.app.WorkloadSimulator.Operation;
+import uk.ac.ncl.jcarlton.util.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * <h1>WorkloadReport</h1>
+ *
+ * The results of a run of a {@code WorkloadSimulator}: how
+ * many of each operation were done, how many were rejected,
+ * and how long they took.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.WorkloadSimulator#run(java.util.concurrent.ExecutorService, int, long, WorkloadSimulator.Mix)
+ */
+public final class WorkloadReport {
+
+    private final int threads;
+    private final long elapsedNanos;
+    private final long[] counts;
+    private final long[] rejections;
+    private final LatencyHistogram[] latencies;
+
+    WorkloadReport(int threads, long elapsedNanos, long[] counts, long[] rejections, LatencyHistogram[] latencies) {
+        this.threads = threads;
+        this.elapsedNanos = elapsedNanos;
+        this.counts = counts;
+        this.rejections = rejections;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Get the number of threads the workload ran on.
+     * @return the thread count.
+     */
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Get how long the run took.
+     * @return the elapsed time, in nanoseconds.
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get the number of operations done, of every kind.
+     * @return the total.
+     */
+    public long operations() {
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        return total;
+    }
+
+    /**
+     * Get the operations done per second, across every thread.
+     * @return the throughput.
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : operations() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Get the number of operations of a kind that were done.
+     *
+     * @param operation the kind of operation.
+     * @return the count.
+     */
+    public long count(Operation operation) {
+        return counts[operation.ordinal()];
+    }
+
+    /**
+     * Get the number of operations of a kind that were rejected,
+     * such as a car that couldn't be issued.
+     *
+     * @param operation the kind of operation.
+     * @return the number rejected.
+     */
+    public long rejected(Operation operation) {
+        return rejections[operation.ordinal()];
+    }
+
+    /**
+     * Get the fraction of operations of a kind that were rejected.
+     *
+     * @param operation the kind of operation.
+     * @return the rejection rate, from 0 to 1.
+     */
+    public double rejectionRate(Operation operation) {
+        long count = count(operation);
+        return count == 0 ? 0 : (double) rejected(operation) / count;
+    }
+
+    /**
+     * Get the latencies of the operations of a kind.
+     *
+     * @param operation the kind of operation.
+     * @return the histogram of their latencies.
+     */
+    public LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * A table of the throughput and, for each kind of operation,
+     * the count, rejection rate and latency percentiles in
+     * microseconds.
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(512);
+        report.append(String.format(Locale.ROOT, "%d operations on %d threads in %.3f s, %.0f ops/s%n",
+                operations(), threads, elapsedNanos / 1e9, throughput()));
+        report.append(String.format(Locale.ROOT, "%-8s %10s %9s %10s %10s %10s %10s%n",
+                "op", "count", "rejected", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            report.append(String.format(Locale.ROOT, "%-8s %10d %8.2f%% %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.name().toLowerCase(Locale.ROOT), count(operation), 100 * rejectionRate(operation),
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                    histogram.percentile(99.9) / 1e3, histogram.max() / 1e3));
+        }
+        return report.toString();
+    }
+}
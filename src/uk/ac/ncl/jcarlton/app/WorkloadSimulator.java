@@ -0,0 +1,301 @@
+package uk.ac.ncl.jcarlton.app;
+
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.util.CustomerGenerator;
+import uk.ac.ncl.jcarlton.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <h1>WorkloadSimulator</h1>
+ * <p>
+ * Drives a {@code RentalManagement} with a production-shaped
+ * workload: many customers, from a {@code CustomerGenerator},
+ * issuing cars, driving them, returning them and refuelling
+ * the returned cars, in a configurable {@code Mix}, across any
+ * number of threads.
+ * <p>
+ * The customers are split between the threads, so each thread
+ * knows which of its customers are renting without sharing
+ * anything with the other threads, but the cars are shared so
+ * threads compete for them as real branches would. Each thread
+ * picks its operations from its own seeded random numbers, so
+ * the same seed gives the same stream of requests each run,
+ * although the outcomes depend on how the threads interleave.
+ * <p>
+ * Only the call into the rental system is timed, not the
+ * making up of the request.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.app.WorkloadReport
+ */
+public final class WorkloadSimulator {
+
+    /**
+     * The operations in a workload.
+     */
+    public enum Operation {
+        /** Issue a random car to a random customer who may or may not be renting. */
+        ISSUE,
+        /** Drive a rented car, rejected if it has no fuel left. */
+        DRIVE,
+        /** Return a rented car. */
+        RETURN,
+        /** Refuel a car waiting for fuel, rejected if none could be found. */
+        REFUEL
+    }
+
+    /**
+     * How often each operation is picked, as relative weights.
+     */
+    public static final class Mix {
+        private final int[] cumulative = new int[Operation.values().length];
+
+        /**
+         * Object constructor.
+         *
+         * @param issue  the weight of {@code ISSUE}.
+         * @param drive  the weight of {@code DRIVE}.
+         * @param ret    the weight of {@code RETURN}.
+         * @param refuel the weight of {@code REFUEL}.
+         * @throws IllegalArgumentException thrown if a weight is negative
+         *                                  or they are all zero.
+         */
+        public Mix(int issue, int drive, int ret, int refuel) {
+            int[] weights = {issue, drive, ret, refuel};
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] < 0)
+                    throw new IllegalArgumentException("Weights cannot be negative: " + weights[i]);
+                total += weights[i];
+                cumulative[i] = total;
+            }
+            if (total == 0)
+                throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+
+        /**
+         * A mix where most operations are customers driving, with
+         * issues and returns balanced so the fleet stays busy.
+         *
+         * @return the mix.
+         */
+        public static Mix standard() {
+            return new Mix(25, 45, 20, 10);
+        }
+
+        private Operation pick(SplittableRandom random) {
+            int r = random.nextInt(cumulative[cumulative.length - 1]);
+            int i = 0;
+            while (r >= cumulative[i])
+                i++;
+            return Operation.values()[i];
+        }
+    }
+
+    // the most cars looked at to find one waiting for fuel
+    private static final int REFUEL_PROBES = 16;
+
+    private final RentalManagement management;
+    private final FleetStore fleet;
+    private final CustomerGenerator customers;
+    private final long customerCount;
+    private final long seed;
+
+    /**
+     * Create a simulator.
+     *
+     * @param management    the rental system to drive.
+     * @param fleet         the fleet it manages.
+     * @param customers     makes up the customers.
+     * @param customerCount how many customers there are.
+     * @param seed          the seed of the requests.
+     * @throws IllegalArgumentException thrown if a parameter is null, the
+     *                                  fleet is empty or there are no customers.
+     */
+    public WorkloadSimulator(RentalManagement management, FleetStore fleet, CustomerGenerator customers,
+                             long customerCount, long seed) {
+        if (management == null)
+            throw new IllegalArgumentException("Management cannot be null.");
+        if (fleet == null || fleet.size() == 0)
+            throw new IllegalArgumentException("Fleet cannot be null or empty.");
+        if (customers == null)
+            throw new IllegalArgumentException("Customers cannot be null.");
+        if (customerCount < 1)
+            throw new IllegalArgumentException("Customer count must be positive: " + customerCount);
+
+        this.management = management;
+        this.fleet = fleet;
+        this.customers = customers;
+        this.customerCount = customerCount;
+        this.seed = seed;
+    }
+
+    /**
+     * Run a workload and report on it. The threads are started on
+     * an executor, such as {@link AsyncRentalManagement#defaultExecutor()}
+     * for virtual threads, and all start at once.
+     *
+     * @param executor            runs the threads, it isn't shut down.
+     * @param threads             the number of threads.
+     * @param operationsPerThread the operations each thread does.
+     * @param mix                 how often each operation is picked.
+     * @return the report.
+     * @throws IllegalArgumentException thrown if the executor or mix are null,
+     *                                  the counts aren't positive or there are
+     *                                  fewer customers than threads.
+     * @throws InterruptedException     thrown if interrupted while waiting.
+     */
+    public WorkloadReport run(ExecutorService executor, int threads, long operationsPerThread, Mix mix)
+            throws InterruptedException {
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null.");
+        if (mix == null)
+            throw new IllegalArgumentException("Mix cannot be null.");
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        if (operationsPerThread < 1)
+            throw new IllegalArgumentException("Operations must be positive: " + operationsPerThread);
+        if (customerCount < threads)
+            throw new IllegalArgumentException("Need at least one customer for each thread: " + customerCount);
+
+        final Car[] cars = fleet.cars().toArray(new Car[0]);
+        final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = new LatencyHistogram();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Worker>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final Worker worker = new Worker(t, threads, cars, latencies, new SplittableRandom(seed + t));
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(operationsPerThread, mix);
+                return worker;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] counts = new long[latencies.length];
+        long[] rejections = new long[latencies.length];
+        for (Future<Worker> future : futures) {
+            Worker worker;
+            try {
+                worker = future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += worker.counts[i];
+                rejections[i] += worker.rejections[i];
+            }
+        }
+        return new WorkloadReport(threads, System.nanoTime() - begin, counts, rejections, latencies);
+    }
+
+    /**
+     * One thread of the workload, with its own share of the customers.
+     */
+    private final class Worker {
+        private final long first;
+        private final long stride;
+        private final long share;
+        private final Car[] cars;
+        private final LatencyHistogram[] latencies;
+        private final SplittableRandom random;
+
+        // this thread's customers who are renting
+        private final List<Person> renting = new ArrayList<>();
+        private final long[] counts = new long[Operation.values().length];
+        private final long[] rejections = new long[Operation.values().length];
+
+        private Worker(int thread, int threads, Car[] cars, LatencyHistogram[] latencies, SplittableRandom random) {
+            this.first = thread;
+            this.stride = threads;
+            this.share = (customerCount - thread + threads - 1) / threads;
+            this.cars = cars;
+            this.latencies = latencies;
+            this.random = random;
+        }
+
+        private void run(long operations, Mix mix) {
+            for (long i = 0; i < operations; i++) {
+                Operation operation = mix.pick(random);
+                // nobody to drive or return a car, so someone rents one instead
+                if (renting.isEmpty() && (operation == Operation.DRIVE || operation == Operation.RETURN))
+                    operation = Operation.ISSUE;
+
+                long begin;
+                boolean done;
+                switch (operation) {
+                    case ISSUE: {
+                        Person person = customers.customer(first + stride * random.nextLong(share));
+                        Car car = cars[random.nextInt(cars.length)];
+                        begin = System.nanoTime();
+                        done = management.issueCar(person, person.getLicense(), car);
+                        if (done)
+                            renting.add(person);
+                        break;
+                    }
+                    case DRIVE: {
+                        Person person = renting.get(random.nextInt(renting.size()));
+                        int km = 5 + random.nextInt(300);
+                        begin = System.nanoTime();
+                        try {
+                            done = management.getCar(person).drive(km) > 0;
+                        } catch (IllegalStateException e) {
+                            // the tank is empty
+                            done = false;
+                        }
+                        break;
+                    }
+                    case RETURN: {
+                        // swap-remove a random renter
+                        int index = random.nextInt(renting.size());
+                        Person person = renting.get(index);
+                        renting.set(index, renting.get(renting.size() - 1));
+                        renting.remove(renting.size() - 1);
+                        begin = System.nanoTime();
+                        done = management.terminateRental(person) >= 0;
+                        break;
+                    }
+                    default: {
+                        // REFUEL
+                        begin = System.nanoTime();
+                        done = refuel();
+                        break;
+                    }
+                }
+                latencies[operation.ordinal()].record(System.nanoTime() - begin);
+                counts[operation.ordinal()]++;
+                if (!(done))
+                    rejections[operation.ordinal()]++;
+            }
+        }
+
+        /**
+         * Fill the tank of a random car that is waiting for fuel.
+         */
+        private boolean refuel() {
+            for (int probe = 0; probe < REFUEL_PROBES; probe++) {
+                Car car = cars[random.nextInt(cars.length)];
+                if (fleet.isAwaitingFuel(car))
+                    return car.addFuel(car.getFuelCapacity()) > 0;
+            }
+            return false;
+        }
+    }
+}
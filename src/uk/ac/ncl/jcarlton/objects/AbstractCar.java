@@ -10,6 +10,9 @@ package uk.ac.ncl.jcarlton.objects;
  * To add further specialist functionality, extend this
  * class.
  *
+ * The fuel level can be read without locking, changes to
+ * it are made one at a time under the car's lock.
+ *
  * @see uk.ac.ncl.jcarlton.objects.Car
  *
  * @author Jonathan Carlton
@@ -19,9 +22,12 @@ public abstract class AbstractCar implements Car {
     // state member variables
     private final Registration registrationNumber; // unique to the car
     private final int tankCapacity;
-    private int currentFuelLevel;
+    private volatile int currentFuelLevel;
+
+    private volatile boolean rented;
 
-    private boolean rented;
+    // told about every change to the fuel level, may be null
+    private volatile CarObserver observer;
 
     /**
      * Package-private object constructor, used by the
@@ -79,7 +85,7 @@ public abstract class AbstractCar implements Car {
      * {@inheritDoc}
      */
     @Override
-    public int addFuel(int fuelAmount) {
+    public synchronized int addFuel(int fuelAmount) {
         // cannot add a negative amount of fuel to the car.
         if (fuelAmount < 0)
             throw new IllegalArgumentException("Cannot add a negative amount of fuel: " + fuelAmount);
@@ -97,14 +103,18 @@ public abstract class AbstractCar implements Car {
             int amountAdd = fuelAmount - overspill;
 
             // essentially fill the tank to its capacity.
-            currentFuelLevel += amountAdd;
+            int previous = currentFuelLevel;
+            currentFuelLevel = tankCapacity;
+            notifyObserver(previous, tankCapacity);
 
             // return the actual amount added.
             return amountAdd;
         }
 
         // else there is no overspill, increment the fuel level
-        currentFuelLevel += fuelAmount;
+        int previous = currentFuelLevel;
+        currentFuelLevel = previous + fuelAmount;
+        notifyObserver(previous, previous + fuelAmount);
         return fuelAmount;
     }
 
@@ -112,7 +122,7 @@ public abstract class AbstractCar implements Car {
      * {@inheritDoc}
      */
     @Override
-    public int useFuel(int fuelAmount) {
+    public synchronized int useFuel(int fuelAmount) {
         // cannot use a negative amount of fuel
         if (fuelAmount < 0)
             throw new IllegalArgumentException("Cannot use a negative amount of fuel: " + fuelAmount);
@@ -125,6 +135,7 @@ public abstract class AbstractCar implements Car {
 
             // set to zero
             currentFuelLevel = 0;
+            notifyObserver(previousFuelLevel, 0);
 
             // need to fill the tank up from empty.
             return previousFuelLevel;
@@ -134,10 +145,11 @@ public abstract class AbstractCar implements Car {
         int previous = currentFuelLevel;
 
         // reduce the current fuel level by the amount used
-        currentFuelLevel = currentFuelLevel - fuelAmount;
+        currentFuelLevel = previous - fuelAmount;
+        notifyObserver(previous, previous - fuelAmount);
 
-        // previous sub current gives the amount used.
-        return previous - currentFuelLevel;
+        // the amount used.
+        return fuelAmount;
     }
 
     /**
@@ -145,7 +157,7 @@ public abstract class AbstractCar implements Car {
      */
     @Override
     public void setRented(boolean rent) {
-        if (isTankFull())
+        if (!(rent) || isTankFull())
             this.rented = rent;
     }
 
@@ -157,20 +169,43 @@ public abstract class AbstractCar implements Car {
         return rented;
     }
 
+    /**
+     * Set the observer that is told about every change to the
+     * amount of fuel in the car, replacing any previous one.
+     *
+     * @param observer  the observer, or null to remove it.
+     */
+    public void setObserver(CarObserver observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Tell the observer, if there is one, that the fuel
+     * level has changed. This is called while the fuel is
+     * still locked, so the observer sees the changes to
+     * the car in the order they were made.
+     * @param previous  the fuel level before the change.
+     * @param current   the fuel level after the change.
+     */
+    private void notifyObserver(int previous, int current) {
+        CarObserver notified = observer;
+        if (notified != null && previous != current)
+            notified.fuelChanged(this, previous, current);
+    }
+
     /**
      * The equality of a {@code Car} is based on whether
-     * or their registrations are the same.
+     * or their registrations are the same, compared through
+     * the {@code Car} interface so that any kind of car can
+     * be equal to this one.
      * @see java.lang.Object#equals(Object)
      */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o instanceof Registration) return false;
-
-        AbstractCar that = (AbstractCar) o;
-
-        return registrationNumber.equals(that.registrationNumber);
+        if (!(o instanceof Car)) return false;
 
+        return registrationNumber.equals(((Car) o).getRegistration());
     }
 
     /**
@@ -81,7 +81,9 @@ public interface Car {
     int useFuel(int fuelAmount);
 
     /**
-     * The ability to rent the car.
+     * The ability to rent the car. A car can only be
+     * rented out with a full tank, but can always be
+     * returned, however much fuel is left.
      *
      * @param rent true or false
      */
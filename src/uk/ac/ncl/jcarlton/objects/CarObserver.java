@@ -0,0 +1,24 @@
+package uk.ac.ncl.jcarlton.objects;
+
+/**
+ * <h1>CarObserver</h1>
+ *
+ * Notified whenever the amount of fuel in a {@code Car}
+ * changes, whether that's by adding fuel, using fuel or
+ * driving it.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.AbstractCar#setObserver(CarObserver)
+ *
+ * @author Jonathan Carlton
+ */
+public interface CarObserver {
+
+    /**
+     * The amount of fuel in a car has changed.
+     *
+     * @param car       the car.
+     * @param previous  the amount of fuel before the change.
+     * @param current   the amount of fuel after the change.
+     */
+    void fuelChanged(Car car, int previous, int current);
+}
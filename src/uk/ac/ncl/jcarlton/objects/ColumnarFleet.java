@@ -0,0 +1,426 @@
+package uk.ac.ncl.jcarlton.objects;
+
+import java.util.Arrays;
+
+/**
+ * <h1>ColumnarFleet</h1>
+ *
+ * A compact representation of a large fleet of cars.
+ *
+ * Rather than one object per car, the state of every car is
+ * held in a set of arrays indexed by the car's id: the packed
+ * registration, the type, the fuel level and a bitset of which
+ * cars are rented. Fleet-wide queries and bulk fuel updates are
+ * then a sweep over an array.
+ *
+ * Each registration is only in the fleet once, and
+ * {@link #idOf(Registration)} finds its id.
+ *
+ * {@link #car(int)} gives a lightweight {@code Car} view of a
+ * single car, which reads and writes straight through to the
+ * arrays and behaves the same as a {@code SmallCar} or
+ * {@code LargeCar}.
+ *
+ * This class isn't thread-safe.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.Car
+ *
+ * @author Jonathan Carlton
+ */
+public final class ColumnarFleet {
+
+    // the type of each car
+    private static final byte SMALL = 0;
+    private static final byte LARGE = 1;
+
+    // the fuel capacity of each type.
+    private static final int SMALL_CAPACITY = 49;
+    private static final int LARGE_CAPACITY = 60;
+
+    // the state of each car, indexed by its id
+    private long[] registrations;
+    private byte[] types;
+    private int[] fuel;
+    private long[] rented;
+
+    // open-addressing table of id + 1 keyed on the packed registration, 0 is empty
+    private int[] ids;
+
+    private int size;
+
+    /**
+     * Object constructor.
+     *
+     * @param capacity  the number of cars to allocate room
+     *                  for up front.
+     * @throws IllegalArgumentException thrown if the capacity is negative.
+     */
+    public ColumnarFleet(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+
+        registrations = new long[capacity];
+        types = new byte[capacity];
+        fuel = new int[capacity];
+        rented = new long[(capacity + 63) >>> 6];
+        ids = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Add a car to the fleet, with a full tank and not rented.
+     *
+     * @param registration  the registration of the car.
+     * @param type          either {@code SmallCar} or {@code LargeCar}.
+     * @return the id of the car.
+     * @throws IllegalArgumentException thrown if the registration is
+     * null, the type isn't {@code SmallCar} or {@code LargeCar}, or
+     * a car with the same registration is already in the fleet.
+     */
+    public int add(Registration registration, Class<? extends Car> type) {
+        if (registration == null)
+            throw new IllegalArgumentException("Registration cannot be null.");
+
+        byte t;
+        if (type == SmallCar.class)
+            t = SMALL;
+        else if (type == LargeCar.class)
+            t = LARGE;
+        else
+            throw new IllegalArgumentException("Unsupported car type: " + type);
+
+        long packed = registration.getPackedValue();
+        int slot = slot(packed);
+        if (ids[slot] != 0)
+            throw new IllegalArgumentException("Duplicate registration: " + registration);
+
+        if (size == registrations.length)
+            grow();
+        if (2 * (size + 1) > ids.length) {
+            rehash(ids.length * 2);
+            slot = slot(packed);
+        }
+
+        int id = size++;
+        registrations[id] = packed;
+        types[id] = t;
+        fuel[id] = capacity(t);
+        ids[slot] = id + 1;
+        return id;
+    }
+
+    /**
+     * Get the id of the car with a given registration.
+     *
+     * @param registration  the registration of the car.
+     * @return the id, or -1 if there's no car with the registration.
+     */
+    public int idOf(Registration registration) {
+        if (registration == null)
+            return -1;
+        return ids[slot(registration.getPackedValue())] - 1;
+    }
+
+    /**
+     * Get a {@code Car} view of a car in the fleet.
+     *
+     * @param id    the id of the car.
+     * @return the view of the car.
+     * @throws IndexOutOfBoundsException thrown if there is no car with the id.
+     */
+    public Car car(int id) {
+        check(id);
+        return new CarView(id);
+    }
+
+    /**
+     * Get the number of cars in the fleet.
+     *
+     * @return the size of the fleet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Count the cars of a given type that are available
+     * to rent (not rented, with a full tank).
+     *
+     * @param type  either {@code SmallCar} or {@code LargeCar}.
+     * @return the count, or -1 if the type is anything else.
+     */
+    public int availableCars(Class<?> type) {
+        byte t;
+        if (type == SmallCar.class)
+            t = SMALL;
+        else if (type == LargeCar.class)
+            t = LARGE;
+        else
+            return -1;
+
+        int count = 0;
+        int full = capacity(t);
+        for (int id = 0; id < size; id++) {
+            if (types[id] == t && fuel[id] == full && !isRented(id))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Count the cars that are currently rented.
+     *
+     * @return the number of rented cars.
+     */
+    public int rentedCount() {
+        int count = 0;
+        for (long word : rented)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Get the total amount of fuel, in whole litres, held
+     * across the whole fleet.
+     *
+     * @return the total fuel.
+     */
+    public long totalFuel() {
+        long total = 0;
+        for (int id = 0; id < size; id++)
+            total += fuel[id];
+        return total;
+    }
+
+    /**
+     * Fill the tank of every car that isn't rented.
+     *
+     * @return the total amount of fuel that was added.
+     */
+    public long refuelAvailable() {
+        long added = 0;
+        for (int id = 0; id < size; id++) {
+            if (!isRented(id)) {
+                int full = capacity(types[id]);
+                added += full - fuel[id];
+                fuel[id] = full;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Drive every rented car the same distance, using the
+     * consumption rate of each car's type.
+     *
+     * @param kmAmount  the amount of kilometres to travel.
+     * @return the total amount of fuel that was used.
+     * @throws IllegalArgumentException thrown if the distance is negative.
+     */
+    public long driveRented(int kmAmount) {
+        if (kmAmount < 0)
+            throw new IllegalArgumentException("Cannot drive a negative amount of KMs: " + kmAmount);
+
+        int small = SmallCar.fuelRequired(kmAmount);
+        int large = LargeCar.fuelRequired(kmAmount);
+        long used = 0;
+        for (int word = 0; word < rented.length; word++) {
+            for (long bits = rented[word]; bits != 0; bits &= bits - 1) {
+                int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int burn = Math.min(fuel[id], types[id] == LARGE ? large : small);
+                fuel[id] -= burn;
+                used += burn;
+            }
+        }
+        return used;
+    }
+
+    private boolean isRented(int id) {
+        return (rented[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private void check(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("No car with id: " + id);
+    }
+
+    private void grow() {
+        int length = Math.max(16, registrations.length * 2);
+        registrations = Arrays.copyOf(registrations, length);
+        types = Arrays.copyOf(types, length);
+        fuel = Arrays.copyOf(fuel, length);
+        rented = Arrays.copyOf(rented, (length + 63) >>> 6);
+    }
+
+    /**
+     * Find the slot of a registration in the id table, either the
+     * slot holding it or the empty slot where it would go.
+     */
+    private int slot(long packed) {
+        int mask = ids.length - 1;
+        for (int i = hash(packed) & mask; ; i = (i + 1) & mask) {
+            int id = ids[i];
+            if (id == 0 || registrations[id - 1] == packed)
+                return i;
+        }
+    }
+
+    private void rehash(int length) {
+        ids = new int[length];
+        for (int id = 0; id < size; id++)
+            ids[slot(registrations[id])] = id + 1;
+    }
+
+    // a power of two that keeps the table at most half full
+    private static int tableSize(int capacity) {
+        int length = 16;
+        while (length < 2 * capacity)
+            length <<= 1;
+        return length;
+    }
+
+    private static int hash(long packed) {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int capacity(byte type) {
+        return type == LARGE ? LARGE_CAPACITY : SMALL_CAPACITY;
+    }
+
+    /**
+     * A {@code Car} that is backed by one row of the
+     * fleet's arrays.
+     */
+    private final class CarView implements Car {
+
+        private final int id;
+
+        private CarView(int id) {
+            this.id = id;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Registration getRegistration() {
+            return Registration.getInstance(registrations[id]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFuelCapacity() {
+            return capacity(types[id]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFuelAmount() {
+            return fuel[id];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isTankFull() {
+            return fuel[id] == getFuelCapacity();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int addFuel(int fuelAmount) {
+            if (fuelAmount < 0)
+                throw new IllegalArgumentException("Cannot add a negative amount of fuel: " + fuelAmount);
+
+            int added = Math.min(fuelAmount, getFuelCapacity() - fuel[id]);
+            fuel[id] += added;
+            return added;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int drive(int kmAmount) {
+            if (kmAmount < 0)
+                throw new IllegalArgumentException("Cannot drive a negative amount of KMs: " + kmAmount);
+            if (fuel[id] < 1)
+                throw new IllegalStateException("The car has no fuel.");
+            if (!(isRented()))
+                throw new IllegalStateException("The car hasn't been rented.");
+
+            return useFuel(types[id] == LARGE
+                    ? LargeCar.fuelRequired(kmAmount)
+                    : SmallCar.fuelRequired(kmAmount));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int useFuel(int fuelAmount) {
+            if (fuelAmount < 0)
+                throw new IllegalArgumentException("Cannot use a negative amount of fuel: " + fuelAmount);
+
+            int used = Math.min(fuelAmount, fuel[id]);
+            fuel[id] -= used;
+            return used;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setRented(boolean rent) {
+            if (rent && !(isTankFull()))
+                return;
+            if (rent)
+                rented[id >>> 6] |= 1L << id;
+            else
+                rented[id >>> 6] &= ~(1L << id);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isRented() {
+            return ColumnarFleet.this.isRented(id);
+        }
+
+        /**
+         * The equality of a {@code Car} is based on whether
+         * or their registrations are the same.
+         * @see java.lang.Object#equals(Object)
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Car)) return false;
+            return getRegistration().equals(((Car) o).getRegistration());
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return getRegistration().hashCode();
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return getRegistration().toString() + (types[id] == LARGE ? " (L)" : " (S)");
+        }
+    }
+}
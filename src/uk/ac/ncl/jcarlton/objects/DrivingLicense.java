@@ -1,6 +1,8 @@
 package uk.ac.ncl.jcarlton.objects;
 
-import java.util.*;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.Date;
 
 /**
  * <h1>Driving License</h1>
@@ -17,34 +19,36 @@ public class DrivingLicense {
 
     // state member variables
     private final String firstComponent;
-    private final Date secondComponent;
+    private final int issueDay;
     private final String thirdComponent;
 
     // information about the license
     private final boolean fullLicense;
     private final Person owner;
+    private final String number;
 
     // store all the driving license
-    private static final Map<Person, DrivingLicense> LICENSE_MAP = new HashMap<>();
+    private static final LicenseRegistry REGISTRY = new LicenseRegistry();
 
     /**
-     * Private object constructor.
+     * Object constructor, only used by the {@code LicenseRegistry}.
      * <p>
-     * Create a {@code DrivingLicense} using a {@code Person}, a {@code Date},
+     * Create a {@code DrivingLicense} using a {@code Person}, an issue day,
      * and a {@code String}. Also indicate whether it is a full license or not.
      *
      * @param person      the {@code Person} whose license it is.
-     * @param second      the {@code Date} of which the license was issued.
+     * @param issueDay    the epoch day on which the license was issued.
      * @param third       the {@code String} unique serial number.
      * @param fullLicense if it's a full license or not.
      * @see uk.ac.ncl.jcarlton.objects.Person
      */
-    private DrivingLicense(Person person, Date second, String third, boolean fullLicense) {
+    DrivingLicense(Person person, int issueDay, String third, boolean fullLicense) {
         this.firstComponent = processName(person);
-        this.secondComponent = second;
+        this.issueDay = issueDay;
         this.thirdComponent = third;
         this.fullLicense = fullLicense;
         this.owner = person;
+        this.number = PersonFormat.formatNumber(this, new StringBuilder(16)).toString();
     }
 
     /**
@@ -65,12 +69,49 @@ public class DrivingLicense {
         if (second == null)
             throw new IllegalArgumentException("Date cannot be a null object");
 
-        // if the map doesn't contain the person, then create a new license
-        if (!(LICENSE_MAP.containsKey(person)))
-            LICENSE_MAP.put(person, new DrivingLicense(person, second, generateSerial(), fullLicense));
+        return getInstance(person, EpochDays.of(second), fullLicense);
+    }
+
+    /**
+     * Static factory method to either create a new {@code DrivingLicense} or fetch
+     * a previously created one, with the issue date as an epoch day.
+     *
+     * @param person      the {@code Person} whose license it is.
+     * @param issueDay    the epoch day on which the license was issued.
+     * @param fullLicense if it's a full license or not.
+     * @return the stored or created object.
+     */
+    public static DrivingLicense getInstance(Person person, int issueDay, boolean fullLicense) {
+        // ensure that the Person isn't null
+        if (person == null)
+            throw new IllegalArgumentException("The Person cannot be a null object");
+
+        // fetch the stored license, or create and store a new license
+        return REGISTRY.getInstance(person, issueDay, fullLicense);
+    }
+
+    /**
+     * Restore a license that was issued before, such as one read
+     * back from a journal, with the serial it was given then.
+     *
+     * @param person      the {@code Person} whose license it is.
+     * @param issueDay    the epoch day on which the license was issued.
+     * @param serial      the serial the license was given.
+     * @param fullLicense if it's a full license or not.
+     * @return the restored license.
+     * @see uk.ac.ncl.jcarlton.objects.Person#restore(String, String, int, boolean, int, String)
+     */
+    static DrivingLicense restore(Person person, int issueDay, String serial, boolean fullLicense) {
+        return REGISTRY.restore(person, issueDay, serial, fullLicense);
+    }
 
-        // then return the stored license
-        return LICENSE_MAP.get(person);
+    /**
+     * Get the registry that stores every driving license.
+     *
+     * @return the registry.
+     */
+    public static LicenseRegistry registry() {
+        return REGISTRY;
     }
 
     /**
@@ -78,9 +119,7 @@ public class DrivingLicense {
      */
     @Override
     public String toString() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(secondComponent);
-        return firstComponent + "-" + calendar.get(Calendar.YEAR) + "-" + thirdComponent + "-" + fullLicense;
+        return PersonFormat.format(this, new StringBuilder(24)).toString();
     }
 
     /**
@@ -96,7 +135,17 @@ public class DrivingLicense {
      * @return the second component.
      */
     public Date getSecondComponent() {
-        return secondComponent;
+        // a new Date each time, so the caller cannot change it
+        return EpochDays.toDate(issueDay);
+    }
+
+    /**
+     * Get the day the license was issued, the second
+     * component, as an epoch day.
+     * @return the number of days since 1970-01-01.
+     */
+    public int getIssueDay() {
+        return issueDay;
     }
 
     /**
@@ -107,6 +156,15 @@ public class DrivingLicense {
         return thirdComponent;
     }
 
+    /**
+     * Get the license number, the first three components,
+     * such as "JC-2011-42".
+     * @return the license number.
+     */
+    public String getNumber() {
+        return number;
+    }
+
     /**
      * Fetch if the license is full or not.
      * @return true or false.
@@ -136,15 +194,4 @@ public class DrivingLicense {
         String concat = firstInitial + secondInitial;
         return concat.toUpperCase();
     }
-
-    /**
-     * Generate the random serial for the license.
-     * @return the serial as a {@code String}.
-     */
-    private static String generateSerial() {
-        Random random = new Random();
-        int first = random.nextInt(10);
-        int second = random.nextInt(10);
-        return String.valueOf(first) + String.valueOf(second);
-    }
 }
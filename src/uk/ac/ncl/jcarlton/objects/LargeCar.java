@@ -50,6 +50,17 @@ public final class LargeCar extends AbstractCar {
             // the car has to be rented in order to drive it.
             throw new IllegalStateException("The car hasn't been rented.");
 
+        return useFuel(fuelRequired(kmAmount));
+    }
+
+    /**
+     * The amount of fuel, in whole litres, that a Large
+     * Car needs to travel a given distance.
+     *
+     * @param kmAmount  the amount of kilometres to travel.
+     * @return          the litres of fuel needed.
+     */
+    public static int fuelRequired(int kmAmount) {
         // attempting to travel more than 50km
         // not >= to avoid divide by 0 error.
         if (kmAmount > 50) {
@@ -70,13 +81,11 @@ public final class LargeCar extends AbstractCar {
             if (remainingKms == 0)
                 remainingKms = 1;
 
-            // use the fuel
-            return useFuel(firstFifty + remainingKms);
+            return firstFifty + remainingKms;
         }
 
         // else, the kmAmount must be less than 50 so use the normal consumption rate
-        int consumption = kmAmount / CONSUMPTION_RATE_1;
-        return useFuel(consumption);
+        return kmAmount / CONSUMPTION_RATE_1;
     }
 
     /**
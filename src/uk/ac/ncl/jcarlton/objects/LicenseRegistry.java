@@ -0,0 +1,404 @@
+package uk.ac.ncl.jcarlton.objects;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h1>LicenseRegistry</h1>
+ *
+ * Stores every {@code DrivingLicense} so that each {@code Person}
+ * only ever has one, and so a license can be found by its number.
+ *
+ * The registry is safe to use from many threads, a license is
+ * found without locking. Licenses are held weakly: once nothing
+ * refers to a license or to a {@code Person} who owns it, it is
+ * garbage collected and removed from the registry, and an equal
+ * {@code Person} created later is given a new license. A
+ * {@code Person} can be restored with the license they had, for
+ * example from a journal, with {@code Person.restore()}.
+ *
+ * The registry has a maximum size, {@link #DEFAULT_MAXIMUM_SIZE}
+ * unless it's changed. When it grows past the maximum the licenses
+ * that were registered first are evicted. A {@code Person} whose
+ * license was evicted is given a new one the next time it's
+ * asked for.
+ *
+ * Every license has a different number, the serials of new
+ * licenses are given out by a {@code SerialAllocator}.
+ *
+ * Use {@code DrivingLicense.registry()} to get the registry.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#getInstance(Person, Date, boolean)
+ * @see uk.ac.ncl.jcarlton.objects.Person#restore(String, String, int, boolean, int, String)
+ *
+ * @author Jonathan Carlton
+ */
+public final class LicenseRegistry {
+
+    /**
+     * The maximum number of licenses that are kept, unless it's changed.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1 << 20;
+
+    // the share of the maximum size that is evicted at once, so eviction is infrequent
+    private static final int EVICTION_SLACK = 16;
+
+    // the number of serials in a row that can be in use before giving up
+    private static final int MAX_COLLISIONS = 1000;
+
+    private final ConcurrentHashMap<Key, Entry> byOwner = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> byNumber = new ConcurrentHashMap<>();
+
+    // the entries whose license has been collected
+    private final ReferenceQueue<DrivingLicense> collected = new ReferenceQueue<>();
+
+    // the entries in the order they were registered, oldest first, for eviction
+    private final ConcurrentLinkedQueue<Entry> registered = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile int maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private volatile SerialAllocator serials = new SequenceSerialAllocator();
+
+    LicenseRegistry() {
+    }
+
+    /**
+     * Fetch the license of a {@code Person}, creating it if they
+     * don't have one.
+     *
+     * @param person      the {@code Person} whose license it is.
+     * @param issueDay    the epoch day on which the license was issued.
+     * @param fullLicense if it's a full license or not.
+     * @return the stored or created license.
+     * @throws IllegalStateException thrown if a free serial cannot be found.
+     */
+    DrivingLicense getInstance(Person person, int issueDay, boolean fullLicense) {
+        expunge();
+
+        Key key = new Key(person);
+        int collisions = 0;
+        while (true) {
+            Entry entry = byOwner.get(key);
+            DrivingLicense license = entry == null ? null : entry.get();
+            if (license != null)
+                return license;
+            if (entry != null) {
+                // collected, but not yet expunged
+                remove(entry);
+                continue;
+            }
+
+            // the license is held here until it's registered, so it cannot be collected
+            DrivingLicense created = new DrivingLicense(person, issueDay, nextSerial(), fullLicense);
+            Entry fresh = new Entry(created, key, collected);
+            if (byNumber.putIfAbsent(fresh.number, fresh) != null) {
+                if (++collisions > MAX_COLLISIONS)
+                    throw new IllegalStateException("Serial allocator keeps giving out serials that are in use.");
+                continue;
+            }
+
+            if (byOwner.putIfAbsent(key, fresh) != null) {
+                // another thread registered this person first
+                byNumber.remove(fresh.number, fresh);
+                continue;
+            }
+
+            registered(fresh);
+            return created;
+        }
+    }
+
+    /**
+     * Register a license that was issued before with the serial it
+     * was given, so it has the same number as it had then.
+     *
+     * @param person      the {@code Person} whose license it is.
+     * @param issueDay    the epoch day on which the license was issued.
+     * @param serial      the serial the license was given.
+     * @param fullLicense if it's a full license or not.
+     * @return the license, which may already have been registered.
+     * @throws IllegalArgumentException thrown if the serial isn't valid.
+     * @throws IllegalStateException thrown if the person already has a
+     *                               different license, or someone else
+     *                               has the number.
+     */
+    DrivingLicense restore(Person person, int issueDay, String serial, boolean fullLicense) {
+        if (serial == null || serial.isEmpty() || serial.indexOf('-') >= 0)
+            throw new IllegalArgumentException("Not a valid serial: " + serial);
+        expunge();
+
+        Key key = new Key(person);
+        while (true) {
+            Entry entry = byOwner.get(key);
+            DrivingLicense license = entry == null ? null : entry.get();
+            if (license != null) {
+                if (!(license.getThirdComponent().equals(serial) && license.getIssueDay() == issueDay
+                        && license.isFullLicense() == fullLicense))
+                    throw new IllegalStateException("Already has a different license: " + entry.number);
+                return license;
+            }
+            if (entry != null) {
+                remove(entry);
+                continue;
+            }
+
+            DrivingLicense restored = new DrivingLicense(person, issueDay, serial, fullLicense);
+            Entry fresh = new Entry(restored, key, collected);
+            Entry taken = byNumber.putIfAbsent(fresh.number, fresh);
+            if (taken != null) {
+                if (taken.get() == null) {
+                    remove(taken);
+                    continue;
+                }
+                // another thread may be restoring the same person
+                if (taken.key.equals(key))
+                    continue;
+                throw new IllegalStateException("License number is already in use: " + fresh.number);
+            }
+
+            if (byOwner.putIfAbsent(key, fresh) != null) {
+                byNumber.remove(fresh.number, fresh);
+                continue;
+            }
+
+            serials.reserved(serial);
+            registered(fresh);
+            return restored;
+        }
+    }
+
+    /**
+     * Get the allocator that gives out the serials of new licenses.
+     *
+     * @return the allocator.
+     */
+    public SerialAllocator getSerialAllocator() {
+        return serials;
+    }
+
+    /**
+     * Set the allocator that gives out the serials of new licenses.
+     *
+     * @param serials   the allocator.
+     */
+    public void setSerialAllocator(SerialAllocator serials) {
+        if (serials == null)
+            throw new IllegalArgumentException("The serial allocator cannot be null");
+
+        this.serials = serials;
+    }
+
+    /**
+     * Get the license of a {@code Person}.
+     *
+     * @param person    the {@code Person}.
+     * @return their license, or null if they don't have one.
+     */
+    public DrivingLicense get(Person person) {
+        if (person == null)
+            throw new IllegalArgumentException("The Person cannot be a null object");
+
+        Entry entry = byOwner.get(new Key(person));
+        return entry == null ? null : entry.get();
+    }
+
+    /**
+     * Get a license by its number, the license without whether
+     * it's full, such as "JC-2011-42".
+     *
+     * @param number    the license number.
+     * @return the license, or null if there isn't one with the number
+     * or it has been collected.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#getNumber()
+     */
+    public DrivingLicense getByNumber(String number) {
+        if (number == null)
+            throw new IllegalArgumentException("The number cannot be null");
+
+        Entry entry = byNumber.get(number);
+        return entry == null ? null : entry.get();
+    }
+
+    /**
+     * Remove the license of a {@code Person}, they will be given
+     * a new license the next time it's asked for.
+     *
+     * @param person    the {@code Person}.
+     * @return true if they had a license.
+     */
+    public boolean evict(Person person) {
+        if (person == null)
+            throw new IllegalArgumentException("The Person cannot be a null object");
+
+        Entry entry = byOwner.remove(new Key(person));
+        if (entry == null)
+            return false;
+        byNumber.remove(entry.number, entry);
+        return true;
+    }
+
+    /**
+     * Get the number of licenses registered, once the licenses
+     * that have been collected are removed.
+     *
+     * @return the number of licenses.
+     */
+    public int size() {
+        expunge();
+        return byOwner.size();
+    }
+
+    /**
+     * Get the maximum number of licenses that are kept.
+     *
+     * @return the maximum size.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Set the maximum number of licenses that are kept, evicting
+     * the oldest licenses if there are more.
+     *
+     * @param maximumSize   the maximum size, at least 1.
+     * @throws IllegalArgumentException thrown if the size isn't positive.
+     */
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+        this.maximumSize = maximumSize;
+        if (byOwner.size() > maximumSize)
+            evict();
+    }
+
+    /**
+     * Get the next serial from the allocator.
+     *
+     * @throws IllegalStateException thrown if the serial isn't valid.
+     */
+    private String nextSerial() {
+        String serial = serials.next();
+        if (serial == null || serial.isEmpty() || serial.indexOf('-') >= 0)
+            throw new IllegalStateException("Not a valid serial: " + serial);
+        return serial;
+    }
+
+    /**
+     * Queue a newly registered entry for eviction, evicting
+     * if the registry has grown past its maximum size, or if
+     * the queue holds too many entries that have gone.
+     */
+    private void registered(Entry entry) {
+        registered.add(entry);
+        int size = byOwner.size();
+        if (size > maximumSize || queued.incrementAndGet() > 2 * size + EVICTION_SLACK)
+            evict();
+    }
+
+    /**
+     * Remove the entries whose license has been collected.
+     */
+    private void expunge() {
+        for (Reference<? extends DrivingLicense> ref; (ref = collected.poll()) != null; )
+            remove((Entry) ref);
+    }
+
+    private void remove(Entry entry) {
+        byOwner.remove(entry.key, entry);
+        byNumber.remove(entry.number, entry);
+    }
+
+    /**
+     * Evict the oldest licenses, leaving some room under the maximum
+     * size, then drop the queued entries that have already gone, so
+     * the queue is never much larger than the registry. Only one
+     * thread evicts at a time, the others carry on.
+     */
+    private void evict() {
+        if (!(evicting.compareAndSet(false, true)))
+            return;
+        try {
+            int maximum = maximumSize;
+            int target = maximum - maximum / EVICTION_SLACK;
+            Entry oldest;
+            while (byOwner.size() > target && (oldest = registered.poll()) != null) {
+                queued.decrementAndGet();
+                remove(oldest);
+            }
+
+            if (queued.get() > 2 * byOwner.size() + EVICTION_SLACK) {
+                int gone = 0;
+                for (Iterator<Entry> it = registered.iterator(); it.hasNext(); ) {
+                    Entry entry = it.next();
+                    if (byOwner.get(entry.key) != entry) {
+                        it.remove();
+                        gone++;
+                    }
+                }
+                queued.addAndGet(-gone);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Identifies a {@code Person} without referring to them, so
+     * the registry doesn't keep the owner of a license alive.
+     */
+    private static final class Key {
+        private final String firstName;
+        private final String lastName;
+        private final int birthDay;
+        private final int hash;
+
+        private Key(Person person) {
+            this.firstName = person.getFirstName();
+            this.lastName = person.getLastName();
+            this.birthDay = person.getBirthDay();
+            this.hash = person.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return hash == key.hash &&
+                    birthDay == key.birthDay &&
+                    firstName.equals(key.firstName) &&
+                    lastName.equals(key.lastName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A weakly held license and what it's registered under,
+     * queued once the license has been collected.
+     */
+    private static final class Entry extends WeakReference<DrivingLicense> {
+        private final Key key;
+        private final String number;
+
+        private Entry(DrivingLicense license, Key key, ReferenceQueue<DrivingLicense> collected) {
+            super(license, collected);
+            this.key = key;
+            this.number = license.getNumber();
+        }
+    }
+}
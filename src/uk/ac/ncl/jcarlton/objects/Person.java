@@ -1,7 +1,8 @@
 package uk.ac.ncl.jcarlton.objects;
 
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -9,6 +10,10 @@ import java.util.Date;
  *
  * Represents an immutable person.
  *
+ * The date of birth is held as an epoch day and the hash is
+ * worked out once, so comparing and hashing people, which
+ * every map keyed by a {@code Person} does, doesn't allocate.
+ *
  * @author Jonathan Carlton
  */
 public final class Person {
@@ -16,7 +21,8 @@ public final class Person {
     // final member variables
     private final String firstName;
     private final String lastName;
-    private final Date dateOfBirth;
+    private final int birthDay;
+    private final int hash;
     private final DrivingLicense license;
 
 
@@ -32,20 +38,74 @@ public final class Person {
      *                                  as part of the construction.
      */
     public Person(String firstName, String lastName, Date dateOfBirth, boolean fullLicense, Date licenseIssue) {
+        this(firstName, lastName, epochDay(dateOfBirth, "Date of Birth cannot be null."), fullLicense,
+                epochDay(licenseIssue, "The license issue date cannot be null."));
+    }
+
+    /**
+     * Create a person from a first name, last name and a date of birth,
+     * with the dates given as epoch days.
+     *
+     * @param firstName   The first name of the person.
+     * @param lastName    The last name of the person.
+     * @param birthDay    The date of birth of the person, as an epoch day.
+     * @param fullLicense if the license is full or not
+     * @param licenseDay  when the license was issued, as an epoch day.
+     * @throws IllegalArgumentException Thrown if a null or empty name is passed
+     *                                  as part of the construction.
+     * @see uk.ac.ncl.jcarlton.util.EpochDays
+     */
+    public Person(String firstName, String lastName, int birthDay, boolean fullLicense, int licenseDay) {
+        this(firstName, lastName, birthDay, fullLicense, licenseDay, null);
+    }
+
+    /**
+     * Create a person, restoring their license with a given serial
+     * if there is one.
+     *
+     * @param serial    the serial of the license, or null to find or
+     *                  create the license as usual.
+     */
+    private Person(String firstName, String lastName, int birthDay, boolean fullLicense, int licenseDay,
+                   String serial) {
         if (firstName == null || firstName.trim().isEmpty())
             throw new IllegalArgumentException("First name cannot be null or an empty string.");
         if (lastName == null || lastName.trim().isEmpty())
             throw new IllegalArgumentException("Last name cannot be null or an empty string.");
-        if (dateOfBirth == null)
-            throw new IllegalArgumentException("Date of Birth cannot be null.");
-        if (licenseIssue == null)
-            throw new IllegalArgumentException("The license issue date cannot be null.");
 
         // trim the parameters to remove whitespace
         this.firstName = firstName.trim();
         this.lastName = lastName.trim();
-        this.dateOfBirth = new Date(dateOfBirth.getTime());
-        this.license = generateLicense(fullLicense, licenseIssue);
+        this.birthDay = birthDay;
+        this.hash = hash(this.firstName, this.lastName, birthDay);
+        this.license = generateLicense(fullLicense, licenseDay, serial);
+    }
+
+    /**
+     * Restore a person along with the exact license they had,
+     * such as one read back from a journal or a snapshot, so
+     * their license number is the same as before.
+     *
+     * @param firstName   The first name of the person.
+     * @param lastName    The last name of the person.
+     * @param birthDay    The date of birth of the person, as an epoch day.
+     * @param fullLicense if the license is full or not
+     * @param licenseDay  when the license was issued, as an epoch day.
+     * @param serial      the serial of the license.
+     * @return the person.
+     * @throws IllegalArgumentException Thrown if a null or empty name or serial
+     *                                  is passed.
+     * @throws IllegalStateException Thrown if an equal person already has a
+     *                               different license, or someone else has
+     *                               the license number.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#getThirdComponent()
+     */
+    public static Person restore(String firstName, String lastName, int birthDay, boolean fullLicense,
+                                 int licenseDay, String serial) {
+        if (serial == null)
+            throw new IllegalArgumentException("The serial cannot be null.");
+
+        return new Person(firstName, lastName, birthDay, fullLicense, licenseDay, serial);
     }
 
     /**
@@ -53,11 +113,30 @@ public final class Person {
      * parameters passed to the object constructor.
      *
      * @param full if the license is full or not
-     * @param licenseIssue when the license was issued
+     * @param licenseDay when the license was issued
+     * @param serial the serial to restore, or null
      * @return the persons driving license
      */
-    private DrivingLicense generateLicense(boolean full, Date licenseIssue) {
-        return DrivingLicense.getInstance(this, licenseIssue, full);
+    private DrivingLicense generateLicense(boolean full, int licenseDay, String serial) {
+        if (serial != null)
+            return DrivingLicense.restore(this, licenseDay, serial, full);
+        return DrivingLicense.getInstance(this, licenseDay, full);
+    }
+
+    /**
+     * Work out the hash of a person from the fields that identify them.
+     */
+    private static int hash(String firstName, String lastName, int birthDay) {
+        int h = firstName.hashCode();
+        h = 31 * h + lastName.hashCode();
+        h = 31 * h + birthDay;
+        return h;
+    }
+
+    private static int epochDay(Date date, String message) {
+        if (date == null)
+            throw new IllegalArgumentException(message);
+        return EpochDays.of(date);
     }
 
 
@@ -74,9 +153,10 @@ public final class Person {
 
         Person person = (Person) o;
 
-        return getFirstName().equals(person.getFirstName()) &&
-                getLastName().equals(person.getLastName()) &&
-                getDateOfBirth().equals(person.getDateOfBirth());
+        return hash == person.hash &&
+                birthDay == person.birthDay &&
+                firstName.equals(person.firstName) &&
+                lastName.equals(person.lastName);
     }
 
     /**
@@ -84,10 +164,7 @@ public final class Person {
      */
     @Override
     public int hashCode() {
-        int h = getFirstName().hashCode();
-        h = 31 * h + getLastName().hashCode();
-        h = 31 * h + getDateOfBirth().hashCode();
-        return h;
+        return hash;
     }
 
     /**
@@ -95,49 +172,26 @@ public final class Person {
      */
     @Override
     public String toString() {
-        SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy");
-        return firstName + " " + lastName +
-                ":" + format.format(dateOfBirth) +
-                ":" + license.toString();
+        return PersonFormat.format(this, new StringBuilder(48)).toString();
     }
 
     /**
      * Give a {@code String} create a {@code Person}.
      *
      * @see #toString()
+     * @see uk.ac.ncl.jcarlton.objects.PersonParser
      *
      * @param person    the {@code String} representation of the {@code Person}.
      * @return a {@code Person} object.
-     * @throws ParseException   thrown when the date of birth cannot
-     * be parsed by {@code SimpleDateFormat}.
+     * @throws ParseException   thrown when the {@code String} isn't
+     * a {@code Person}.
      */
     public static Person valueOf(String person) throws ParseException {
         // cannot parse an empty or null string.
         if (person == null || person.isEmpty())
             throw new IllegalArgumentException("Cannot parse empty or null string");
 
-        String[] firstSplit = person.split(" ");
-        String[] secondSplit = firstSplit[1].split(":");
-
-        SimpleDateFormat format;
-        format = new SimpleDateFormat("dd/MM/yyyy");
-        Date date = format.parse(secondSplit[1]); // throws ParseException.
-
-
-        String[] thirdSplit = secondSplit[2].split("-");
-        format = new SimpleDateFormat("yyyy");
-        DrivingLicense license = DrivingLicense.getInstance(
-                new Person(
-                        firstSplit[0], // first name
-                        secondSplit[0], // last name
-                        date, // date of birth
-                        Boolean.valueOf(thirdSplit[3]), // full license or not
-                        format.parse(thirdSplit[1]) // license issue
-                ),
-                format.parse(thirdSplit[1]),
-                Boolean.valueOf(thirdSplit[3]));
-
-        return license.getOwner();
+        return PersonParser.parse(person);
     }
 
     /**
@@ -164,8 +218,17 @@ public final class Person {
      * @return The date of birth.
      */
     public Date getDateOfBirth() {
-        // able to safely use the clone() method when using Date
-        return (Date) dateOfBirth.clone();
+        // a new Date each time, so the caller cannot change it
+        return EpochDays.toDate(birthDay);
+    }
+
+    /**
+     * Get the date of birth of the Person object as an epoch day.
+     *
+     * @return The number of days since 1970-01-01.
+     */
+    public int getBirthDay() {
+        return birthDay;
     }
 
     /**
@@ -0,0 +1,260 @@
+package uk.ac.ncl.jcarlton.objects;
+
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * <h1>PersonFormat</h1>
+ *
+ * Writes the {@code String} representation of a {@code Person}
+ * and a {@code DrivingLicense} straight into a caller's buffer:
+ *
+ * "Jonathan Carlton:27/09/1993:JC-2011-42-true"
+ *
+ * Dates are written from their day number using a table of
+ * digit pairs, so no formatter, calendar or intermediate
+ * {@code String} is created. The class holds no state and is
+ * safe to use from any number of threads.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.PersonParser
+ *
+ * @author Jonathan Carlton
+ */
+public final class PersonFormat {
+
+    // the tens and units digit of each number from 0 to 99
+    private static final char[] TENS = new char[100];
+    private static final char[] UNITS = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (char) ('0' + i / 10);
+            UNITS[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private PersonFormat() {
+    }
+
+    /**
+     * Append a {@code Person} to a {@code StringBuilder}.
+     *
+     * @param person    the {@code Person} to write.
+     * @param out       where to write it.
+     * @return the {@code StringBuilder}.
+     * @see uk.ac.ncl.jcarlton.objects.Person#toString()
+     */
+    public static StringBuilder format(Person person, StringBuilder out) {
+        try {
+            format(person, (Appendable) out);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new AssertionError(e);
+        }
+        return out;
+    }
+
+    /**
+     * Append a {@code Person} to an {@code Appendable}.
+     *
+     * @param person    the {@code Person} to write.
+     * @param out       where to write it.
+     * @throws IOException thrown if the {@code Appendable} cannot be written.
+     * @see uk.ac.ncl.jcarlton.objects.Person#toString()
+     */
+    public static void format(Person person, Appendable out) throws IOException {
+        out.append(person.getFirstName()).append(' ').append(person.getLastName()).append(':');
+
+        int ymd = EpochDays.yearMonthDay(person.getBirthDay());
+        appendPair(EpochDays.dayOfMonth(ymd), out);
+        out.append('/');
+        appendPair(EpochDays.month(ymd), out);
+        out.append('/');
+        appendYear(EpochDays.year(ymd), 4, out);
+        out.append(':');
+
+        format(person.getLicense(), out);
+    }
+
+    /**
+     * Append a {@code DrivingLicense} to a {@code StringBuilder}.
+     *
+     * @param license   the {@code DrivingLicense} to write.
+     * @param out       where to write it.
+     * @return the {@code StringBuilder}.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#toString()
+     */
+    public static StringBuilder format(DrivingLicense license, StringBuilder out) {
+        try {
+            format(license, (Appendable) out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out;
+    }
+
+    /**
+     * Append a {@code DrivingLicense} to an {@code Appendable}.
+     *
+     * @param license   the {@code DrivingLicense} to write.
+     * @param out       where to write it.
+     * @throws IOException thrown if the {@code Appendable} cannot be written.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#toString()
+     */
+    public static void format(DrivingLicense license, Appendable out) throws IOException {
+        appendNumber(license, out);
+        out.append('-').append(license.isFullLicense() ? "true" : "false");
+    }
+
+    /**
+     * Append the number of a {@code DrivingLicense}, without whether
+     * it's full, to a {@code StringBuilder}.
+     *
+     * @param license   the {@code DrivingLicense} to write.
+     * @param out       where to write it.
+     * @return the {@code StringBuilder}.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#getNumber()
+     */
+    public static StringBuilder formatNumber(DrivingLicense license, StringBuilder out) {
+        try {
+            appendNumber(license, out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out;
+    }
+
+    private static void appendNumber(DrivingLicense license, Appendable out) throws IOException {
+        out.append(license.getFirstComponent()).append('-');
+        appendYear(issueYear(license), 1, out);
+        out.append('-').append(license.getThirdComponent());
+    }
+
+    /**
+     * Write a {@code Person} to a {@code ByteBuffer} as UTF-8.
+     *
+     * @param person    the {@code Person} to write.
+     * @param out       where to write it, from its position.
+     * @return the {@code ByteBuffer}.
+     * @throws java.nio.BufferOverflowException thrown if there isn't room.
+     * @see uk.ac.ncl.jcarlton.objects.Person#toString()
+     */
+    public static ByteBuffer format(Person person, ByteBuffer out) {
+        putUTF8(person.getFirstName(), out);
+        out.put((byte) ' ');
+        putUTF8(person.getLastName(), out);
+        out.put((byte) ':');
+
+        int ymd = EpochDays.yearMonthDay(person.getBirthDay());
+        putPair(EpochDays.dayOfMonth(ymd), out);
+        out.put((byte) '/');
+        putPair(EpochDays.month(ymd), out);
+        out.put((byte) '/');
+        putYear(EpochDays.year(ymd), 4, out);
+        out.put((byte) ':');
+
+        return format(person.getLicense(), out);
+    }
+
+    /**
+     * Write a {@code DrivingLicense} to a {@code ByteBuffer} as UTF-8.
+     *
+     * @param license   the {@code DrivingLicense} to write.
+     * @param out       where to write it, from its position.
+     * @return the {@code ByteBuffer}.
+     * @throws java.nio.BufferOverflowException thrown if there isn't room.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#toString()
+     */
+    public static ByteBuffer format(DrivingLicense license, ByteBuffer out) {
+        putUTF8(license.getFirstComponent(), out);
+        out.put((byte) '-');
+        putYear(issueYear(license), 1, out);
+        out.put((byte) '-');
+        putUTF8(license.getThirdComponent(), out);
+        out.put((byte) '-');
+        putUTF8(license.isFullLicense() ? "true" : "false", out);
+        return out;
+    }
+
+    private static int issueYear(DrivingLicense license) {
+        return EpochDays.year(EpochDays.yearMonthDay(license.getIssueDay()));
+    }
+
+    private static void appendPair(int value, Appendable out) throws IOException {
+        out.append(TENS[value]).append(UNITS[value]);
+    }
+
+    /**
+     * Append a year, padded with zeros to a minimum number of digits.
+     */
+    private static void appendYear(int year, int minDigits, Appendable out) throws IOException {
+        if (year < 0) {
+            out.append('-');
+            year = -year;
+        }
+        int digits = Math.max(minDigits, digits(year));
+        for (int place = pow10(digits - 1); place > 0; place /= 10)
+            out.append((char) ('0' + year / place % 10));
+    }
+
+    private static void putPair(int value, ByteBuffer out) {
+        out.put((byte) TENS[value]).put((byte) UNITS[value]);
+    }
+
+    private static void putYear(int year, int minDigits, ByteBuffer out) {
+        if (year < 0) {
+            out.put((byte) '-');
+            year = -year;
+        }
+        int digits = Math.max(minDigits, digits(year));
+        for (int place = pow10(digits - 1); place > 0; place /= 10)
+            out.put((byte) ('0' + year / place % 10));
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int pow10(int exponent) {
+        int value = 1;
+        for (int i = 0; i < exponent; i++)
+            value *= 10;
+        return value;
+    }
+
+    /**
+     * Encode characters as UTF-8 without creating a byte array.
+     */
+    private static void putUTF8(CharSequence chars, ByteBuffer out) {
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars.length()
+                    && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, chars.charAt(++i));
+                out.put((byte) (0xF0 | code >> 18));
+                out.put((byte) (0x80 | code >> 12 & 0x3F));
+                out.put((byte) (0x80 | code >> 6 & 0x3F));
+                out.put((byte) (0x80 | code & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired, written as '?' the same as String.getBytes()
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+}
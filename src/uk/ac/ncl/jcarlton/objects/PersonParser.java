@@ -0,0 +1,128 @@
+package uk.ac.ncl.jcarlton.objects;
+
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.text.ParseException;
+
+/**
+ * <h1>PersonParser</h1>
+ *
+ * Parses the {@code String} representation of a {@code Person},
+ * as given by {@code Person.toString()}:
+ *
+ * "Jonathan Carlton:27/09/1993:JC-2011-42-true"
+ *
+ * The characters are scanned once, by hand, so the only objects
+ * created are the names and the dates that make up the
+ * {@code Person}. Any region of a {@code CharSequence} can be
+ * parsed, such as a single line of a larger buffer.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.Person#valueOf(String)
+ *
+ * @author Jonathan Carlton
+ */
+public final class PersonParser {
+
+    private PersonParser() {
+    }
+
+    /**
+     * Parse a whole {@code CharSequence}.
+     *
+     * @param chars the characters to parse.
+     * @return the {@code Person}.
+     * @throws ParseException thrown if the characters aren't a {@code Person}.
+     * @see #parse(CharSequence, int, int)
+     */
+    public static Person parse(CharSequence chars) throws ParseException {
+        return parse(chars, 0, chars.length());
+    }
+
+    /**
+     * Parse a region of a {@code CharSequence}.
+     *
+     * @param chars the characters to parse.
+     * @param start the index of the first character.
+     * @param end   the index after the last character.
+     * @return the {@code Person}, which owns the stored driving license
+     * if one already exists for them.
+     * @throws ParseException thrown if the characters aren't a {@code Person},
+     * the error offset is the index where parsing stopped.
+     */
+    public static Person parse(CharSequence chars, int start, int end) throws ParseException {
+        // first name, up to the first space
+        int space = indexOf(chars, ' ', start, end);
+        int colon = indexOf(chars, ':', space + 1, end);
+        String firstName = chars.subSequence(start, space).toString();
+        String lastName = chars.subSequence(space + 1, colon).toString();
+
+        // date of birth, dd/MM/yyyy
+        int at = colon + 1;
+        int slash = indexOf(chars, '/', at, end);
+        int day = number(chars, at, slash);
+        at = slash + 1;
+        slash = indexOf(chars, '/', at, end);
+        int month = number(chars, at, slash);
+        at = slash + 1;
+        colon = indexOf(chars, ':', at, end);
+        int year = number(chars, at, colon);
+        int birthDay = EpochDays.of(year, month, day);
+
+        // license, initials-year-serial-full
+        at = indexOf(chars, '-', colon + 1, end) + 1;
+        int dash = indexOf(chars, '-', at, end);
+        int licenseDay = EpochDays.of(number(chars, at, dash), 1, 1);
+        at = indexOf(chars, '-', dash + 1, end) + 1;
+        boolean fullLicense = isTrue(chars, at, end);
+
+        try {
+            // the constructor fetches any stored license, whose owner is the stored person
+            return new Person(firstName, lastName, birthDay, fullLicense, licenseDay).getLicense().getOwner();
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage(), start);
+        }
+    }
+
+    /**
+     * Find the next occurrence of a character.
+     * @throws ParseException thrown if the character isn't found.
+     */
+    private static int indexOf(CharSequence chars, char c, int from, int end) throws ParseException {
+        for (int i = from; i < end; i++) {
+            if (chars.charAt(i) == c)
+                return i;
+        }
+        throw new ParseException("Expected '" + c + "'", end);
+    }
+
+    /**
+     * Read a non-empty run of digits.
+     * @throws ParseException thrown if there is anything other than digits.
+     */
+    private static int number(CharSequence chars, int from, int to) throws ParseException {
+        if (from == to || to - from > 9)
+            throw new ParseException("Expected a number", from);
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = chars.charAt(i);
+            if (c < '0' || c > '9')
+                throw new ParseException("Expected a digit", i);
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Check if the region is "true", ignoring case, the same
+     * as {@code Boolean.valueOf()}.
+     */
+    private static boolean isTrue(CharSequence chars, int from, int to) {
+        if (to - from != 4)
+            return false;
+        return Character.toLowerCase(chars.charAt(from)) == 't'
+                && Character.toLowerCase(chars.charAt(from + 1)) == 'r'
+                && Character.toLowerCase(chars.charAt(from + 2)) == 'u'
+                && Character.toLowerCase(chars.charAt(from + 3)) == 'e';
+    }
+}
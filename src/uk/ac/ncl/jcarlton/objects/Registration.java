@@ -1,8 +1,5 @@
 package uk.ac.ncl.jcarlton.objects;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * <h1>Registration</h1>
  *
@@ -11,70 +8,123 @@ import java.util.Map;
  * This class enforces uniqueness, to ensure that
  * no two registrations can be the same.
  *
+ * Internally the registration is packed into a single
+ * {@code long}, one byte per character, so that looking up
+ * an existing registration doesn't need to build any
+ * {@code String}s.
+ *
  * @author Jonathan Carlton
  */
 public final class Registration {
 
-    // state member variables
-    private final String firstComponent;
-    private final String secondComponent;
+    // the seven characters of the registration, one per byte.
+    private final long packed;
 
-    // store all the registrations, to ensure uniqueness.
-    private static final Map<String, Registration> REGISTRATION_MAP = new HashMap<>();
+    // store all the registrations, to ensure uniqueness, striped so
+    // that registrations can be created from many threads at once.
+    private static final InternTable[] REGISTRATION_TABLES = new InternTable[64];
+
+    static {
+        for (int i = 0; i < REGISTRATION_TABLES.length; i++)
+            REGISTRATION_TABLES[i] = new InternTable();
+    }
 
     /**
      * Private object constructor.
      *
-     * Create a {@code Registration} from two components, the first being
-     * a String that is 2 letters followed by 2 digits and the
-     * second being another {@code String} that is 3 letters.
+     * Create a {@code Registration} from its packed value, which
+     * has already been validated by {@code pack()}.
      *
-     * "NG57 HXE".
+     * @param packed    the packed characters of the registration.
+     */
+    private Registration(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Static factory method to either create a new {@code Registration} or
+     * fetch a previously created one.
      *
-     * @param first     first component of the registration.
-     * @param second     second component of the registration.
-     * @throws IllegalArgumentException     thrown when the lengths of the
-     * variables are incorrect or, if they are null or, if they are empty, or
-     * if they don't meet the regex patterns.
+     * @param first     the first component of the {@code Registration}.
+     * @param second    the second component of the {@code Registration}.
+     * @return          a registration object, either new or one
+     *                  that was previously created.
+     * @throws IllegalArgumentException thrown when the first component isn't
+     * 2 letters followed by 2 digits, or the second component isn't 3 letters.
+     * @throws NullPointerException thrown if either component is null.
      */
-    private Registration(String first, String second) {
-        // regex to ensure that the first component matches the two letters two digits pattern.
-        if (!(first.matches("[a-zA-Z]{2}[0-9]{2}")))
+    public static Registration getInstance(CharSequence first, CharSequence second) {
+        long head = packFirst(first, 0, first.length());
+        if (head < 0)
             throw new IllegalArgumentException("The first component has to be 2 letters followed by 2 digits.");
-        if (first == null || first.isEmpty() || first.trim().isEmpty())
-            throw new IllegalArgumentException("First component cannot be null or an empty string");
 
-        // regex to ensure that the second component is three letters.
-        if (!(second.matches("[a-zA-Z]{3}")))
+        long tail = packSecond(second, 0, second.length());
+        if (tail < 0)
             throw new IllegalArgumentException("The second component can only contain 3 letters");
-        if (second == null || second.isEmpty() || second.trim().isEmpty())
-            throw new IllegalArgumentException("Third component cannot be null or an empty string");
 
-        // trim (to remove leading/trailing whitespace) the strings and make upperCase.
-        this.firstComponent = first.trim().toUpperCase();
-        this.secondComponent = second.trim().toUpperCase();
+        return intern(head << 24 | tail);
     }
 
     /**
      * Static factory method to either create a new {@code Registration} or
-     * fetch a previously created one.
+     * fetch a previously created one, from the whole registration, for example
+     * "NG57 HXE" or "NG57HXE".
      *
-     * @param first     the first component of the {@code Registration}.
-     * @param second    the second component of the {@code Registration}.
+     * @param registration  the registration.
+     * @return              a registration object, either new or one
+     *                      that was previously created.
+     * @throws IllegalArgumentException thrown when the registration isn't
+     * 2 letters, 2 digits and then 3 letters.
+     * @throws NullPointerException thrown if the registration is null.
+     */
+    public static Registration getInstance(CharSequence registration) {
+        long packed = pack(registration, 0, registration.length());
+        if (packed < 0)
+            throw new IllegalArgumentException("Invalid registration: " + registration);
+        return intern(packed);
+    }
+
+    /**
+     * Static factory method to either create a new {@code Registration} or
+     * fetch a previously created one, from its packed value.
+     *
+     * @param packed    the packed value of the registration.
      * @return          a registration object, either new or one
      *                  that was previously created.
-     * @throws IllegalArgumentException thrown when the object is being created.
+     * @throws IllegalArgumentException thrown when the value isn't
+     * a packed registration.
+     * @see #getPackedValue()
      */
-    public static Registration getInstance(String first, String second) {
-        final String check = first.toUpperCase() + " " + second.toUpperCase();
+    public static Registration getInstance(long packed) {
+        // byte 6 down to 0: two letters, two digits then three letters
+        boolean valid = packed >>> 56 == 0;
+        for (int i = 6; i >= 0 && valid; i--) {
+            int c = (int) (packed >>> (8 * i)) & 0xFF;
+            valid = i == 4 || i == 3 ? c >= '0' && c <= '9' : c >= 'A' && c <= 'Z';
+        }
+        if (!valid)
+            throw new IllegalArgumentException("Invalid packed registration: " + packed);
+        return intern(packed);
+    }
 
-        // if the map doesn't contain the registration key.
-        if (!(REGISTRATION_MAP.containsKey(check)))
-            // create a new registration and add it to the map.
-            REGISTRATION_MAP.put(check, new Registration(first, second));
+    /**
+     * Pack the registration held in a region of a {@code CharSequence},
+     * either "NG57 HXE" or "NG57HXE", without creating any objects.
+     *
+     * @param chars the characters to read.
+     * @param start the index of the first character.
+     * @param end   the index after the last character.
+     * @return the packed registration, or -1 if the
+     * characters aren't a valid registration.
+     */
+    public static long pack(CharSequence chars, int start, int end) {
+        int length = end - start;
+        if (length != 7 && !(length == 8 && chars.charAt(start + 4) == ' '))
+            return -1;
 
-        // then return the newly created or previously stored registration.
-        return REGISTRATION_MAP.get(check);
+        long head = packFirst(chars, start, start + 4);
+        long tail = packSecond(chars, end - 3, end);
+        return head < 0 || tail < 0 ? -1 : head << 24 | tail;
     }
 
     /**
@@ -82,7 +132,7 @@ public final class Registration {
      */
     @Override
     public String toString() {
-        return firstComponent + " " + secondComponent;
+        return getFirstComponent() + " " + getSecondComponent();
     }
 
 
@@ -91,7 +141,7 @@ public final class Registration {
      * @return  the first component.
      */
     public String getFirstComponent() {
-        return firstComponent;
+        return unpack(packed >>> 24, 4);
     }
 
 
@@ -100,6 +150,141 @@ public final class Registration {
      * @return  the third component.
      */
     public String getSecondComponent() {
-        return secondComponent;
+        return unpack(packed, 3);
+    }
+
+    /**
+     * Get the packed value of the registration, each
+     * registration has a different packed value.
+     * @return  the packed value.
+     * @see #pack(CharSequence, int, int)
+     */
+    public long getPackedValue() {
+        return packed;
+    }
+
+    /**
+     * Pack two letters followed by two digits.
+     * @return the packed characters, or -1 if they don't match.
+     */
+    private static long packFirst(CharSequence chars, int start, int end) {
+        if (end - start != 4)
+            return -1;
+        long a = letter(chars.charAt(start));
+        long b = letter(chars.charAt(start + 1));
+        long c = digit(chars.charAt(start + 2));
+        long d = digit(chars.charAt(start + 3));
+        if ((a | b | c | d) < 0)
+            return -1;
+        return a << 24 | b << 16 | c << 8 | d;
+    }
+
+    /**
+     * Pack three letters.
+     * @return the packed characters, or -1 if they don't match.
+     */
+    private static long packSecond(CharSequence chars, int start, int end) {
+        if (end - start != 3)
+            return -1;
+        long a = letter(chars.charAt(start));
+        long b = letter(chars.charAt(start + 1));
+        long c = letter(chars.charAt(start + 2));
+        if ((a | b | c) < 0)
+            return -1;
+        return a << 16 | b << 8 | c;
+    }
+
+    private static int letter(char c) {
+        if (c >= 'a' && c <= 'z')
+            return c - ('a' - 'A');
+        return c >= 'A' && c <= 'Z' ? c : -1;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c : -1;
+    }
+
+    /**
+     * Fetch or create the registration with a packed value, from
+     * the stripe of the table the value hashes to.
+     */
+    private static Registration intern(long packed) {
+        int stripe = InternTable.hash(packed) >>> 26;
+        return REGISTRATION_TABLES[stripe].intern(packed);
+    }
+
+    private static String unpack(long bytes, int count) {
+        char[] chars = new char[count];
+        for (int i = count - 1; i >= 0; i--, bytes >>>= 8)
+            chars[i] = (char) (bytes & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Open-addressing table of every registration, keyed on the
+     * packed value.
+     * <p>
+     * Lookups don't take a lock or allocate, they probe the current
+     * array directly. A miss falls back to a synchronized insert,
+     * which checks again before creating the registration so that
+     * each packed value only ever has one {@code Registration}.
+     * <p>
+     * The slot is picked from the low bits of the hash, the stripe
+     * from the top six, so each stripe still uses its whole array.
+     */
+    private static final class InternTable {
+
+        private volatile Registration[] slots = new Registration[64];
+        private int size;
+
+        Registration intern(long packed) {
+            Registration found = find(slots, packed);
+            return found != null ? found : insert(packed);
+        }
+
+        private synchronized Registration insert(long packed) {
+            Registration[] table = slots;
+            Registration found = find(table, packed);
+            if (found != null)
+                return found;
+
+            // keep the table at most half full
+            if (2 * (size + 1) > table.length) {
+                Registration[] grown = new Registration[table.length * 2];
+                for (Registration r : table) {
+                    if (r != null)
+                        grown[free(grown, r.packed)] = r;
+                }
+                table = grown;
+            }
+
+            Registration created = new Registration(packed);
+            table[free(table, packed)] = created;
+            size++;
+            slots = table;
+            return created;
+        }
+
+        private static Registration find(Registration[] table, long packed) {
+            int mask = table.length - 1;
+            for (int i = hash(packed) & mask; ; i = (i + 1) & mask) {
+                Registration r = table[i];
+                if (r == null || r.packed == packed)
+                    return r;
+            }
+        }
+
+        private static int free(Registration[] table, long packed) {
+            int mask = table.length - 1;
+            int i = hash(packed) & mask;
+            while (table[i] != null)
+                i = (i + 1) & mask;
+            return i;
+        }
+
+        private static int hash(long packed) {
+            long h = packed * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
     }
 }
@@ -0,0 +1,187 @@
+package uk.ac.ncl.jcarlton.objects;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h1>SequenceSerialAllocator</h1>
+ *
+ * Gives out serials in sequence, as decimal numbers padded with
+ * zeros to a width, so no serial is ever given out twice.
+ *
+ * The default allocator pads to two digits, the serials licenses
+ * have always had, and goes on to three digits and more after
+ * {@code 99}. An allocator made with a width only gives out serials
+ * of exactly that width.
+ *
+ * Serials are given out from a few stripes, each holding a block
+ * taken from a shared counter, and a thread uses the stripe picked
+ * by its id. Threads only touch the counter once per block, and a
+ * thread that lives for a single license, such as a virtual thread
+ * per request, leaves the rest of the block to the next thread.
+ * Serials are therefore unique but not in order across threads.
+ *
+ * @author Jonathan Carlton
+ */
+public final class SequenceSerialAllocator implements SerialAllocator {
+
+    // the number of digits a serial is padded to by default
+    private static final int DEFAULT_WIDTH = 2;
+
+    // the number of serials a stripe takes at once by default
+    private static final int DEFAULT_BLOCK_SIZE = 64;
+
+    // the most stripes, so at most this many blocks are part used
+    private static final int MAX_STRIPES = 64;
+
+    private final int width;
+    private final int blockSize;
+    private final long limit;
+    private final AtomicLong counter;
+    private final Stripe[] stripes;
+
+    /**
+     * Create an allocator with the default width and block size,
+     * whose serials grow past the width once it's used up.
+     */
+    public SequenceSerialAllocator() {
+        this(DEFAULT_WIDTH, DEFAULT_BLOCK_SIZE, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create an allocator.
+     *
+     * @param width     the number of digits in each serial, from 1 to 18.
+     * @param blockSize the number of serials a stripe takes at once.
+     * @param first     the first serial to give out.
+     * @throws IllegalArgumentException thrown if the width or block size is out
+     *                                  of range, or the first serial doesn't fit
+     *                                  the width.
+     */
+    public SequenceSerialAllocator(int width, int blockSize, long first) {
+        this(width, blockSize, first, pow10(width));
+    }
+
+    private SequenceSerialAllocator(int width, int blockSize, long first, long limit) {
+        if (width < 1 || width > 18)
+            throw new IllegalArgumentException("Width must be from 1 to 18: " + width);
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        if (first < 0 || first >= limit)
+            throw new IllegalArgumentException("First serial doesn't fit in " + width + " digits: " + first);
+
+        this.width = width;
+        this.blockSize = blockSize;
+        this.limit = limit;
+        this.counter = new AtomicLong(first);
+
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() && count < MAX_STRIPES)
+            count <<= 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++)
+            stripes[i] = new Stripe();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException thrown if every serial of the width
+     *                               has been given out.
+     */
+    @Override
+    public String next() {
+        Stripe stripe = stripes[stripe(Thread.currentThread())];
+        long serial;
+        synchronized (stripe) {
+            if (stripe.next == stripe.end) {
+                long start = counter.getAndAdd(blockSize);
+                if (start >= limit || start < 0) {
+                    // stop the counter from wrapping on repeated calls
+                    counter.set(limit);
+                    throw new IllegalStateException("Every serial of " + width + " digits has been used.");
+                }
+                stripe.next = start;
+                stripe.end = limit - start > blockSize ? start + blockSize : limit;
+            }
+            serial = stripe.next++;
+        }
+        return format(serial);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A serial this allocator could give out is never given out
+     * once it's been reserved, nor is any serial before it that a
+     * stripe hasn't already taken.
+     */
+    @Override
+    public void reserved(String serial) {
+        int length = serial.length();
+        // only the form format() gives, without extra leading zeros
+        if (length < width || length > 18 || (length > width && serial.charAt(0) == '0'))
+            return;
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = serial.charAt(i);
+            if (c < '0' || c > '9')
+                return;
+            value = value * 10 + (c - '0');
+        }
+        if (value >= limit)
+            return;
+
+        counter.accumulateAndGet(value + 1, Math::max);
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.next <= value && value < stripe.end)
+                    stripe.next = value + 1;
+            }
+        }
+    }
+
+    /**
+     * Get the number of digits each serial is padded to.
+     *
+     * @return the width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    private String format(long serial) {
+        int length = 1;
+        for (long rest = serial / 10; rest > 0; rest /= 10)
+            length++;
+        length = Math.max(length, width);
+
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + serial % 10);
+            serial /= 10;
+        }
+        return new String(digits);
+    }
+
+    // spread thread ids, virtual threads are numbered in sequence
+    private int stripe(Thread thread) {
+        int h = (int) thread.getId() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    private static long pow10(int width) {
+        long power = 1;
+        for (int i = 0; i < width; i++)
+            power *= 10;
+        return power;
+    }
+
+    /**
+     * The serials a stripe has taken and not yet given out.
+     */
+    private static final class Stripe {
+        private long next;
+        private long end;
+    }
+}
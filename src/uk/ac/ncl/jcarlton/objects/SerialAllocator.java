@@ -0,0 +1,37 @@
+package uk.ac.ncl.jcarlton.objects;
+
+/**
+ * <h1>SerialAllocator</h1>
+ *
+ * Gives out the serial numbers of new driving licenses.
+ *
+ * A serial must not be empty or contain a '-', as that
+ * separates the components of a license. The registry
+ * never stores two licenses with the same number, if a
+ * serial has already been used another is asked for.
+ *
+ * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#setSerialAllocator(SerialAllocator)
+ *
+ * @author Jonathan Carlton
+ */
+public interface SerialAllocator {
+
+    /**
+     * Get the next serial, this may be called from many
+     * threads at once.
+     *
+     * @return the serial.
+     */
+    String next();
+
+    /**
+     * A license that already has a serial has been restored,
+     * such as from a journal, so the serial is in use. Does
+     * nothing by default, in which case the registry asks for
+     * another serial if the serial is given out again.
+     *
+     * @param serial    the serial in use.
+     */
+    default void reserved(String serial) {
+    }
+}
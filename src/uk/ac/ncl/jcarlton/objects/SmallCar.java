@@ -46,11 +46,20 @@ public final class SmallCar extends AbstractCar {
             // the car has to be rented in order to drive it.
             throw new IllegalStateException("The car hasn't been rented.");
 
-        // consumes fuel at the rate of 20km per 1 ltr
-        int consumption = kmAmount / CONSUMPTION_RATE;
-
         // then return the amount of used fuel.
-        return useFuel(consumption);
+        return useFuel(fuelRequired(kmAmount));
+    }
+
+    /**
+     * The amount of fuel, in whole litres, that a Small
+     * Car needs to travel a given distance.
+     *
+     * @param kmAmount  the amount of kilometres to travel.
+     * @return          the litres of fuel needed.
+     */
+    public static int fuelRequired(int kmAmount) {
+        // consumes fuel at the rate of 20km per 1 ltr
+        return kmAmount / CONSUMPTION_RATE;
     }
 
     /**
@@ -0,0 +1,147 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.AsyncRentalManagement;
+import uk.ac.ncl.jcarlton.app.EligibilityRules;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.RentalManagement;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link AsyncRentalManagement}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class AsyncRentalManagementTest {
+
+    private FleetStore fleet;
+    private RentalManagement management;
+    private AsyncRentalManagement async;
+
+    /**
+     * Setup a fleet of small cars and the facade.
+     */
+    @Before
+    public void setUp() {
+        fleet = new FleetStore();
+        for (int i = 10; i < 60; i++)
+            fleet.add(new SmallCar(Registration.getInstance("AR" + i + "SML")));
+        management = new RentalManagement(fleet, EligibilityRules.standard(EpochDayClock.fixed(EpochDays.of(2016, 6, 1))));
+        async = AsyncRentalManagement.create(management, 8);
+    }
+
+    /**
+     * Stop the facade.
+     */
+    @After
+    public void tearDown() {
+        async.close();
+    }
+
+    /**
+     * Test that many cars can be issued and returned at once.
+     *
+     * @throws Exception thrown if a call fails.
+     * @see uk.ac.ncl.jcarlton.app.AsyncRentalManagement#issueCar(Person, DrivingLicense, Car)
+     */
+    @Test
+    public void issueAndTerminate() throws Exception {
+        List<Person> people = new ArrayList<>();
+        List<CompletableFuture<Boolean>> issued = new ArrayList<>();
+        for (Car car : fleet.cars()) {
+            Person person = new Person("Async", "Renter" + people.size(), new GregorianCalendar(1970, 1, 1).getTime(),
+                    true, new GregorianCalendar(1990, 1, 1).getTime());
+            people.add(person);
+            issued.add(async.issueCar(person, person.getLicense(), car));
+        }
+        for (CompletableFuture<Boolean> future : issued)
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+
+        assertEquals(0, (int) async.availableCars(SmallCar.class).get());
+        assertEquals(50, async.getRentedCars().get().size());
+        assertNotNull(async.getCar(people.get(0)).get());
+
+        List<CompletableFuture<Integer>> terminated = new ArrayList<>();
+        for (Person person : people)
+            terminated.add(async.terminateRental(person));
+        for (CompletableFuture<Integer> future : terminated)
+            assertEquals(0, (int) future.get(10, TimeUnit.SECONDS));
+        assertEquals(50, management.availableCars(SmallCar.class));
+    }
+
+    /**
+     * Test that an operation that throws completes its future exceptionally.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.AsyncRentalManagement#getCar(Person)
+     */
+    @Test
+    public void getCarFails() throws InterruptedException {
+        Person person = new Person("Async", "Walker", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+        try {
+            async.getCar(person).get();
+            fail("Person isn't renting a car");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    /**
+     * Test that a call waits once the bound of calls are in flight,
+     * and carries on once one of them finishes.
+     *
+     * @throws Exception thrown if a call fails.
+     * @see uk.ac.ncl.jcarlton.app.AsyncRentalManagement#inFlight()
+     */
+    @Test
+    public void boundedInFlight() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // hold up the executor's only thread, so calls stay in flight
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        final AsyncRentalManagement bounded = new AsyncRentalManagement(management, executor, 2);
+        try {
+            CompletableFuture<Integer> first = bounded.availableCars(SmallCar.class);
+            CompletableFuture<Integer> second = bounded.availableCars(SmallCar.class);
+            assertEquals(2, bounded.inFlight());
+
+            CompletableFuture<Integer> third = CompletableFuture.supplyAsync(() -> bounded.availableCars(SmallCar.class))
+                    .thenCompose(call -> call);
+            Thread.sleep(100);
+            assertFalse(third.isDone());
+
+            release.countDown();
+            assertEquals(50, (int) first.get(10, TimeUnit.SECONDS));
+            assertEquals(50, (int) second.get(10, TimeUnit.SECONDS));
+            assertEquals(50, (int) third.get(10, TimeUnit.SECONDS));
+            assertEquals(0, bounded.inFlight());
+        } finally {
+            release.countDown();
+            bounded.close();
+        }
+    }
+}
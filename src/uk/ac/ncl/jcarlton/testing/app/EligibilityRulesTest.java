@@ -0,0 +1,79 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.EligibilityRules;
+import uk.ac.ncl.jcarlton.app.RentalOutcome;
+import uk.ac.ncl.jcarlton.objects.Car;
+import uk.ac.ncl.jcarlton.objects.LargeCar;
+import uk.ac.ncl.jcarlton.objects.SmallCar;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <h1>JUnit test class for {@link EligibilityRules}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class EligibilityRulesTest {
+
+    private EligibilityRules rules;
+    private int today;
+
+    /**
+     * Setup the rules with a clock fixed on 2020-06-15.
+     */
+    @Before
+    public void setUp() {
+        today = EpochDays.of(2020, 6, 15);
+        rules = EligibilityRules.standard(EpochDayClock.fixed(today));
+    }
+
+    /**
+     * Test the age limits, a person is old enough from
+     * their birthday onwards.
+     *
+     * @see uk.ac.ncl.jcarlton.app.EligibilityRules#check(Class, int, int)
+     */
+    @Test
+    public void checkAge() {
+        int licensed = EpochDays.of(2010, 1, 1);
+        assertEquals(RentalOutcome.ISSUED, rules.check(SmallCar.class, EpochDays.of(2000, 6, 15), licensed));
+        assertEquals(RentalOutcome.TOO_YOUNG, rules.check(SmallCar.class, EpochDays.of(2000, 6, 16), licensed));
+        assertEquals(RentalOutcome.ISSUED, rules.check(LargeCar.class, EpochDays.of(1995, 6, 15), licensed));
+        assertEquals(RentalOutcome.TOO_YOUNG, rules.check(LargeCar.class, EpochDays.of(1995, 6, 16), licensed));
+    }
+
+    /**
+     * Test the limits on how long the license has been held.
+     *
+     * @see uk.ac.ncl.jcarlton.app.EligibilityRules#check(Class, int, int)
+     */
+    @Test
+    public void checkLicenseHeld() {
+        int born = EpochDays.of(1980, 1, 1);
+        assertEquals(RentalOutcome.ISSUED, rules.check(SmallCar.class, born, EpochDays.of(2019, 6, 15)));
+        assertEquals(RentalOutcome.LICENSE_TOO_RECENT, rules.check(SmallCar.class, born, EpochDays.of(2019, 6, 16)));
+        assertEquals(RentalOutcome.ISSUED, rules.check(LargeCar.class, born, EpochDays.of(2015, 6, 15)));
+        assertEquals(RentalOutcome.LICENSE_TOO_RECENT, rules.check(LargeCar.class, born, EpochDays.of(2015, 6, 16)));
+    }
+
+    /**
+     * Test that new types of car can be added, and that a
+     * type without a rule can't be rented.
+     *
+     * @see uk.ac.ncl.jcarlton.app.EligibilityRules#register(Class, int, int)
+     */
+    @Test
+    public void register() {
+        int born = EpochDays.of(1990, 1, 1);
+        int licensed = EpochDays.of(2012, 1, 1);
+        assertEquals(RentalOutcome.CAR_UNAVAILABLE, rules.check(Car.class, born, licensed));
+
+        rules.register(Car.class, 35, 0);
+        assertEquals(RentalOutcome.TOO_YOUNG, rules.check(Car.class, born, licensed, today));
+        assertEquals(3, rules.types().size());
+    }
+}
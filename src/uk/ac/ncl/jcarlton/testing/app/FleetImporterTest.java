@@ -0,0 +1,130 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetImporter;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.RentalManagement;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.ImportReport;
+import uk.ac.ncl.jcarlton.util.RegistrationGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link FleetImporter}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class FleetImporterTest {
+
+    private Path file;
+    private FleetStore fleet;
+
+    /**
+     * Setup an empty fleet and the file to import into it.
+     *
+     * @throws IOException thrown if the file cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("fleet", ".csv");
+        fleet = new FleetStore();
+    }
+
+    /**
+     * Remove the file.
+     *
+     * @throws IOException thrown if the file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test that every valid line is imported when the file is split
+     * into many small chunks, that each bad line is reported with
+     * its line number, and that the fleet can then be rented from.
+     *
+     * @throws IOException thrown if the file cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.FleetImporter#importFile(Path, FleetStore, int)
+     */
+    @Test
+    public void importFile() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("Registration,Type,Fuel");
+        lines.add("FI10 AAA,large,60");
+        lines.add("fi11aaa, SMALL , 49");
+        lines.add("FI12AAA,small,10");
+        lines.add("");
+        lines.add("FI1AAAA,small,49");
+        lines.add("FI13AAA,medium,49");
+        lines.add("FI14AAA,small,50");
+        lines.add("FI15AAA,large,-1");
+        lines.add("FI10AAA,small,49");
+        lines.add("FI16AAA,small");
+        lines.add("FI17AAA,large,60\r");
+        Files.write(file, lines, StandardCharsets.US_ASCII);
+
+        ImportReport report = FleetImporter.importFile(file, fleet, 16);
+        assertEquals(4, report.getImported());
+        assertEquals(4, fleet.size());
+
+        List<Long> errorLines = report.getErrors().stream()
+                .map(ImportReport.LineError::getLine).collect(Collectors.toList());
+        // either line of the duplicate registration may be the one reported
+        long duplicate = errorLines.contains(2L) ? 2 : 10;
+        List<Long> expected = new ArrayList<>(Arrays.asList(6L, 7L, 8L, 9L, 11L));
+        expected.add(duplicate == 2 ? 0 : 4, duplicate);
+        assertEquals(expected, errorLines);
+        assertTrue(report.getErrors().get(errorLines.indexOf(duplicate)).getMessage()
+                .startsWith("Duplicate registration"));
+
+        Car partial = fleet.find(Registration.getInstance("FI12AAA"));
+        assertEquals(10, partial.getFuelAmount());
+        assertTrue(fleet.isAwaitingFuel(partial));
+        // FI10AAA is large if its first line won, else small
+        int largeWon = duplicate == 10 ? 1 : 0;
+        assertEquals(2 - largeWon, fleet.available(SmallCar.class));
+        assertEquals(1 + largeWon, fleet.available(LargeCar.class));
+
+        Person person = new Person("Fleet", "Importer", new GregorianCalendar(1970, 0, 1).getTime(),
+                true, new GregorianCalendar(1990, 0, 1).getTime());
+        RentalManagement management = new RentalManagement(fleet);
+        assertTrue(management.issueCar(person, person.getLicense(), fleet.find(Registration.getInstance("FI11AAA"))));
+    }
+
+    /**
+     * Test a larger import split into many chunks, with every car
+     * landing in the fleet once.
+     *
+     * @throws IOException thrown if the file cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.FleetImporter#importFile(Path, FleetStore, int)
+     */
+    @Test
+    public void importManyChunks() throws IOException {
+        int count = 20000;
+        List<String> lines = RegistrationGenerator.range(1000000, 1000000 + count)
+                .map(registration -> registration + (registration.getPackedValue() % 2 == 0 ? ",small,49" : ",large,60"))
+                .collect(Collectors.toList());
+        Files.write(file, lines, StandardCharsets.US_ASCII);
+
+        ImportReport report = FleetImporter.importFile(file, fleet, 4096);
+        assertEquals(count, report.getImported());
+        assertTrue(report.getErrors().isEmpty());
+        assertEquals(count, fleet.size());
+        assertEquals(count, fleet.available(SmallCar.class) + fleet.available(LargeCar.class));
+    }
+}
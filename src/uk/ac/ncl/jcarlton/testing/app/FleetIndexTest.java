@@ -0,0 +1,186 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetIndex;
+import uk.ac.ncl.jcarlton.app.FleetQuery;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link FleetIndex}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class FleetIndexTest {
+
+    private FleetStore fleet;
+    private FleetIndex index;
+    private List<Car> cars;
+
+    /**
+     * Setup a fleet of small and large cars, some rented and driven,
+     * some returned and waiting for fuel.
+     */
+    @Before
+    public void setUp() {
+        fleet = new FleetStore();
+        cars = new ArrayList<>();
+        for (int i = 10; i < 90; i++) {
+            // half the cars are indexed when the index is created, half as they are added
+            if (i == 50)
+                index = new FleetIndex(fleet);
+            Car car = i % 3 == 0
+                    ? new LargeCar(Registration.getInstance("FI" + i + "LRG"))
+                    : new SmallCar(Registration.getInstance("FI" + i + "SML"));
+            fleet.add(car);
+            cars.add(car);
+        }
+
+        Random random = new Random(7);
+        for (int i = 0; i < cars.size(); i += 2) {
+            Car car = cars.get(i);
+            Person renter = new Person("Index", "Renter" + i, new GregorianCalendar(1970, 1, 1).getTime(),
+                    true, new GregorianCalendar(1990, 1, 1).getTime());
+            assertTrue(fleet.claim(car, renter));
+            car.drive(random.nextInt(400));
+            if (i % 4 == 0)
+                fleet.release(renter);
+        }
+    }
+
+    /**
+     * Stop the index listening.
+     */
+    @After
+    public void tearDown() {
+        index.close();
+    }
+
+    /**
+     * Test that each kind of query gives the same cars as checking
+     * every car directly.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetIndex#cars(FleetQuery)
+     */
+    @Test
+    public void queriesMatchCars() {
+        assertQuery(FleetQuery.all(), car -> true);
+        assertQuery(FleetQuery.type(LargeCar.class), car -> car instanceof LargeCar);
+        assertQuery(FleetQuery.rented(), car -> fleet.renterOf(car) != null);
+        assertQuery(FleetQuery.awaitingFuel(), fleet::isAwaitingFuel);
+        assertQuery(FleetQuery.available(), car -> fleet.renterOf(car) == null && !(fleet.isAwaitingFuel(car)));
+
+        for (int litres = 0; litres <= 61; litres++) {
+            final int l = litres;
+            assertQuery(FleetQuery.fuelAtLeast(l), car -> car.getFuelAmount() >= l);
+            assertQuery(FleetQuery.fuelBelow(l), car -> car.getFuelAmount() < l);
+        }
+        assertQuery(FleetQuery.tankBelow(0.25), car -> car.getFuelAmount() < 0.25 * car.getFuelCapacity());
+        assertQuery(FleetQuery.tankAtLeast(0.5), car -> car.getFuelAmount() >= 0.5 * car.getFuelCapacity());
+    }
+
+    /**
+     * Test combining queries, such as the available large cars
+     * with at least 40 litres and the rented small cars below
+     * a quarter of a tank.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetQuery#and(FleetQuery)
+     */
+    @Test
+    public void combinedQueries() {
+        assertQuery(FleetQuery.available().and(FleetQuery.type(LargeCar.class)).and(FleetQuery.fuelAtLeast(40)),
+                car -> car instanceof LargeCar && fleet.renterOf(car) == null
+                        && !(fleet.isAwaitingFuel(car)) && car.getFuelAmount() >= 40);
+        assertQuery(FleetQuery.rented().and(FleetQuery.type(SmallCar.class)).and(FleetQuery.tankBelow(0.25)),
+                car -> car instanceof SmallCar && fleet.renterOf(car) != null
+                        && car.getFuelAmount() < 0.25 * car.getFuelCapacity());
+        assertQuery(FleetQuery.rented().or(FleetQuery.type(LargeCar.class)).not(),
+                car -> car instanceof SmallCar && fleet.renterOf(car) == null);
+    }
+
+    /**
+     * Test that the index follows refills, removals and additions.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetIndex#carRefilled(Car)
+     * @see uk.ac.ncl.jcarlton.app.FleetIndex#carRemoved(Car)
+     */
+    @Test
+    public void followsChanges() {
+        for (Car car : fleet.cars()) {
+            if (fleet.isAwaitingFuel(car))
+                car.addFuel(car.getFuelCapacity());
+        }
+        assertEquals(0, index.count(FleetQuery.awaitingFuel()));
+
+        Car removed = cars.get(1);
+        int id = index.idOf(removed);
+        assertTrue(fleet.remove(removed));
+        assertEquals(-1, index.idOf(removed));
+        assertEquals(cars.size() - 1, index.count(FleetQuery.all()));
+
+        // the id is reused
+        Car added = new LargeCar(Registration.getInstance("FI99NEW"));
+        fleet.add(added);
+        assertEquals(id, index.idOf(added));
+        assertSame(added, index.car(id));
+        assertQuery(FleetQuery.type(LargeCar.class).and(FleetQuery.fuelAtLeast(60)),
+                car -> car instanceof LargeCar && car.getFuelAmount() >= 60);
+    }
+
+    /**
+     * Test that fuel changes made on many threads while queries
+     * run are all in the index by the next query.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.FleetIndex#fuelChanged(Car, int, int)
+     */
+    @Test
+    public void followsConcurrentFuel() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int n = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(n);
+                for (int j = 0; j < 5000; j++) {
+                    Car car = cars.get(random.nextInt(cars.size()));
+                    if (random.nextBoolean())
+                        car.useFuel(random.nextInt(5));
+                    else
+                        car.addFuel(random.nextInt(5));
+                }
+            });
+            threads[t].start();
+        }
+        while (threads[0].isAlive())
+            index.count(FleetQuery.fuelAtLeast(30));
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int litres = 0; litres <= 60; litres += 10) {
+            final int atLeast = litres;
+            assertQuery(FleetQuery.fuelAtLeast(atLeast), car -> car.getFuelAmount() >= atLeast);
+        }
+    }
+
+    private void assertQuery(FleetQuery query, Predicate<Car> expected) {
+        List<Car> matching = new ArrayList<>();
+        for (Car car : fleet.cars()) {
+            if (expected.test(car))
+                matching.add(car);
+        }
+        List<Car> found = index.cars(query);
+        assertEquals(matching.size(), index.count(query));
+        assertEquals(matching.size(), found.size());
+        assertTrue(found.containsAll(matching));
+    }
+}
@@ -0,0 +1,197 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetSnapshot;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link FleetSnapshot}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class FleetSnapshotTest {
+
+    // set if NotACar is ever initialised
+    private static final AtomicBoolean NOT_A_CAR_INITIALISED = new AtomicBoolean();
+
+    private Path file;
+    private FleetStore fleet;
+    private Person renter;
+    private Person returner;
+
+    /**
+     * Setup a fleet with one car rented and one returned
+     * with a part-empty tank.
+     *
+     * @throws IOException thrown if the file cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("fleet", ".snapshot");
+
+        renter = new Person("Snapshot", "Renter", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+        returner = new Person("Snapshot", "Returner", new GregorianCalendar(1971, 1, 1).getTime(),
+                true, new GregorianCalendar(1991, 1, 1).getTime());
+
+        fleet = new FleetStore();
+        for (int i = 10; i < 40; i++)
+            fleet.add(i % 3 == 0
+                    ? new LargeCar(Registration.getInstance("SN" + i + "LRG"))
+                    : new SmallCar(Registration.getInstance("SN" + i + "SML")));
+
+        Car rented = fleet.find(Registration.getInstance("SN12 LRG"));
+        fleet.claim(rented, renter);
+        rented.drive(200);
+
+        Car returned = fleet.find(Registration.getInstance("SN10 SML"));
+        fleet.claim(returned, returner);
+        returned.drive(100);
+        fleet.release(returner);
+    }
+
+    /**
+     * Remove the snapshot file.
+     *
+     * @throws IOException thrown if the file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test that loading a snapshot gives back the same fleet.
+     *
+     * @throws Exception thrown if the snapshot cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.FleetSnapshot#load(Path)
+     */
+    @Test
+    public void writeAndLoad() throws Exception {
+        FleetSnapshot.writeInBackground(fleet, file, ForkJoinPool.commonPool()).get();
+        FleetStore loaded = FleetSnapshot.load(file);
+
+        assertEquals(fleet.size(), loaded.size());
+        assertEquals(fleet.available(SmallCar.class), loaded.available(SmallCar.class));
+        assertEquals(fleet.available(LargeCar.class), loaded.available(LargeCar.class));
+
+        Car rented = loaded.find(Registration.getInstance("SN12 LRG"));
+        assertTrue(rented instanceof LargeCar);
+        assertEquals(renter, loaded.renterOf(rented));
+        assertEquals(renter.getLicense().getNumber(), loaded.renterOf(rented).getLicense().getNumber());
+        assertTrue(rented.isRented());
+        assertEquals(60 - LargeCar.fuelRequired(200), rented.getFuelAmount());
+
+        Car returned = loaded.find(Registration.getInstance("SN10 SML"));
+        assertNull(loaded.renterOf(returned));
+        assertEquals(49 - 5, returned.getFuelAmount());
+        assertFalse(loaded.claim(returned, returner));
+    }
+
+    /**
+     * Test that a file that isn't a snapshot can't be loaded.
+     *
+     * @throws IOException thrown as the file isn't a snapshot.
+     * @see uk.ac.ncl.jcarlton.app.FleetSnapshot#load(Path)
+     */
+    @Test(expected = IOException.class)
+    public void loadThrowsNotSnapshot() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        FleetSnapshot.load(file);
+    }
+
+    /**
+     * Test that a snapshot cut short at any point is reported
+     * as an {@code IOException}.
+     *
+     * @throws IOException thrown if the snapshot cannot be written.
+     * @see uk.ac.ncl.jcarlton.app.FleetSnapshot#load(Path)
+     */
+    @Test
+    public void loadThrowsCutShort() throws IOException {
+        FleetSnapshot.write(fleet, file);
+        byte[] snapshot = Files.readAllBytes(file);
+        for (int length = 0; length < snapshot.length; length++) {
+            Files.write(file, Arrays.copyOf(snapshot, length));
+            try {
+                FleetSnapshot.load(file);
+                fail("A snapshot cut to " + length + " bytes was loaded.");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test that a snapshot naming a class that isn't a car isn't
+     * loaded, and that the class isn't initialised on the way.
+     *
+     * @throws IOException thrown if the file cannot be written.
+     * @see uk.ac.ncl.jcarlton.app.FleetSnapshot#load(Path)
+     */
+    @Test
+    public void loadThrowsNotCar() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            // "FLT2", no cars, and a single type
+            out.writeInt(0x464C5432);
+            out.writeInt(0);
+            out.writeByte(1);
+            out.writeUTF(NotACar.class.getName());
+            out.writeInt(0);
+        }
+
+        try {
+            FleetSnapshot.load(file);
+            fail("A snapshot with a type that isn't a car was loaded.");
+        } catch (IOException e) {
+            assertFalse(NOT_A_CAR_INITIALISED.get());
+        }
+    }
+
+    /**
+     * A class that isn't a car, which records being initialised.
+     */
+    static final class NotACar {
+        static {
+            NOT_A_CAR_INITIALISED.set(true);
+        }
+    }
+
+    /**
+     * Test that the temporary file is removed when a snapshot
+     * cannot be put in place.
+     *
+     * @throws IOException thrown if the directory cannot be created.
+     * @see uk.ac.ncl.jcarlton.app.FleetSnapshot#write(FleetStore, Path)
+     */
+    @Test
+    public void writeRemovesTemporary() throws IOException {
+        // a directory that isn't empty cannot be replaced
+        Path directory = Files.createTempDirectory("fleet");
+        Path inside = Files.createFile(directory.resolve("inside"));
+        Path temporary = directory.resolveSibling(directory.getFileName() + ".tmp");
+        try {
+            FleetSnapshot.write(fleet, directory);
+            fail("A snapshot replaced a directory.");
+        } catch (IOException e) {
+            assertFalse(Files.exists(temporary));
+        } finally {
+            Files.delete(inside);
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link FleetStore}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class FleetStoreTest {
+
+    private FleetStore store;
+    private Car small;
+    private Car large;
+    private Person person;
+
+    /**
+     * Setup the test objects
+     */
+    @Before
+    public void setUp() {
+        store = new FleetStore();
+        small = new SmallCar(Registration.getInstance("FS10", "ABC"));
+        large = new LargeCar(Registration.getInstance("FS11", "ABD"));
+        store.add(small);
+        store.add(large);
+
+        person = new Person(
+                "Fleet",
+                "Store",
+                new GregorianCalendar(1980, 1, 1).getTime(),
+                true,
+                new GregorianCalendar(2000, 1, 1).getTime()
+        );
+    }
+
+    /**
+     * Test that cars can be found by their registration.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#find(Registration)
+     */
+    @Test
+    public void find() {
+        assertSame(small, store.find(Registration.getInstance("FS10", "ABC")));
+        assertNull(store.find(Registration.getInstance("FS12", "ABE")));
+    }
+
+    /**
+     * Test that adding a duplicate registration throws
+     * an {@code IllegalArgumentException}.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#add(Car)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addDuplicate() {
+        store.add(new SmallCar(small.getRegistration()));
+    }
+
+    /**
+     * Test that a car can only be removed while it isn't rented,
+     * and that removing it updates the available counts.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#remove(Car)
+     */
+    @Test
+    public void remove() {
+        assertTrue(store.claim(small, person));
+        assertFalse(store.remove(small));
+        assertSame(small, store.release(person));
+
+        assertTrue(store.remove(small));
+        assertFalse(store.remove(small));
+        assertNull(store.find(small.getRegistration()));
+        assertEquals(0, store.available(SmallCar.class));
+        assertFalse(store.claim(small, person));
+
+        // a removed car can be added again
+        store.add(small);
+        assertEquals(1, store.available(SmallCar.class));
+    }
+
+    /**
+     * Test that claiming a car updates the renter indexes
+     * and the available counts.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#claim(Car, Person)
+     */
+    @Test
+    public void claim() {
+        assertTrue(store.claim(small, person));
+        assertSame(small, store.carOf(person));
+        assertEquals(person, store.renterOf(small));
+        assertEquals(0, store.available(SmallCar.class));
+        assertEquals(1, store.available(LargeCar.class));
+
+        // one car per person
+        assertFalse(store.claim(large, person));
+        assertEquals(-1, store.available(String.class));
+    }
+
+    /**
+     * Test that a car returned with a part-empty tank is
+     * held back until it has been refilled.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#release(Person)
+     */
+    @Test
+    public void release() {
+        store.claim(small, person);
+        small.drive(40);
+
+        assertSame(small, store.release(person));
+        assertFalse(small.isRented());
+        assertNull(store.release(person));
+        assertEquals(0, store.available(SmallCar.class));
+        assertTrue(store.rentedCars().isEmpty());
+        assertTrue(store.isAwaitingFuel(small));
+
+        small.addFuel(1);
+        assertEquals(0, store.available(SmallCar.class));
+        small.addFuel(1);
+        assertEquals(1, store.available(SmallCar.class));
+        assertFalse(store.isAwaitingFuel(small));
+        assertTrue(store.claim(small, person));
+    }
+
+    /**
+     * Test that a car whose tank is filled while it's being
+     * returned, after its tank was checked, isn't left waiting
+     * for fuel with a full tank.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#release(Person)
+     */
+    @Test
+    public void releaseRefilledDuringReturn() {
+        RefilledOnCheck refilled = new RefilledOnCheck(new SmallCar(Registration.getInstance("FS12", "ABE")));
+        FleetStore fleet = new FleetStore(Collections.<Class<? extends Car>>singleton(RefilledOnCheck.class));
+        fleet.add(refilled);
+        assertTrue(fleet.claim(refilled, person));
+        refilled.drive(40);
+
+        refilled.refillAfterCheck = true;
+        assertSame(refilled, fleet.release(person));
+        assertTrue(refilled.isTankFull());
+        assertFalse(fleet.isAwaitingFuel(refilled));
+        assertEquals(1, fleet.available(RefilledOnCheck.class));
+        assertTrue(fleet.claim(refilled, person));
+    }
+
+    /**
+     * Test that when many threads race to rent the same car
+     * only one of them is successful, and that a person racing
+     * for many cars only ever ends up with one.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#claim(Car, Person)
+     */
+    @Test
+    public void claimConcurrently() throws InterruptedException {
+        final int threads = 16;
+        final Car[] cars = new Car[threads];
+        final Person[] racers = new Person[threads];
+        for (int i = 0; i < threads; i++) {
+            cars[i] = new SmallCar(Registration.getInstance("FC" + (10 + i), "XYZ"));
+            store.add(cars[i]);
+            racers[i] = new Person("Racer", "Number" + i,
+                    new GregorianCalendar(1980, 1, 1).getTime(), true,
+                    new GregorianCalendar(2000, 1, 1).getTime());
+        }
+
+        final AtomicInteger sameCar = new AtomicInteger();
+        final AtomicInteger samePerson = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            final int n = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (store.claim(large, racers[n]))
+                    sameCar.incrementAndGet();
+                if (store.claim(cars[n], person))
+                    samePerson.incrementAndGet();
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, sameCar.get());
+        assertEquals(1, samePerson.get());
+        assertEquals(2, store.rentedCars().size());
+        assertEquals(0, store.available(LargeCar.class));
+        // the set up small car, plus all but one of the new ones
+        assertEquals(threads, store.available(SmallCar.class));
+    }
+
+    /**
+     * Test that the rented cars are kept up to date as cars are
+     * issued and returned, and can be paged through.
+     *
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCars(int, int)
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCarsView()
+     */
+    @Test
+    public void rentedCars() {
+        Collection<Car> view = store.rentedCarsView();
+        Person[] renters = new Person[10];
+        Set<Car> expected = new HashSet<>();
+        for (int i = 0; i < renters.length; i++) {
+            Car car = new SmallCar(Registration.getInstance("FR" + (10 + i), "XYZ"));
+            store.add(car);
+            renters[i] = new Person("Renter", "Number" + i,
+                    new GregorianCalendar(1980, 1, 1).getTime(), true,
+                    new GregorianCalendar(2000, 1, 1).getTime());
+            assertTrue(store.claim(car, renters[i]));
+            expected.add(car);
+        }
+        assertEquals(10, store.rentedCount());
+        assertEquals(10, view.size());
+
+        // returned cars leave the view straight away
+        expected.remove(store.release(renters[0]));
+        expected.remove(store.release(renters[5]));
+        assertEquals(8, store.rentedCount());
+        assertEquals(expected, new HashSet<>(view));
+        assertEquals(expected, new HashSet<>(store.rentedCars()));
+
+        Set<Car> paged = new HashSet<>();
+        for (int offset = 0; offset < 8; offset += 3) {
+            List<Car> page = store.rentedCars(offset, 3);
+            assertEquals(Math.min(3, 8 - offset), page.size());
+            paged.addAll(page);
+        }
+        assertEquals(expected, paged);
+        assertTrue(store.rentedCars(8, 3).isEmpty());
+        assertTrue(store.rentedCars(100, Integer.MAX_VALUE).isEmpty());
+        assertEquals(8, view.stream().filter(Car::isRented).count());
+    }
+
+    /**
+     * Test that the rented cars can be streamed, in sequence and in
+     * parallel, while other threads issue and return them.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCarsView()
+     */
+    @Test
+    public void rentedCarsStreamConcurrently() throws InterruptedException {
+        final Car[] cars = new Car[64];
+        for (int i = 0; i < cars.length; i++) {
+            cars[i] = new SmallCar(Registration.getInstance("FU" + (10 + i), "XYZ"));
+            store.add(cars[i]);
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] churners = new Thread[4];
+        for (int t = 0; t < churners.length; t++) {
+            final Person renter = new Person("Stream", "Number" + t, 1000 + t, true, 8000);
+            final int n = t;
+            churners[t] = new Thread(() -> {
+                for (int j = 0; running.get(); j++) {
+                    store.claim(cars[(n + j * churners.length) % cars.length], renter);
+                    store.release(renter);
+                }
+            });
+            churners[t].start();
+        }
+
+        try {
+            Collection<Car> view = store.rentedCarsView();
+            for (int i = 0; i < 5000; i++) {
+                Object[] rented = i % 2 == 0 ? view.stream().toArray() : view.parallelStream().toArray();
+                assertTrue(rented.length <= cars.length);
+            }
+        } finally {
+            running.set(false);
+            for (Thread churner : churners)
+                churner.join();
+        }
+    }
+
+    /**
+     * Test that the rented cars, and each car's rented flag, match
+     * who is renting once many threads have issued and returned
+     * cars at the same time.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.FleetStore#rentedCount()
+     */
+    @Test
+    public void rentedCarsConcurrently() throws InterruptedException {
+        final int threads = 8;
+        final Car[] cars = new Car[32];
+        for (int i = 0; i < cars.length; i++) {
+            cars[i] = new SmallCar(Registration.getInstance("FT" + (10 + i), "XYZ"));
+            store.add(cars[i]);
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Person[] racers = new Person[threads];
+        for (int i = 0; i < threads; i++) {
+            final int n = i;
+            racers[n] = new Person("Churn", "Number" + n,
+                    new GregorianCalendar(1980, 1, 1).getTime(), true,
+                    new GregorianCalendar(2000, 1, 1).getTime());
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 20000; j++) {
+                    if (j % 2 == 0)
+                        store.claim(cars[(n + j) % cars.length], racers[n]);
+                    else
+                        store.release(racers[n]);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Set<Car> renting = new HashSet<>();
+        for (Person racer : racers) {
+            if (store.carOf(racer) != null)
+                renting.add(store.carOf(racer));
+        }
+        assertEquals(renting.size(), store.rentedCount());
+        assertEquals(renting, new HashSet<>(store.rentedCarsView()));
+        for (Car car : cars)
+            assertEquals(renting.contains(car), car.isRented());
+    }
+
+    /**
+     * A car that is refilled just after its tank is checked, as
+     * if it was refuelled while being returned. It isn't observed
+     * by the store, so the store only sees the refill by checking.
+     */
+    private static final class RefilledOnCheck implements Car {
+        private final Car car;
+        private volatile boolean refillAfterCheck;
+
+        private RefilledOnCheck(Car car) {
+            this.car = car;
+        }
+
+        @Override
+        public Registration getRegistration() {
+            return car.getRegistration();
+        }
+
+        @Override
+        public int getFuelCapacity() {
+            return car.getFuelCapacity();
+        }
+
+        @Override
+        public int getFuelAmount() {
+            return car.getFuelAmount();
+        }
+
+        @Override
+        public boolean isTankFull() {
+            boolean full = car.isTankFull();
+            if (refillAfterCheck) {
+                refillAfterCheck = false;
+                car.addFuel(car.getFuelCapacity());
+            }
+            return full;
+        }
+
+        @Override
+        public int addFuel(int fuelAmount) {
+            return car.addFuel(fuelAmount);
+        }
+
+        @Override
+        public int drive(int kmAmount) {
+            return car.drive(kmAmount);
+        }
+
+        @Override
+        public int useFuel(int fuelAmount) {
+            return car.useFuel(fuelAmount);
+        }
+
+        @Override
+        public void setRented(boolean rent) {
+            car.setRented(rent);
+        }
+
+        @Override
+        public boolean isRented() {
+            return car.isRented();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.RefuellingQueue;
+import uk.ac.ncl.jcarlton.app.RentalManagement;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link RefuellingQueue}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class RefuellingQueueTest {
+
+    private FleetStore fleet;
+    private RentalManagement management;
+    private RefuellingQueue queue;
+    private List<Person> renters;
+
+    /**
+     * Setup a fleet with every car rented and driven.
+     */
+    @Before
+    public void setUp() {
+        fleet = new FleetStore();
+        management = new RentalManagement(fleet);
+        renters = new ArrayList<>();
+        for (int i = 10; i < 30; i++) {
+            Car car = i % 2 == 0
+                    ? new LargeCar(Registration.getInstance("RQ" + i + "LRG"))
+                    : new SmallCar(Registration.getInstance("RQ" + i + "SML"));
+            fleet.add(car);
+
+            Person renter = new Person("Refuelling", "Renter" + i, new GregorianCalendar(1960, 1, 1).getTime(),
+                    true, new GregorianCalendar(1980, 1, 1).getTime());
+            assertTrue(management.issueCar(renter, renter.getLicense(), car));
+            car.drive(100 + i);
+            renters.add(renter);
+        }
+        queue = new RefuellingQueue(fleet, 2, 4);
+    }
+
+    /**
+     * Stop the queue.
+     */
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    /**
+     * Test that every returned car is refilled and becomes
+     * available again, and that the fuel added is the fuel
+     * {@code terminateRental()} said was needed.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.RefuellingQueue#carReturned(Car, Person)
+     */
+    @Test
+    public void terminatedCarsAreRefilled() throws InterruptedException {
+        long needed = 0;
+        for (Person renter : renters)
+            needed += management.terminateRental(renter);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (fleet.available(SmallCar.class) + fleet.available(LargeCar.class) < renters.size()
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+
+        assertEquals(10, fleet.available(SmallCar.class));
+        assertEquals(10, fleet.available(LargeCar.class));
+        assertEquals(renters.size(), queue.refilled());
+        assertEquals(needed, queue.litres());
+        for (Car car : fleet.cars())
+            assertTrue(car.isTankFull());
+    }
+
+    /**
+     * Test that cars already waiting for fuel when the queue is
+     * created are refilled.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RefuellingQueue#RefuellingQueue(FleetStore, int, int)
+     */
+    @Test
+    public void waitingCarsAreRefilled() {
+        queue.close();
+        for (Person renter : renters)
+            management.terminateRental(renter);
+        assertEquals(0, fleet.available(SmallCar.class));
+
+        // closing waits for the queued cars to be refilled
+        new RefuellingQueue(fleet, 1, 8).close();
+        assertEquals(10, fleet.available(SmallCar.class));
+        assertEquals(10, fleet.available(LargeCar.class));
+    }
+}
@@ -0,0 +1,250 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.RentalJournal;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.GregorianCalendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link RentalJournal}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class RentalJournalTest {
+
+    private Path file;
+    private Person first;
+    private Person second;
+
+    /**
+     * Setup the journal file and the renters.
+     *
+     * @throws IOException thrown if the file cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("rental", ".journal");
+        Files.delete(file);
+
+        first = new Person("Journal", "First", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+        second = new Person("Journal", "Second", new GregorianCalendar(1971, 1, 1).getTime(),
+                true, new GregorianCalendar(1991, 1, 1).getTime());
+    }
+
+    /**
+     * Remove the journal file.
+     *
+     * @throws IOException thrown if the file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test that replaying the journal into a new fleet gives
+     * the same renters and fuel levels.
+     *
+     * @throws IOException thrown if the journal cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalJournal#replay(Path, FleetStore)
+     */
+    @Test
+    public void replay() throws IOException {
+        FleetStore fleet = fleet();
+        RentalJournal journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            Car small = fleet.find(Registration.getInstance("RJ10 SML"));
+            Car large = fleet.find(Registration.getInstance("RJ11 LRG"));
+            fleet.claim(small, first);
+            small.drive(100);
+            fleet.release(first);
+            fleet.claim(large, second);
+            large.drive(60);
+        } finally {
+            journal.close();
+        }
+
+        FleetStore recovered = fleet();
+        assertEquals(5, RentalJournal.replay(file, recovered));
+
+        Car small = recovered.find(Registration.getInstance("RJ10 SML"));
+        Car large = recovered.find(Registration.getInstance("RJ11 LRG"));
+        assertNull(recovered.renterOf(small));
+        assertEquals(49 - 5, small.getFuelAmount());
+        assertEquals(second, recovered.renterOf(large));
+        assertEquals(60 - LargeCar.fuelRequired(60), large.getFuelAmount());
+    }
+
+    /**
+     * Test that reopening a journal appends after the
+     * records that are already there.
+     *
+     * @throws IOException thrown if the journal cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalJournal#open(Path, long, FleetStore)
+     */
+    @Test
+    public void reopen() throws IOException {
+        FleetStore fleet = fleet();
+        Car small = fleet.find(Registration.getInstance("RJ10 SML"));
+        RentalJournal journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            fleet.claim(small, first);
+        } finally {
+            journal.close();
+        }
+        // no longer listening once it's closed
+        fleet.claim(fleet.find(Registration.getInstance("RJ11 LRG")), second);
+        journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            fleet.release(first);
+        } finally {
+            journal.close();
+        }
+
+        FleetStore recovered = fleet();
+        assertEquals(2, RentalJournal.replay(file, recovered));
+        assertTrue(recovered.rentedCars().isEmpty());
+        assertEquals(1, recovered.available(SmallCar.class));
+        assertEquals(1, recovered.available(LargeCar.class));
+    }
+
+    /**
+     * Test that a renter is replayed with the license they had,
+     * even once the registry has forgotten it.
+     *
+     * @throws IOException thrown if the journal cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalJournal#replay(Path, FleetStore)
+     */
+    @Test
+    public void replayLicense() throws IOException {
+        FleetStore fleet = fleet();
+        Person renter = new Person("Journal", "Licence", 1000, false, 9000);
+        String number = renter.getLicense().getNumber();
+        RentalJournal journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            fleet.claim(fleet.find(Registration.getInstance("RJ10 SML")), renter);
+        } finally {
+            journal.close();
+        }
+        DrivingLicense.registry().evict(renter);
+
+        FleetStore recovered = fleet();
+        assertEquals(1, RentalJournal.replay(file, recovered));
+        Person replayed = recovered.renterOf(recovered.find(Registration.getInstance("RJ10 SML")));
+        assertEquals(renter, replayed);
+        assertEquals(number, replayed.getLicense().getNumber());
+        assertEquals(9000, replayed.getLicense().getIssueDay());
+        assertFalse(replayed.getLicense().isFullLicense());
+    }
+
+    /**
+     * Test that the journal of a car rented and driven by many
+     * threads at once replays to the same renter and fuel level.
+     *
+     * @throws Exception thrown if the journal cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalJournal#replay(Path, FleetStore)
+     */
+    @Test
+    public void replayConcurrent() throws Exception {
+        final FleetStore fleet = fleet();
+        final Car small = fleet.find(Registration.getInstance("RJ10 SML"));
+        Thread[] threads = new Thread[4];
+        RentalJournal journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            for (int i = 0; i < threads.length; i++) {
+                final Person person = new Person("Journal", "Renter" + i, 2000 + i, true, 9000);
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 2000; j++) {
+                        if (fleet.claim(small, person)) {
+                            small.drive(10);
+                            fleet.release(person);
+                        }
+                        small.addFuel(small.getFuelCapacity());
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads)
+                thread.join();
+            fleet.claim(small, first);
+        } finally {
+            journal.close();
+        }
+
+        FleetStore recovered = fleet();
+        RentalJournal.replay(file, recovered);
+        Car replayed = recovered.find(Registration.getInstance("RJ10 SML"));
+        assertEquals(first, recovered.renterOf(replayed));
+        assertEquals(small.getFuelAmount(), replayed.getFuelAmount());
+    }
+
+    /**
+     * Test that a record whose checksum doesn't match, as if its
+     * pages were torn by a crash, is the end of the journal, and
+     * that reopening it writes over the torn record.
+     *
+     * @throws IOException thrown if the journal cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalJournal#replay(Path, FleetStore)
+     */
+    @Test
+    public void replayStopsAtTornRecord() throws IOException {
+        FleetStore fleet = fleet();
+        Car small = fleet.find(Registration.getInstance("RJ10 SML"));
+        RentalJournal journal = RentalJournal.open(file, 1000, fleet);
+        try {
+            fleet.claim(small, first);
+            small.useFuel(5);
+        } finally {
+            journal.close();
+        }
+
+        // flip a byte of the fuel level in the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            long level = 4 + 4 + length.getInt(0) + 4 + 4 + 1 + 8;
+            ByteBuffer torn = ByteBuffer.allocate(1);
+            channel.read(torn, level + 3);
+            torn.put(0, (byte) (torn.get(0) ^ 0x01));
+            torn.rewind();
+            channel.write(torn, level + 3);
+        }
+
+        FleetStore recovered = fleet();
+        assertEquals(1, RentalJournal.replay(file, recovered));
+        Car replayed = recovered.find(Registration.getInstance("RJ10 SML"));
+        assertEquals(first, recovered.renterOf(replayed));
+        assertTrue(replayed.isTankFull());
+
+        journal = RentalJournal.open(file, 1000, recovered);
+        try {
+            replayed.useFuel(3);
+        } finally {
+            journal.close();
+        }
+        FleetStore reopened = fleet();
+        assertEquals(2, RentalJournal.replay(file, reopened));
+        assertEquals(replayed.getFuelCapacity() - 3,
+                reopened.find(Registration.getInstance("RJ10 SML")).getFuelAmount());
+    }
+
+    private static FleetStore fleet() {
+        FleetStore fleet = new FleetStore();
+        fleet.add(new SmallCar(Registration.getInstance("RJ10 SML")));
+        fleet.add(new LargeCar(Registration.getInstance("RJ11 LRG")));
+        return fleet;
+    }
+}
@@ -4,8 +4,11 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import uk.ac.ncl.jcarlton.app.RentalManagement;
+import uk.ac.ncl.jcarlton.app.RentalOutcome;
+import uk.ac.ncl.jcarlton.app.RentalRequest;
 import uk.ac.ncl.jcarlton.objects.*;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -239,6 +242,51 @@ public class RentalManagementTest {
     }
 
 
+    /**
+     * Test that a batch of requests gives back the outcome
+     * of each request, in order.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalManagement#issueCars(java.util.List)
+     */
+    @Test
+    public void issueCars() {
+        Person older = new Person(
+                "Batch",
+                "Renter",
+                new GregorianCalendar(1970, 1, 1).getTime(),
+                true,
+                new GregorianCalendar(1990, 1, 1).getTime()
+        );
+
+        RentalOutcome[] outcomes = management.issueCars(Arrays.asList(
+                new RentalRequest(person, license, carLarge),
+                new RentalRequest(older, older.getLicense(), carSmall),
+                new RentalRequest(older, older.getLicense(), carLarge),
+                new RentalRequest(older, older.getLicense(), carLarge)
+        ));
+
+        assertArrayEquals(new RentalOutcome[]{
+                RentalOutcome.ALREADY_RENTING,
+                RentalOutcome.CAR_UNAVAILABLE,
+                RentalOutcome.ISSUED,
+                RentalOutcome.ALREADY_RENTING
+        }, outcomes);
+        assertEquals(2, management.getRentedCars().size());
+    }
+
+    /**
+     * Test that a batch of terminations gives back the fuel
+     * required for each car, in order.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalManagement#terminateRentals(java.util.List)
+     */
+    @Test
+    public void terminateRentals() {
+        management.getCar(person).drive(40);
+        assertArrayEquals(new int[]{2, -1}, management.terminateRentals(Arrays.asList(person, person)));
+        assertTrue(management.getRentedCars().isEmpty());
+    }
+
     /**
      * Passes this test. To run again the method (populateMap()) needs to be made public
      *
@@ -0,0 +1,130 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.*;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link RentalMetrics}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class RentalMetricsTest {
+
+    private RentalMetrics metrics;
+    private RentalManagement management;
+    private Car small;
+    private Person renter;
+    private Person young;
+
+    /**
+     * Setup a fleet managed with metrics.
+     */
+    @Before
+    public void setUp() {
+        FleetStore fleet = new FleetStore();
+        small = new SmallCar(Registration.getInstance("RM10 SML"));
+        fleet.add(small);
+
+        metrics = new RentalMetrics();
+        management = new RentalManagement(fleet,
+                EligibilityRules.standard(EpochDayClock.fixed(EpochDays.of(2016, 6, 1))), metrics);
+
+        renter = new Person("Metrics", "Renter", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+        young = new Person("Metrics", "Young", new GregorianCalendar(2000, 1, 1).getTime(),
+                true, new GregorianCalendar(2015, 1, 1).getTime());
+    }
+
+    /**
+     * Test that each outcome and operation is counted.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalMetrics#recordOutcome(RentalOutcome)
+     */
+    @Test
+    public void counts() {
+        assertFalse(management.issueCar(young, young.getLicense(), small));
+        assertTrue(management.issueCar(renter, renter.getLicense(), small));
+        assertFalse(management.issueCar(renter, renter.getLicense(), small));
+        management.getCar(renter);
+        management.availableCars(SmallCar.class);
+        management.terminateRental(renter);
+
+        assertEquals(1, metrics.count(RentalOutcome.TOO_YOUNG));
+        assertEquals(1, metrics.count(RentalOutcome.ISSUED));
+        assertEquals(1, metrics.count(RentalOutcome.ALREADY_RENTING));
+        assertEquals(3, metrics.count(RentalMetrics.Operation.ISSUE_CAR));
+        assertEquals(1, metrics.count(RentalMetrics.Operation.GET_CAR));
+        assertEquals(1, metrics.count(RentalMetrics.Operation.AVAILABLE_CARS));
+        assertEquals(1, metrics.count(RentalMetrics.Operation.TERMINATE_RENTAL));
+        assertEquals(3, metrics.latency(RentalMetrics.Operation.ISSUE_CAR).count());
+    }
+
+    /**
+     * Test that each request in a batch is timed as an issue,
+     * as well as having its outcome counted.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalManagement#issueCars(java.util.List)
+     */
+    @Test
+    public void issueCarsCounts() {
+        management.issueCars(Arrays.asList(
+                new RentalRequest(young, young.getLicense(), small),
+                new RentalRequest(renter, renter.getLicense(), small)));
+
+        assertEquals(1, metrics.count(RentalOutcome.TOO_YOUNG));
+        assertEquals(1, metrics.count(RentalOutcome.ISSUED));
+        assertEquals(2, metrics.count(RentalMetrics.Operation.ISSUE_CAR));
+        assertEquals(2, metrics.latency(RentalMetrics.Operation.ISSUE_CAR).count());
+    }
+
+    /**
+     * Test the Prometheus text has a counter for each outcome
+     * and a complete histogram for each operation.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalMetrics#writePrometheus(Appendable)
+     */
+    @Test
+    public void prometheusText() {
+        management.issueCar(renter, renter.getLicense(), small);
+        String text = metrics.getPrometheusText();
+
+        assertTrue(text.contains("# TYPE rental_outcomes_total counter\n"));
+        assertTrue(text.contains("rental_outcomes_total{outcome=\"issued\"} 1\n"));
+        assertTrue(text.contains("rental_operation_seconds_bucket{operation=\"issueCar\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("rental_operation_seconds_count{operation=\"getCar\"} 0\n"));
+    }
+
+    /**
+     * Test that the metrics can be read through JMX.
+     *
+     * @throws Exception thrown if the MBean cannot be registered or read.
+     * @see uk.ac.ncl.jcarlton.app.RentalMetrics#register(String)
+     */
+    @Test
+    public void register() throws Exception {
+        management.issueCar(young, young.getLicense(), small);
+        ObjectName name = metrics.register("test");
+        try {
+            TabularData outcomes = (TabularData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "OutcomeCounts");
+            assertEquals(1L, outcomes.get(new Object[]{"TOO_YOUNG"}).get("value"));
+
+            Map<String, Double> latency = metrics.getLatencyMicros();
+            assertTrue(latency.containsKey("issueCar.p99.9"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
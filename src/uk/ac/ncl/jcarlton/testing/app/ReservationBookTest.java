@@ -0,0 +1,228 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.*;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+import uk.ac.ncl.jcarlton.util.RegistrationGenerator;
+
+import java.util.GregorianCalendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link ReservationBook}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class ReservationBookTest {
+
+    private static final int TODAY = EpochDays.of(2016, 6, 1);
+
+    private FleetStore fleet;
+    private ReservationBook book;
+    private Car small;
+    private Car otherSmall;
+    private Car large;
+    private Person alice;
+    private Person bob;
+
+    /**
+     * Setup a small fleet and two people.
+     */
+    @Before
+    public void setUp() {
+        fleet = new FleetStore();
+        small = new SmallCar(Registration.getInstance("RB10ABC"));
+        otherSmall = new SmallCar(Registration.getInstance("RB11ABC"));
+        large = new LargeCar(Registration.getInstance("RB12ABC"));
+        fleet.add(small);
+        fleet.add(otherSmall);
+        fleet.add(large);
+        book = new ReservationBook(fleet);
+
+        alice = new Person("Alice", "Booker", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+        bob = new Person("Bob", "Booker", new GregorianCalendar(1971, 1, 1).getTime(),
+                true, new GregorianCalendar(1991, 1, 1).getTime());
+    }
+
+    /**
+     * Test that bookings of a car cannot overlap, but can
+     * meet end to start.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ReservationBook#reserve(Person, Car, int, int)
+     */
+    @Test
+    public void reserveRejectsOverlap() {
+        Reservation first = book.reserve(alice, small, TODAY + 10, TODAY + 15);
+        assertNotNull(first);
+        assertNull(book.reserve(bob, small, TODAY + 14, TODAY + 20));
+        assertNull(book.reserve(bob, small, TODAY + 5, TODAY + 11));
+        assertNull(book.reserve(bob, small, TODAY + 11, TODAY + 12));
+        assertNull(book.reserve(bob, small, TODAY, TODAY + 30));
+
+        assertNotNull(book.reserve(bob, small, TODAY + 15, TODAY + 20));
+        assertNotNull(book.reserve(bob, small, TODAY + 5, TODAY + 10));
+        assertNotNull(book.reserve(bob, otherSmall, TODAY + 10, TODAY + 15));
+        assertEquals(4, book.size());
+
+        List<Reservation> reservations = book.reservations(small);
+        assertEquals(3, reservations.size());
+        assertEquals(TODAY + 5, reservations.get(0).getFromDay());
+        assertSame(first, reservations.get(1));
+    }
+
+    /**
+     * Test that an empty booking, or one for a car outside
+     * the fleet, throws an {@code IllegalArgumentException}.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ReservationBook#reserve(Person, Car, int, int)
+     */
+    @Test
+    public void reserveInvalid() {
+        try {
+            book.reserve(alice, small, TODAY, TODAY);
+            fail("An empty booking was accepted.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            book.reserve(alice, new SmallCar(Registration.getInstance("RB99ZZZ")), TODAY, TODAY + 1);
+            fail("A car outside the fleet was booked.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test finding the cars of a type that are free in a window,
+     * and that a cancelled booking frees the car.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ReservationBook#freeCars(Class, int, int)
+     * @see uk.ac.ncl.jcarlton.app.ReservationBook#cancel(Reservation)
+     */
+    @Test
+    public void freeCarsInWindow() {
+        Reservation reservation = book.reserve(alice, small, TODAY + 3, TODAY + 6);
+        book.reserve(bob, large, TODAY, TODAY + 2);
+
+        assertEquals(2, book.freeCars(SmallCar.class, TODAY, TODAY + 3).size());
+        List<Car> free = book.freeCars(SmallCar.class, TODAY + 2, TODAY + 4);
+        assertEquals(1, free.size());
+        assertSame(otherSmall, free.get(0));
+        assertTrue(book.freeCars(LargeCar.class, TODAY + 1, TODAY + 2).isEmpty());
+        assertTrue(book.isFree(large, TODAY + 2, TODAY + 10));
+
+        assertSame(reservation, book.reservationOn(small, TODAY + 5));
+        assertNull(book.reservationOn(small, TODAY + 6));
+
+        assertTrue(book.cancel(reservation));
+        assertFalse(book.cancel(reservation));
+        assertEquals(2, book.freeCars(SmallCar.class, TODAY + 2, TODAY + 4).size());
+    }
+
+    /**
+     * Test that bookings that have ended are dropped.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ReservationBook#expire(int)
+     */
+    @Test
+    public void expire() {
+        book.reserve(alice, small, TODAY - 10, TODAY - 5);
+        book.reserve(alice, small, TODAY - 5, TODAY);
+        book.reserve(alice, small, TODAY, TODAY + 1);
+        book.reserve(bob, large, TODAY - 3, TODAY - 1);
+
+        assertEquals(3, book.expire(TODAY));
+        assertEquals(1, book.size());
+        assertEquals(TODAY, book.reservations(small).get(0).getFromDay());
+    }
+
+    /**
+     * Test that a car booked by someone else today isn't issued,
+     * but one booked by the person renting it is.
+     *
+     * @see uk.ac.ncl.jcarlton.app.RentalManagement#RentalManagement(FleetStore, EligibilityRules, RentalMetrics, ReservationBook)
+     */
+    @Test
+    public void issueCarRespectsReservations() {
+        RentalMetrics metrics = new RentalMetrics();
+        RentalManagement management = new RentalManagement(fleet,
+                EligibilityRules.standard(EpochDayClock.fixed(TODAY)), metrics, book);
+        book.reserve(alice, small, TODAY, TODAY + 3);
+        book.reserve(alice, otherSmall, TODAY + 1, TODAY + 3);
+
+        assertFalse(management.issueCar(bob, bob.getLicense(), small));
+        assertEquals(1, metrics.count(RentalOutcome.RESERVED));
+
+        // only booked from tomorrow
+        assertTrue(management.issueCar(bob, bob.getLicense(), otherSmall));
+        assertTrue(management.issueCar(alice, alice.getLicense(), small));
+    }
+
+    /**
+     * Test that a car is never issued to someone after another
+     * person's booking for today has been made, when the booking
+     * and the issue race.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.RentalManagement#issueCar(Person, DrivingLicense, Car)
+     */
+    @Test
+    public void issueCarRacesReservations() throws InterruptedException {
+        final int count = 2000;
+        final Car[] cars = new Car[count];
+        for (int i = 0; i < count; i++) {
+            cars[i] = new SmallCar(Registration.getInstance(RegistrationGenerator.packed(3000000 + i)));
+            fleet.add(cars[i]);
+        }
+
+        // the order in which bookings are made and cars are issued
+        final AtomicLong sequence = new AtomicLong();
+        final long[] issuedAt = new long[count];
+        final long[] bookedAt = new long[count];
+        final Map<Car, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < count; i++)
+            indexes.put(cars[i], i);
+        fleet.addListener(new FleetListener() {
+            @Override
+            public void carIssued(Car car, Person person) {
+                issuedAt[indexes.get(car)] = sequence.incrementAndGet();
+            }
+        });
+
+        final RentalManagement management = new RentalManagement(fleet,
+                EligibilityRules.standard(EpochDayClock.fixed(TODAY)), null, book);
+        final Person[] renters = new Person[count];
+        for (int i = 0; i < count; i++)
+            renters[i] = new Person("Race", "Renter" + i, 1000, true, 5000);
+
+        Thread booker = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                if (book.reserve(alice, cars[i], TODAY, TODAY + 1) != null)
+                    bookedAt[i] = sequence.incrementAndGet();
+            }
+        });
+        Thread issuer = new Thread(() -> {
+            for (int i = 0; i < count; i++)
+                management.issueCar(renters[i], renters[i].getLicense(), cars[i]);
+        });
+        booker.start();
+        issuer.start();
+        booker.join();
+        issuer.join();
+
+        for (int i = 0; i < count; i++) {
+            assertTrue(bookedAt[i] > 0);
+            if (fleet.renterOf(cars[i]) != null)
+                assertTrue("Issued after it was booked: " + cars[i], issuedAt[i] < bookedAt[i]);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.EligibilityRules;
+import uk.ac.ncl.jcarlton.app.FleetListener;
+import uk.ac.ncl.jcarlton.app.ShardedRentalManagement;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link ShardedRentalManagement}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class ShardedRentalManagementTest {
+
+    private ShardedRentalManagement sharded;
+    private List<Car> cars;
+    private Person person;
+
+    /**
+     * Setup four shards with cars spread across them by registration.
+     */
+    @Before
+    public void setUp() {
+        sharded = new ShardedRentalManagement(4,
+                EligibilityRules.standard(EpochDayClock.fixed(EpochDays.of(2016, 6, 1))));
+        cars = new ArrayList<>();
+        for (int i = 10; i < 50; i++) {
+            Car car = new SmallCar(Registration.getInstance("SH" + i + "ABC"));
+            sharded.addCar(car);
+            cars.add(car);
+        }
+
+        person = new Person("Sharded", "Renter", new GregorianCalendar(1970, 1, 1).getTime(),
+                true, new GregorianCalendar(1990, 1, 1).getTime());
+    }
+
+    /**
+     * Test that cars are spread across every shard, each in the
+     * shard its registration hashes to.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ShardedRentalManagement#addCar(Car)
+     */
+    @Test
+    public void addCarHashesRegistration() {
+        int total = 0;
+        for (int shard = 0; shard < sharded.shards(); shard++) {
+            assertTrue(sharded.fleet(shard).size() > 0);
+            total += sharded.fleet(shard).size();
+        }
+        assertEquals(cars.size(), total);
+        assertEquals(cars.size(), sharded.availableCars(SmallCar.class));
+        assertEquals(-1, sharded.availableCars(String.class));
+
+        for (Car car : cars)
+            assertEquals(sharded.shardFor(car.getRegistration()), sharded.shardOf(car));
+    }
+
+    /**
+     * Test that a registration cannot be added to two shards.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ShardedRentalManagement#addCar(int, Car)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addDuplicateToOtherShard() {
+        Car car = cars.get(0);
+        sharded.addCar((sharded.shardOf(car) + 1) % sharded.shards(), new SmallCar(car.getRegistration()));
+    }
+
+    /**
+     * Test that a person can only rent one car across every shard.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ShardedRentalManagement#issueCar(Person, DrivingLicense, Car)
+     */
+    @Test
+    public void oneRentalAcrossShards() {
+        Car first = cars.get(0);
+        Car other = null;
+        for (Car car : cars) {
+            if (sharded.shardOf(car) != sharded.shardOf(first))
+                other = car;
+        }
+        assertNotNull(other);
+
+        assertTrue(sharded.issueCar(person, person.getLicense(), first));
+        assertFalse(sharded.issueCar(person, person.getLicense(), other));
+        assertSame(first, sharded.getCar(person));
+        assertEquals(1, sharded.getRentedCars().size());
+
+        assertEquals(0, sharded.terminateRental(person));
+        assertEquals(-1, sharded.terminateRental(person));
+        assertTrue(sharded.issueCar(person, person.getLicense(), other));
+    }
+
+    /**
+     * Test that a car returned to another shard moves to it,
+     * and can be rented again from there.
+     *
+     * @see uk.ac.ncl.jcarlton.app.ShardedRentalManagement#terminateRental(Person, int)
+     */
+    @Test
+    public void returnToOtherShard() {
+        Car car = cars.get(0);
+        int from = sharded.shardOf(car);
+        int to = (from + 1) % sharded.shards();
+        int before = sharded.fleet(to).size();
+
+        assertTrue(sharded.issueCar(person, person.getLicense(), car));
+        car.drive(50);
+        assertEquals(car.getFuelCapacity() - car.getFuelAmount(), sharded.terminateRental(person, to));
+
+        assertEquals(to, sharded.shardOf(car));
+        assertNull(sharded.fleet(from).find(car.getRegistration()));
+        assertSame(car, sharded.fleet(to).find(car.getRegistration()));
+        assertEquals(before + 1, sharded.fleet(to).size());
+
+        // still waiting for fuel in its new shard, then available there
+        assertTrue(sharded.fleet(to).isAwaitingFuel(car));
+        car.addFuel(car.getFuelCapacity());
+        assertFalse(sharded.fleet(to).isAwaitingFuel(car));
+        assertEquals(cars.size(), sharded.availableCars(SmallCar.class));
+        assertTrue(sharded.issueCar(person, person.getLicense(), car));
+    }
+
+    /**
+     * Test that cars moving between shards on many threads at once
+     * can always be found in the shard the router says they are in,
+     * including part way through each move, and can be rented again
+     * once they have moved.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.ShardedRentalManagement#terminateRental(Person, int)
+     */
+    @Test
+    public void moveConcurrently() throws InterruptedException {
+        final AtomicInteger missing = new AtomicInteger();
+        FleetListener visible = new FleetListener() {
+            @Override
+            public void carAdded(Car car) {
+                check(car);
+            }
+
+            @Override
+            public void carRemoved(Car car) {
+                check(car);
+            }
+
+            private void check(Car car) {
+                int shard = sharded.shardOf(car);
+                if (shard < 0 || sharded.fleet(shard).find(car.getRegistration()) != car)
+                    missing.incrementAndGet();
+            }
+        };
+        for (int shard = 0; shard < sharded.shards(); shard++)
+            sharded.fleet(shard).addListener(visible);
+
+        final int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failed = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final Car car = cars.get(t);
+            final Person mover = new Person("Sharded", "Mover" + t, 1000 + t, true, 8000);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 2000; i++) {
+                    if (!(sharded.issueCar(mover, mover.getLicense(), car))) {
+                        failed.incrementAndGet();
+                        return;
+                    }
+                    sharded.terminateRental(mover, (sharded.shardOf(car) + 1) % sharded.shards());
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, failed.get());
+        assertEquals(0, missing.get());
+        int total = 0;
+        for (int shard = 0; shard < sharded.shards(); shard++)
+            total += sharded.fleet(shard).size();
+        assertEquals(cars.size(), total);
+        assertEquals(cars.size(), sharded.availableCars(SmallCar.class));
+    }
+
+    /**
+     * Test that when one person races to rent a car from every
+     * shard at once, only one of the rentals succeeds.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     */
+    @Test
+    public void issueConcurrentlyAcrossShards() throws InterruptedException {
+        final List<Car> targets = new ArrayList<>();
+        for (int shard = 0; shard < sharded.shards(); shard++) {
+            for (Car car : cars) {
+                if (sharded.shardOf(car) == shard) {
+                    targets.add(car);
+                    break;
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger issued = new AtomicInteger();
+        for (final Car car : targets) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (sharded.issueCar(person, person.getLicense(), car))
+                    issued.incrementAndGet();
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, issued.get());
+        assertEquals(1, sharded.getRentedCars().size());
+    }
+}
@@ -0,0 +1,222 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.FleetStore;
+import uk.ac.ncl.jcarlton.app.TelemetryEngine;
+import uk.ac.ncl.jcarlton.app.TripEvent;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link TelemetryEngine}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class TelemetryEngineTest {
+
+    private FleetStore fleet;
+    private TelemetryEngine engine;
+    private ConcurrentHashMap<TripEvent.Rejection, AtomicInteger> rejections;
+    private List<Car> rented;
+
+    /**
+     * Setup a fleet with half of its cars rented, and an engine.
+     */
+    @Before
+    public void setUp() {
+        fleet = new FleetStore();
+        rented = new ArrayList<>();
+        for (int i = 10; i < 50; i++) {
+            Car car = i % 2 == 0
+                    ? new LargeCar(Registration.getInstance("TE" + i + "LRG"))
+                    : new SmallCar(Registration.getInstance("TE" + i + "SML"));
+            fleet.add(car);
+            if (i < 30) {
+                fleet.claim(car, new Person("Telemetry", "Driver" + i, new GregorianCalendar(1970, 1, 1).getTime(),
+                        true, new GregorianCalendar(1990, 1, 1).getTime()));
+                rented.add(car);
+            }
+        }
+
+        rejections = new ConcurrentHashMap<>();
+        engine = new TelemetryEngine(fleet, 4, 64,
+                (event, rejection) -> rejections.computeIfAbsent(rejection, r -> new AtomicInteger()).incrementAndGet());
+    }
+
+    /**
+     * Stop the engine.
+     */
+    @After
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Test that applying trips in batches uses the same fuel
+     * as driving each trip one at a time.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.TelemetryEngine#submit(TripEvent)
+     */
+    @Test
+    public void submitMatchesDrive() throws InterruptedException {
+        List<TripEvent> events = new ArrayList<>();
+        for (int trip = 0; trip < 5; trip++) {
+            for (Car car : rented)
+                events.add(new TripEvent(car.getRegistration(), 35 + trip * 7));
+        }
+        Collections.shuffle(events);
+
+        // the expected fuel level, driving each car's trips in order
+        int[] expected = new int[rented.size()];
+        for (int i = 0; i < rented.size(); i++) {
+            Car car = rented.get(i);
+            int level = car.getFuelAmount();
+            for (TripEvent event : events) {
+                if (event.getRegistration() == car.getRegistration() && level > 0) {
+                    int used = car instanceof SmallCar
+                            ? SmallCar.fuelRequired(event.getKm()) : LargeCar.fuelRequired(event.getKm());
+                    level = Math.max(0, level - used);
+                }
+            }
+            expected[i] = level;
+        }
+
+        engine.submitAll(events);
+        engine.flush();
+
+        assertEquals(events.size(), engine.applied());
+        assertEquals(0, engine.rejected());
+        for (int i = 0; i < rented.size(); i++)
+            assertEquals(expected[i], rented.get(i).getFuelAmount());
+    }
+
+    /**
+     * Test that trips for cars that are unknown, not rented or
+     * out of fuel are rejected.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.TripEvent.Rejection
+     */
+    @Test
+    public void submitRejects() throws InterruptedException {
+        Car empty = rented.get(0);
+        empty.useFuel(empty.getFuelCapacity());
+
+        engine.submit(new TripEvent(empty.getRegistration(), 10));
+        engine.submit(new TripEvent(Registration.getInstance("TE10 SML"), 10));
+        engine.submit(new TripEvent(Registration.getInstance("TE40 LRG"), 10));
+        engine.flush();
+
+        assertEquals(0, engine.applied());
+        assertEquals(3, engine.rejected());
+        assertEquals(1, rejections.get(TripEvent.Rejection.NO_FUEL).get());
+        assertEquals(1, rejections.get(TripEvent.Rejection.UNKNOWN_CAR).get());
+        assertEquals(1, rejections.get(TripEvent.Rejection.NOT_RENTED).get());
+    }
+
+    /**
+     * Test that a rejection handler that throws doesn't stop the
+     * worker, so later trips are applied and a flush completes.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.TelemetryEngine#flush()
+     */
+    @Test(timeout = 10000)
+    public void submitSurvivesThrowingHandler() throws InterruptedException {
+        final List<Throwable> reported = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try (TelemetryEngine throwing = new TelemetryEngine(fleet, 1, 64, (event, rejection) -> {
+            throw new IllegalStateException("Handler failed for " + event);
+        })) {
+            throwing.submit(new TripEvent(Registration.getInstance("TE40 LRG"), 10));
+            throwing.flush();
+            throwing.submit(new TripEvent(rented.get(0).getRegistration(), 10));
+            throwing.flush();
+
+            assertEquals(1, throwing.rejected());
+            assertEquals(1, throwing.applied());
+            assertEquals(1, reported.size());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+
+    /**
+     * Test that a car returned while its batch of trips is being
+     * applied has no fuel taken after the return, so it is back in
+     * the fleet with a full tank, and its later trips are rejected.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.TelemetryEngine#submit(TripEvent)
+     */
+    @Test(timeout = 10000)
+    public void submitReturnedDuringBatch() throws InterruptedException {
+        final Car car = rented.get(0);
+        final Person renter = fleet.renterOf(car);
+        final Registration unknown = Registration.getInstance("TE99 UNK");
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch queued = new CountDownLatch(1);
+        final List<TripEvent.Rejection> seen = Collections.synchronizedList(new ArrayList<TripEvent.Rejection>());
+        final AtomicInteger unknowns = new AtomicInteger();
+
+        try (TelemetryEngine returning = new TelemetryEngine(fleet, 1, 64, (event, rejection) -> {
+            if (event.getRegistration() != unknown) {
+                seen.add(rejection);
+                return;
+            }
+            if (unknowns.getAndIncrement() == 0) {
+                // hold the worker, so the trips after this are taken as one batch
+                blocked.countDown();
+                try {
+                    queued.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                // part way through the batch, return the car and refill it
+                assertSame(car, fleet.release(renter));
+                car.addFuel(car.getFuelCapacity());
+            }
+        })) {
+            returning.submit(new TripEvent(unknown, 10));
+            blocked.await();
+            returning.submit(new TripEvent(car.getRegistration(), 200));
+            returning.submit(new TripEvent(unknown, 10));
+            returning.submit(new TripEvent(car.getRegistration(), 200));
+            queued.countDown();
+            returning.flush();
+
+            assertEquals(1, returning.applied());
+            assertEquals(Collections.singletonList(TripEvent.Rejection.NOT_RENTED), seen);
+            assertTrue(car.isTankFull());
+            assertFalse(car.isRented());
+            assertNull(fleet.renterOf(car));
+            assertFalse(fleet.isAwaitingFuel(car));
+        }
+    }
+
+    /**
+     * Test that a trip can't be submitted once the engine is closed.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.TelemetryEngine#close()
+     */
+    @Test(expected = IllegalStateException.class)
+    public void submitThrowsClosed() throws InterruptedException {
+        engine.close();
+        engine.submit(new TripEvent(rented.get(0).getRegistration(), 10));
+    }
+}
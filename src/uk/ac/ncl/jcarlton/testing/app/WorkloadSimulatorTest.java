@@ -0,0 +1,78 @@
+package uk.ac.ncl.jcarlton.testing.app;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.app.*;
+import uk.ac.ncl.jcarlton.app.WorkloadSimulator.Operation;
+import uk.ac.ncl.jcarlton.objects.*;
+import uk.ac.ncl.jcarlton.util.CustomerGenerator;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link WorkloadSimulator}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class WorkloadSimulatorTest {
+
+    private static final int TODAY = EpochDays.of(2016, 6, 1);
+
+    /**
+     * Test that a run does every operation, and that the cars
+     * issued less the cars returned are the cars still rented.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.app.WorkloadSimulator#run(ExecutorService, int, long, WorkloadSimulator.Mix)
+     */
+    @Test
+    public void run() throws InterruptedException {
+        FleetStore fleet = new FleetStore();
+        for (int i = 0; i < 200; i++) {
+            String plate = String.format("WS%02d%c%c%c", i % 100, 'A' + i / 100, 'A' + i % 26, 'B');
+            fleet.add(i % 3 == 0 ? new LargeCar(Registration.getInstance(plate))
+                    : new SmallCar(Registration.getInstance(plate)));
+        }
+        RentalManagement management = new RentalManagement(fleet,
+                EligibilityRules.standard(EpochDayClock.fixed(TODAY)));
+        WorkloadSimulator simulator = new WorkloadSimulator(management, fleet,
+                new CustomerGenerator(5, TODAY), 10000, 5);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        WorkloadReport report;
+        try {
+            report = simulator.run(executor, 4, 5000, WorkloadSimulator.Mix.standard());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(20000, report.operations());
+        assertTrue(report.throughput() > 0);
+        for (Operation operation : Operation.values()) {
+            assertTrue(report.count(operation) > 0);
+            assertEquals(report.count(operation), report.latency(operation).count());
+            assertTrue(report.rejectionRate(operation) >= 0 && report.rejectionRate(operation) <= 1);
+        }
+        // every return is of a car this run issued
+        assertEquals(0, report.rejected(Operation.RETURN));
+
+        long issued = report.count(Operation.ISSUE) - report.rejected(Operation.ISSUE);
+        long returned = report.count(Operation.RETURN);
+        assertEquals(issued - returned, management.getRentedCars().size());
+        assertTrue(report.toString().contains("refuel"));
+    }
+
+    /**
+     * Test that a mix with no weight throws an {@code IllegalArgumentException}.
+     *
+     * @see uk.ac.ncl.jcarlton.app.WorkloadSimulator.Mix#Mix(int, int, int, int)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyMix() {
+        new WorkloadSimulator.Mix(0, 0, 0, 0);
+    }
+}
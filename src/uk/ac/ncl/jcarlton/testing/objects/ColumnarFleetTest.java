@@ -0,0 +1,143 @@
+package uk.ac.ncl.jcarlton.testing.objects;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link ColumnarFleet}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class ColumnarFleetTest {
+
+    private ColumnarFleet fleet;
+    private int small;
+    private int large;
+
+    /**
+     * Setup the test objects, the fleet starts off too
+     * small so that it has to grow.
+     */
+    @Before
+    public void setUp() {
+        fleet = new ColumnarFleet(1);
+        small = fleet.add(Registration.getInstance("CF10", "SML"), SmallCar.class);
+        large = fleet.add(Registration.getInstance("CF11", "LRG"), LargeCar.class);
+    }
+
+    /**
+     * Test that the views behave the same as the
+     * {@code SmallCar} and {@code LargeCar} objects.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.ColumnarFleet#car(int)
+     */
+    @Test
+    public void car() {
+        Car view = fleet.car(small);
+        assertEquals(Registration.getInstance("CF10", "SML"), view.getRegistration());
+        assertEquals(49, view.getFuelCapacity());
+        assertTrue(view.isTankFull());
+        assertEquals("CF10 SML (S)", view.toString());
+
+        view.setRented(true);
+        assertTrue(fleet.car(small).isRented());
+        assertEquals(2, view.drive(40));
+        assertEquals(47, view.getFuelAmount());
+        assertEquals(2, view.addFuel(10));
+
+        Car largeView = fleet.car(large);
+        largeView.setRented(true);
+        assertEquals(new LargeCar(Registration.getInstance("CF12", "LRG")).getFuelCapacity(), largeView.getFuelCapacity());
+        assertEquals(LargeCar.fuelRequired(120), largeView.drive(120));
+    }
+
+    /**
+     * Test that a {@code IllegalArgumentException} is thrown
+     * when an unsupported car type is added.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.ColumnarFleet#add(Registration, Class)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addThrowsType() {
+        fleet.add(Registration.getInstance("CF13", "ERR"), Car.class);
+    }
+
+    /**
+     * Test that a registration can only be added once, and that
+     * each car's id can be found from its registration.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.ColumnarFleet#idOf(Registration)
+     */
+    @Test
+    public void addThrowsDuplicate() {
+        try {
+            fleet.add(Registration.getInstance("CF10", "SML"), LargeCar.class);
+            fail("A registration was added twice.");
+        } catch (IllegalArgumentException e) {
+            assertEquals(2, fleet.size());
+        }
+
+        for (int i = 0; i < 100; i++)
+            fleet.add(Registration.getInstance(String.format("CG%02d", i), "IDS"), SmallCar.class);
+        assertEquals(small, fleet.idOf(Registration.getInstance("CF10", "SML")));
+        assertEquals(large, fleet.idOf(Registration.getInstance("CF11", "LRG")));
+        for (int i = 0; i < 100; i++) {
+            int id = fleet.idOf(Registration.getInstance(String.format("CG%02d", i), "IDS"));
+            assertEquals(Registration.getInstance(String.format("CG%02d", i), "IDS"), fleet.car(id).getRegistration());
+        }
+        assertEquals(-1, fleet.idOf(Registration.getInstance("CF99", "NON")));
+    }
+
+    /**
+     * Test the fleet-wide queries and bulk fuel updates.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.ColumnarFleet#driveRented(int)
+     * @see uk.ac.ncl.jcarlton.objects.ColumnarFleet#refuelAvailable()
+     */
+    @Test
+    public void bulkUpdates() {
+        assertEquals(1, fleet.availableCars(SmallCar.class));
+        assertEquals(1, fleet.availableCars(LargeCar.class));
+        assertEquals(-1, fleet.availableCars(String.class));
+
+        fleet.car(large).setRented(true);
+        assertEquals(1, fleet.rentedCount());
+        assertEquals(0, fleet.availableCars(LargeCar.class));
+
+        assertEquals(LargeCar.fuelRequired(200), fleet.driveRented(200));
+        assertEquals(49 + 60 - LargeCar.fuelRequired(200), fleet.totalFuel());
+
+        // only cars that aren't rented are refuelled
+        assertEquals(0, fleet.refuelAvailable());
+        assertEquals(49 + 60 - LargeCar.fuelRequired(200), fleet.totalFuel());
+    }
+
+    /**
+     * Test that a view and a car object with the same registration
+     * are equal whichever way round they are compared, so they can
+     * be mixed in a collection.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.AbstractCar#equals(Object)
+     */
+    @Test
+    public void equalsCarObjects() {
+        Car view = fleet.car(small);
+        Car car = new SmallCar(view.getRegistration());
+        assertEquals(view, car);
+        assertEquals(car, view);
+        assertEquals(car.hashCode(), view.hashCode());
+        assertNotEquals(car, fleet.car(large));
+        assertNotEquals(car, null);
+        assertNotEquals(car, view.getRegistration());
+
+        Set<Car> cars = new HashSet<>();
+        cars.add(car);
+        assertFalse(cars.add(view));
+    }
+}
@@ -0,0 +1,184 @@
+package uk.ac.ncl.jcarlton.testing.objects;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.LicenseRegistry;
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link LicenseRegistry}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class LicenseRegistryTest {
+
+    private final LicenseRegistry registry = DrivingLicense.registry();
+    private final Date dateOfBirth = new GregorianCalendar(1980, 4, 4).getTime();
+    private final Date issue = new GregorianCalendar(2000, 0, 1).getTime();
+
+    /**
+     * Put back the maximum size, the registry is shared by every test.
+     */
+    @After
+    public void tearDown() {
+        registry.setMaximumSize(LicenseRegistry.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Test that a license can be found by its owner and its number.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#getByNumber(String)
+     */
+    @Test
+    public void getByNumber() {
+        Person person = new Person("Registry", "Number", dateOfBirth, true, issue);
+        DrivingLicense license = person.getLicense();
+
+        assertSame(license, registry.get(person));
+        assertSame(license, registry.getByNumber(license.getNumber()));
+        assertEquals(license.toString(), license.getNumber() + "-true");
+    }
+
+    /**
+     * Test that an evicted {@code Person} is given a new license.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#evict(Person)
+     */
+    @Test
+    public void evict() {
+        Person person = new Person("Registry", "Evict", dateOfBirth, true, issue);
+        DrivingLicense license = person.getLicense();
+
+        assertTrue(registry.evict(person));
+        assertNull(registry.get(person));
+        assertFalse(registry.evict(person));
+        assertNotSame(license, DrivingLicense.getInstance(person, issue, true));
+    }
+
+    /**
+     * Test that the oldest licenses are evicted once the registry
+     * is larger than its maximum size.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#setMaximumSize(int)
+     */
+    @Test
+    public void maximumSize() {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            people.add(new Person("Registry" + i, "Size", dateOfBirth, true, issue));
+
+        registry.setMaximumSize(100);
+        assertTrue(registry.size() <= 100);
+        assertNull(registry.get(people.get(0)));
+        assertSame(people.get(199).getLicense(), registry.get(people.get(199)));
+    }
+
+    /**
+     * Test that a license nothing refers to is collected and removed
+     * from the registry, and that an equal {@code Person} created
+     * afterwards is given a new license.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     */
+    @Test
+    public void licenseIsCollected() throws InterruptedException {
+        Person person = new Person("Registry", "Collected", dateOfBirth, false, issue);
+        String number = person.getLicense().getNumber();
+        int size = registry.size();
+        person = null;
+
+        for (int i = 0; i < 50 && (registry.getByNumber(number) != null || registry.size() >= size); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(registry.getByNumber(number));
+        assertTrue(registry.size() < size);
+
+        Person again = new Person("Registry", "Collected", dateOfBirth, true, issue);
+        assertNotEquals(number, again.getLicense().getNumber());
+        assertSame(again.getLicense(), registry.getByNumber(again.getLicense().getNumber()));
+    }
+
+    /**
+     * Test that the registry is bounded unless it's told otherwise.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#getMaximumSize()
+     */
+    @Test
+    public void defaultMaximumSize() {
+        assertEquals(LicenseRegistry.DEFAULT_MAXIMUM_SIZE, registry.getMaximumSize());
+        assertTrue(registry.getMaximumSize() < Integer.MAX_VALUE);
+    }
+
+    /**
+     * Test that a restored {@code Person} has the license they were
+     * given, and that a clashing license cannot be restored.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.Person#restore(String, String, int, boolean, int, String)
+     */
+    @Test
+    public void restore() {
+        Person person = Person.restore("Registry", "Restored", 4000, false, 11000, "R1");
+        DrivingLicense license = person.getLicense();
+        assertEquals("R1", license.getThirdComponent());
+        assertEquals(11000, license.getIssueDay());
+        assertFalse(license.isFullLicense());
+        assertSame(license, registry.getByNumber(license.getNumber()));
+
+        // restoring it again gives the same license back
+        assertSame(license, Person.restore("Registry", "Restored", 4000, false, 11000, "R1").getLicense());
+        assertSame(license, new Person("Registry", "Restored", 4000, true, 0).getLicense());
+
+        try {
+            Person.restore("Registry", "Restored", 4000, false, 11000, "R2");
+            fail("A second license was restored for the same person.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            // the same initials and issue year, so the same number
+            Person.restore("Registry", "Rival", 4001, false, 11000, "R1");
+            fail("A license number was restored for someone else.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the same {@code Person} created on many threads
+     * at once always shares a single license.
+     *
+     * @throws Exception thrown if a thread fails.
+     * @see uk.ac.ncl.jcarlton.objects.DrivingLicense#getInstance(Person, Date, boolean)
+     */
+    @Test
+    public void getInstanceConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<DrivingLicense>> tasks = new ArrayList<>();
+            for (int i = 0; i < 64; i++)
+                tasks.add(() -> new Person("Registry", "Concurrent", dateOfBirth, true, issue).getLicense());
+
+            Set<DrivingLicense> licenses = new HashSet<>();
+            for (Future<DrivingLicense> future : executor.invokeAll(tasks))
+                licenses.add(future.get());
+            assertEquals(1, licenses.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
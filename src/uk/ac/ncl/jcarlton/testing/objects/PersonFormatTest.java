@@ -0,0 +1,73 @@
+package uk.ac.ncl.jcarlton.testing.objects;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.PersonFormat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <h1>JUnit test class for {@link PersonFormat}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class PersonFormatTest {
+
+    /**
+     * Test that the text written matches formatting with
+     * {@code SimpleDateFormat} and {@code Calendar}.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.PersonFormat#format(Person, StringBuilder)
+     */
+    @Test
+    public void formatMatchesDateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy");
+        for (int i = 0; i < 400; i++) {
+            Person person = new Person("Format" + i, "Person", new GregorianCalendar(1920 + i % 90, i % 12, 1 + i % 31).getTime(),
+                    i % 3 == 0, new GregorianCalendar(1960 + i % 60, i % 12, 1).getTime());
+            DrivingLicense license = person.getLicense();
+
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(license.getSecondComponent());
+            String expectedLicense = license.getFirstComponent() + "-" + calendar.get(Calendar.YEAR) + "-"
+                    + license.getThirdComponent() + "-" + license.isFullLicense();
+            String expected = person.getFirstName() + " " + person.getLastName()
+                    + ":" + format.format(person.getDateOfBirth()) + ":" + expectedLicense;
+
+            assertEquals(expectedLicense, license.toString());
+            assertEquals(expected, person.toString());
+            assertEquals(expected, PersonFormat.format(person, new StringBuilder()).toString());
+        }
+    }
+
+    /**
+     * Test that writing to an {@code Appendable} and to a
+     * {@code ByteBuffer} give the same text, including names
+     * that aren't ASCII.
+     *
+     * @throws IOException never, a {@code StringWriter} doesn't throw.
+     * @see uk.ac.ncl.jcarlton.objects.PersonFormat#format(Person, ByteBuffer)
+     */
+    @Test
+    public void formatByteBuffer() throws IOException {
+        Person person = new Person("Zo\u00eb", "\u00d8rsted\ud83d\ude97", new GregorianCalendar(1985, 6, 4).getTime(),
+                true, new GregorianCalendar(2004, 0, 1).getTime());
+
+        StringWriter writer = new StringWriter();
+        PersonFormat.format(person, writer);
+        assertEquals(person.toString(), writer.toString());
+
+        ByteBuffer buffer = PersonFormat.format(person, ByteBuffer.allocate(128));
+        buffer.flip();
+        assertEquals(person.toString(), StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+}
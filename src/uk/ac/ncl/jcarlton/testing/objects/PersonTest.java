@@ -3,6 +3,7 @@ package uk.ac.ncl.jcarlton.testing.objects;
 import org.junit.Before;
 import org.junit.Test;
 import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.util.EpochDays;
 
 import java.text.ParseException;
 import java.util.Calendar;
@@ -10,6 +11,9 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * <h1>JUnit test class for {@link Person}</h1>
@@ -129,4 +133,42 @@ public class PersonTest {
         Person p1New = Person.valueOf(personString);
         assertEquals(p1, p1New);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the {@code valueOf()} method rejects a
+     * String that isn't a Person.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.Person#valueOf(String)
+     * @throws ParseException thrown as the date of birth
+     * isn't a number.
+     */
+    @Test(expected = ParseException.class)
+    public void testValueOfThrows() throws ParseException {
+        Person.valueOf("Jonathan Carlton:27/Sep/1993:JC-2011-42-true");
+    }
+
+    /**
+     * Test that a person created from epoch days is the same
+     * as one created from dates, and that the date getter
+     * returns a new copy each time.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.Person#Person(String, String, int, boolean, int)
+     * @see uk.ac.ncl.jcarlton.objects.Person#getBirthDay()
+     */
+    @Test
+    public void testEpochDays() {
+        Person p = new Person("Jonathan", "Carlton", EpochDays.of(1993, 9, 27), true, EpochDays.of(2011, 6, 28));
+        assertEquals(p1, p);
+        assertEquals(p1.hashCode(), p.hashCode());
+        assertSame(p1.getLicense(), p.getLicense());
+        assertEquals(EpochDays.of(1993, 9, 27), p1.getBirthDay());
+
+        Date dateOfBirth = p1.getDateOfBirth();
+        assertNotSame(dateOfBirth, p1.getDateOfBirth());
+        dateOfBirth.setTime(0);
+        assertEquals(dob1.getTime(), p1.getDateOfBirth());
+
+        assertNotEquals(p1, new Person("Jonathan", "Carlton", EpochDays.of(1993, 9, 28), true,
+                EpochDays.of(2011, 6, 28)));
+    }
+}
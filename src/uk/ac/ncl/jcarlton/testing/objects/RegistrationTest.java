@@ -4,7 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 import uk.ac.ncl.jcarlton.objects.Registration;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * <h1>JUnit test class for {@link Registration}</h1>
@@ -153,5 +153,40 @@ public class RegistrationTest {
         assertEquals("HXE", registration.getSecondComponent());
     }
 
+    /**
+     * Test that the whole registration can be parsed, with or
+     * without the space, and that it returns the same instance
+     * as the two component factory method.
+     * @see uk.ac.ncl.jcarlton.objects.Registration#getInstance(CharSequence)
+     */
+    @Test
+    public void getInstanceWhole() {
+        assertSame(registration, Registration.getInstance("NG57 HXE"));
+        assertSame(registration, Registration.getInstance(new StringBuilder("ng57hxe")));
+        assertSame(registration, Registration.getInstance("ng57", "hxe"));
+    }
+
+    /**
+     * Test that a {@code IllegalArgumentException} is
+     * thrown when the whole registration is malformed.
+     * @see uk.ac.ncl.jcarlton.objects.Registration#getInstance(CharSequence)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void getInstanceWholeThrows() {
+        exceptionRegistrationTester = Registration.getInstance("NG57-HXE");
+    }
 
-}
\ No newline at end of file
+    /**
+     * Test that registrations can be packed from part of a
+     * {@code CharSequence} and that invalid ones are rejected.
+     * @see uk.ac.ncl.jcarlton.objects.Registration#pack(CharSequence, int, int)
+     */
+    @Test
+    public void pack() {
+        String line = "x,NG57 HXE,y";
+        assertEquals(registration.getPackedValue(), Registration.pack(line, 2, 10));
+        assertEquals(-1, Registration.pack("N657 HXE", 0, 8));
+        assertEquals(-1, Registration.pack("NG57 HX3", 0, 8));
+        assertEquals(-1, Registration.pack("NG57 HXE", 0, 6));
+    }
+}
@@ -0,0 +1,185 @@
+package uk.ac.ncl.jcarlton.testing.objects;
+
+import org.junit.After;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.DrivingLicense;
+import uk.ac.ncl.jcarlton.objects.LicenseRegistry;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator;
+import uk.ac.ncl.jcarlton.objects.SerialAllocator;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link SequenceSerialAllocator}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class SequenceSerialAllocatorTest {
+
+    private final LicenseRegistry registry = DrivingLicense.registry();
+    private final SerialAllocator original = registry.getSerialAllocator();
+
+    /**
+     * Put back the allocator, the registry is shared by every test.
+     */
+    @After
+    public void tearDown() {
+        registry.setSerialAllocator(original);
+    }
+
+    /**
+     * Test that serials given out on many threads at once
+     * are unique and the right width.
+     *
+     * @throws Exception thrown if a thread fails.
+     * @see uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator#next()
+     */
+    @Test
+    public void nextIsUnique() throws Exception {
+        final SequenceSerialAllocator allocator = new SequenceSerialAllocator(6, 16, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<List<String>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tasks.add(() -> {
+                    List<String> serials = new ArrayList<>();
+                    for (int j = 0; j < 1000; j++)
+                        serials.add(allocator.next());
+                    return serials;
+                });
+            }
+
+            Set<String> serials = new HashSet<>();
+            for (Future<List<String>> future : executor.invokeAll(tasks)) {
+                for (String serial : future.get()) {
+                    assertEquals(6, serial.length());
+                    assertTrue(serials.add(serial));
+                }
+            }
+            assertEquals(8000, serials.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that threads which each take a single serial, such as
+     * a virtual thread per request, don't use up a block each.
+     *
+     * @throws Exception thrown if a thread fails.
+     * @see uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator#next()
+     */
+    @Test
+    public void nextSharesBlocks() throws Exception {
+        final SequenceSerialAllocator allocator = new SequenceSerialAllocator(4, 64, 0);
+        final Set<String> serials = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            Thread thread = new Thread(() -> {
+                String serial = allocator.next();
+                synchronized (serials) {
+                    serials.add(serial);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        assertEquals(1000, serials.size());
+    }
+
+    /**
+     * Test that the default allocator gives serials of at least
+     * two digits, as licenses have always had, and goes on past 99.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator#SequenceSerialAllocator()
+     */
+    @Test
+    public void defaultKeepsFormat() {
+        SequenceSerialAllocator allocator = new SequenceSerialAllocator();
+        assertEquals(2, allocator.getWidth());
+        assertEquals("00", allocator.next());
+        allocator.reserved("41");
+        assertEquals("42", allocator.next());
+        allocator.reserved("98");
+        String serial = allocator.next();
+        String previous = null;
+        while (serial.length() == 2) {
+            previous = serial;
+            serial = allocator.next();
+        }
+        assertEquals("99", previous);
+        assertEquals("100", serial);
+        allocator.reserved("0150");
+        assertEquals("101", allocator.next());
+
+        registry.setSerialAllocator(new SequenceSerialAllocator());
+        Date dateOfBirth = new GregorianCalendar(1993, 8, 27).getTime();
+        Date issue = new GregorianCalendar(2011, 0, 1).getTime();
+        Person person = new Person("Format", "Kept", dateOfBirth, true, issue);
+        assertTrue(person.getLicense().getNumber().matches("FK-2011-[0-9]{2,}"));
+    }
+
+    /**
+     * Test that an allocator stops once every serial has been given out.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator#next()
+     */
+    @Test(expected = IllegalStateException.class)
+    public void nextThrowsExhausted() {
+        SequenceSerialAllocator allocator = new SequenceSerialAllocator(1, 4, 0);
+        for (int i = 0; i < 11; i++)
+            allocator.next();
+    }
+
+    /**
+     * Test that a reserved serial, and those before it, are not
+     * given out, and that a serial of another width is ignored.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.SequenceSerialAllocator#reserved(String)
+     */
+    @Test
+    public void reservedIsSkipped() {
+        SequenceSerialAllocator allocator = new SequenceSerialAllocator(4, 1, 0);
+        allocator.reserved("0041");
+        allocator.reserved("12");
+        allocator.reserved("00A9");
+        assertEquals("0042", allocator.next());
+        allocator.reserved("0007");
+        assertEquals("0043", allocator.next());
+    }
+
+    /**
+     * Test that the registry never gives two licenses the same number,
+     * even when the allocator repeats serials.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.LicenseRegistry#setSerialAllocator(SerialAllocator)
+     */
+    @Test
+    public void registryNumbersAreUnique() {
+        final AtomicInteger calls = new AtomicInteger();
+        registry.setSerialAllocator(() -> String.valueOf(calls.getAndIncrement() / 3));
+
+        Date dateOfBirth = new GregorianCalendar(1975, 2, 2).getTime();
+        Date issue = new GregorianCalendar(1995, 0, 1).getTime();
+        List<Person> people = new ArrayList<>();
+        Set<String> numbers = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            Person person = new Person("Serial" + i, "Unique", dateOfBirth, true, issue);
+            people.add(person);
+            assertTrue(numbers.add(person.getLicense().getNumber()));
+            assertSame(person.getLicense(), registry.getByNumber(person.getLicense().getNumber()));
+        }
+    }
+}
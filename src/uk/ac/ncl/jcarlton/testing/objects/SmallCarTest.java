@@ -220,4 +220,29 @@ public class SmallCarTest {
         assertEquals(29, car.getFuelAmount());
     }
 
-}
\ No newline at end of file
+    /**
+     * Test that a car can only be rented with a full tank, but
+     * can be returned with any amount of fuel left, after which
+     * it can't be driven.
+     *
+     * @see uk.ac.ncl.jcarlton.objects.Car#setRented(boolean)
+     */
+    @Test
+    public void returnWithPartTank() {
+        car.useFuel(10);
+        car.setRented(true);
+        assertFalse(car.isRented());
+
+        car.addFuel(10);
+        car.setRented(true);
+        car.drive(40);
+        car.setRented(false);
+        assertFalse(car.isRented());
+        try {
+            car.drive(40);
+            fail("A returned car was driven.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.util.CustomerGenerator;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link CustomerGenerator}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class CustomerGeneratorTest {
+
+    private static final int TODAY = EpochDays.of(2016, 6, 1);
+
+    /**
+     * Test that the same seed and index always give the same
+     * customer, and different indexes different customers.
+     *
+     * @see uk.ac.ncl.jcarlton.util.CustomerGenerator#customer(long)
+     */
+    @Test
+    public void deterministicAndUnique() {
+        CustomerGenerator generator = new CustomerGenerator(42, TODAY);
+        CustomerGenerator again = new CustomerGenerator(42, TODAY);
+
+        Set<Person> people = new HashSet<>();
+        for (long i = 0; i < 5000; i++) {
+            Person person = generator.customer(i);
+            assertEquals(person, again.customer(i));
+            assertTrue(people.add(person));
+        }
+        assertNotEquals(generator.customer(7), new CustomerGenerator(43, TODAY).customer(7));
+    }
+
+    /**
+     * Test that ages and license ages fall in realistic ranges,
+     * and are spread rather than all the same.
+     */
+    @Test
+    public void distributions() {
+        CustomerGenerator generator = new CustomerGenerator(1, TODAY);
+        int count = 20000, full = 0;
+        double totalAge = 0;
+        for (long i = 0; i < count; i++) {
+            Person person = generator.customer(i);
+            double age = (TODAY - person.getBirthDay()) / 365.2425;
+            int licenseDay = person.getLicense().getIssueDay();
+            assertTrue("Age " + age, age >= 17 && age < 92);
+            assertTrue(licenseDay <= TODAY);
+            assertTrue(licenseDay >= person.getBirthDay() + 17 * 365);
+            totalAge += age;
+            if (person.getLicense().isFullLicense())
+                full++;
+        }
+        double meanAge = totalAge / count;
+        assertTrue("Mean age " + meanAge, meanAge > 40 && meanAge < 48);
+        assertTrue("Full licenses " + full, full > count * 0.85 && full < count);
+    }
+
+    /**
+     * Test that a negative index throws an {@code IllegalArgumentException}.
+     *
+     * @see uk.ac.ncl.jcarlton.util.CustomerGenerator#customer(long)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeIndex() {
+        new CustomerGenerator(1, TODAY).customer(-1);
+    }
+}
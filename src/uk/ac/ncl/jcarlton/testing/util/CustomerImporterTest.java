@@ -0,0 +1,101 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.util.CustomerImporter;
+import uk.ac.ncl.jcarlton.util.ImportReport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link CustomerImporter}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class CustomerImporterTest {
+
+    private Path file;
+    private List<Person> customers;
+
+    /**
+     * Setup the customers and the file to import them from.
+     *
+     * @throws IOException thrown if the file cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("customers", ".txt");
+
+        customers = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            customers.add(new Person("Import" + i, "Customer", new GregorianCalendar(1960 + i % 30, i % 12, 1 + i % 28).getTime(),
+                    i % 2 == 0, new GregorianCalendar(1990 + i % 20, 0, 1).getTime()));
+    }
+
+    /**
+     * Remove the file.
+     *
+     * @throws IOException thrown if the file cannot be deleted.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test that every customer is imported when the file is split
+     * into many small chunks, and that a bad line is reported with
+     * its line number.
+     *
+     * @throws IOException thrown if the file cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.util.CustomerImporter#importFile(Path, java.util.function.Consumer, int)
+     */
+    @Test
+    public void importFile() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Person customer : customers)
+            lines.add(customer.toString());
+        lines.add(20, "");
+        lines.add(31, "Not a customer");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        ConcurrentLinkedQueue<Person> imported = new ConcurrentLinkedQueue<>();
+        ImportReport report = CustomerImporter.importFile(file, imported::add, 64);
+
+        assertEquals(customers.size(), report.getImported());
+        assertEquals(new HashSet<>(customers), new HashSet<>(imported));
+        assertEquals(1, report.getErrors().size());
+        assertEquals(32, report.getErrors().get(0).getLine());
+    }
+
+    /**
+     * Test that an imported customer is the stored customer,
+     * so they keep their driving license.
+     *
+     * @throws IOException thrown if the file cannot be written or read.
+     * @see uk.ac.ncl.jcarlton.util.CustomerImporter#importFile(Path, java.util.function.Consumer)
+     */
+    @Test
+    public void importFileKeepsLicense() throws IOException {
+        Files.write(file, (customers.get(0) + "\r\n").getBytes(StandardCharsets.UTF_8));
+
+        Set<Person> imported = new HashSet<>();
+        assertEquals(1, CustomerImporter.importFile(file, imported::add).getImported());
+
+        Person customer = imported.iterator().next();
+        assertSame(customers.get(0).getLicense(), customer.getLicense());
+    }
+}
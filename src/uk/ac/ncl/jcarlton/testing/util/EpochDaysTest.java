@@ -0,0 +1,78 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.util.EpochDayClock;
+import uk.ac.ncl.jcarlton.util.EpochDays;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <h1>JUnit test class for {@link EpochDays}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class EpochDaysTest {
+
+    /**
+     * Test that converting to and from year, month and day
+     * matches {@code LocalDate} over a wide range of days.
+     *
+     * @see uk.ac.ncl.jcarlton.util.EpochDays#of(int, int, int)
+     * @see uk.ac.ncl.jcarlton.util.EpochDays#yearMonthDay(int)
+     */
+    @Test
+    public void yearMonthDay() {
+        for (int day = -200000; day < 200000; day += 7) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int ymd = EpochDays.yearMonthDay(day);
+            assertEquals(date.getYear(), EpochDays.year(ymd));
+            assertEquals(date.getMonthValue(), EpochDays.month(ymd));
+            assertEquals(date.getDayOfMonth(), EpochDays.dayOfMonth(ymd));
+            assertEquals(day, EpochDays.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+
+    /**
+     * Test that a {@code Date} is converted using the
+     * same time zone as {@code Calendar}.
+     *
+     * @see uk.ac.ncl.jcarlton.util.EpochDays#of(java.util.Date)
+     */
+    @Test
+    public void ofDate() {
+        Calendar calendar = new GregorianCalendar(1993, Calendar.SEPTEMBER, 27);
+        int day = EpochDays.of(calendar.getTime());
+        assertEquals(LocalDate.of(1993, 9, 27).toEpochDay(), day);
+        assertEquals(calendar.getTime(), EpochDays.toDate(day));
+    }
+
+    /**
+     * Test that subtracting years handles the 29th of
+     * February the same as {@code LocalDate}.
+     *
+     * @see uk.ac.ncl.jcarlton.util.EpochDays#minusYears(int, int)
+     */
+    @Test
+    public void minusYears() {
+        LocalDate leap = LocalDate.of(2024, 2, 29);
+        assertEquals(leap.minusYears(1).toEpochDay(), EpochDays.minusYears((int) leap.toEpochDay(), 1));
+        assertEquals(leap.minusYears(4).toEpochDay(), EpochDays.minusYears((int) leap.toEpochDay(), 4));
+        assertEquals(LocalDate.of(2016, 10, 17).toEpochDay(), EpochDays.minusYears((int) LocalDate.of(2026, 10, 17).toEpochDay(), 10));
+    }
+
+    /**
+     * Test that a fixed clock always gives the same day.
+     *
+     * @see uk.ac.ncl.jcarlton.util.EpochDayClock#fixed(int)
+     */
+    @Test
+    public void fixedClock() {
+        EpochDayClock clock = EpochDayClock.fixed(12345);
+        assertEquals(12345, clock.today());
+        assertEquals(12345, clock.today());
+    }
+}
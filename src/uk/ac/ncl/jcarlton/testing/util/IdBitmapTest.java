@@ -0,0 +1,129 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.util.IdBitmap;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link IdBitmap}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class IdBitmapTest {
+
+    /**
+     * Test adding, removing and checking single ids, across
+     * more than one group of ids.
+     *
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#add(int)
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#remove(int)
+     */
+    @Test
+    public void addRemoveContains() {
+        IdBitmap bitmap = new IdBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.add(Integer.MAX_VALUE));
+
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70000));
+        assertTrue(bitmap.contains(Integer.MAX_VALUE));
+        assertFalse(bitmap.contains(6));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(3, bitmap.cardinality());
+        assertEquals("{5, 70000, " + Integer.MAX_VALUE + "}", bitmap.toString());
+
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertEquals(2, bitmap.cardinality());
+    }
+
+    /**
+     * Test that a negative id cannot be added.
+     *
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#add(int)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void addNegative() {
+        new IdBitmap().add(-1);
+    }
+
+    /**
+     * Test that a group switches to a bitmap once it is dense,
+     * and back to an array once it is sparse again, without
+     * losing any ids.
+     */
+    @Test
+    public void denseAndSparse() {
+        IdBitmap bitmap = new IdBitmap();
+        for (int id = 0; id < 10000; id++)
+            assertTrue(bitmap.add(id * 3));
+        assertEquals(10000, bitmap.cardinality());
+        assertTrue(bitmap.contains(29997));
+        assertFalse(bitmap.contains(29998));
+
+        for (int id = 0; id < 9000; id++)
+            assertTrue(bitmap.remove(id * 3));
+        assertEquals(1000, bitmap.cardinality());
+        assertFalse(bitmap.contains(0));
+        assertTrue(bitmap.contains(27000));
+    }
+
+    /**
+     * Test the set operations and the iterator against
+     * {@code BitSet}, over random sets that are both sparse and
+     * dense.
+     *
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#and(IdBitmap)
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#or(IdBitmap)
+     * @see uk.ac.ncl.jcarlton.util.IdBitmap#andNot(IdBitmap)
+     */
+    @Test
+    public void setOperations() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            BitSet a = new BitSet(), b = new BitSet();
+            IdBitmap x = fill(a, random, round % 2 == 0 ? 200 : 30000),
+                    y = fill(b, random, round % 3 == 0 ? 30000 : 500);
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+
+            assertMatches(and, x.and(y));
+            assertMatches(or, x.or(y));
+            assertMatches(andNot, x.andNot(y));
+            assertMatches(a, x.copy());
+            assertEquals(x, x.copy());
+            assertEquals(x.hashCode(), x.copy().hashCode());
+        }
+    }
+
+    private static IdBitmap fill(BitSet set, Random random, int count) {
+        IdBitmap bitmap = new IdBitmap();
+        for (int i = 0; i < count; i++) {
+            int id = random.nextInt(200000);
+            set.set(id);
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    private static void assertMatches(BitSet expected, IdBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        PrimitiveIterator.OfInt it = actual.iterator();
+        for (int id = expected.nextSetBit(0); id >= 0; id = expected.nextSetBit(id + 1))
+            assertEquals(id, it.nextInt());
+        assertFalse(it.hasNext());
+    }
+}
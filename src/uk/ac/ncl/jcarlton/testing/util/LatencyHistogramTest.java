@@ -0,0 +1,89 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.util.LatencyHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <h1>JUnit test class for {@link LatencyHistogram}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Test that percentiles are within the 12.5% precision of
+     * the buckets, and never less than the true value.
+     *
+     * @see uk.ac.ncl.jcarlton.util.LatencyHistogram#percentile(double)
+     */
+    @Test
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++)
+            histogram.record(i * 10);
+
+        assertEquals(100000, histogram.count());
+        assertEquals(1000000, histogram.max());
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long expected = (long) (percentile * 1000) * 10;
+            long actual = histogram.percentile(percentile);
+            assertTrue(percentile + ": " + actual, actual >= expected && actual <= expected * 1.125);
+        }
+        assertEquals(1000000, histogram.percentile(100));
+    }
+
+    /**
+     * Test the counts at or below a value, including values
+     * smaller than the first full bucket.
+     *
+     * @see uk.ac.ncl.jcarlton.util.LatencyHistogram#countAtOrBelow(long)
+     */
+    @Test
+    public void countAtOrBelow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 0; i < 16; i++)
+            histogram.record(i);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        assertEquals(2, histogram.countAtOrBelow(0));
+        assertEquals(17, histogram.countAtOrBelow(15));
+        assertEquals(18, histogram.countAtOrBelow(Long.MAX_VALUE));
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+
+    /**
+     * Test that latencies recorded from many threads at once are
+     * all counted once the stripes are added together.
+     *
+     * @throws InterruptedException thrown if the test is interrupted.
+     * @see uk.ac.ncl.jcarlton.util.LatencyHistogram#record(long)
+     */
+    @Test
+    public void recordConcurrently() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int n = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 10000; i++)
+                    histogram.record(i + n);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        long sum = 0;
+        for (int n = 0; n < threads.length; n++)
+            sum += 10000L * 10001 / 2 + 10000L * n;
+        assertEquals(80000, histogram.count());
+        assertEquals(sum, histogram.sum());
+        assertEquals(10007, histogram.max());
+        assertEquals(80000, histogram.countAtOrBelow(Long.MAX_VALUE));
+        assertEquals(10007, histogram.percentile(100));
+    }
+}
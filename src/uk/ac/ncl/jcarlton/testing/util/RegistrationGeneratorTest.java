@@ -0,0 +1,91 @@
+package uk.ac.ncl.jcarlton.testing.util;
+
+import org.junit.Test;
+import uk.ac.ncl.jcarlton.objects.Registration;
+import uk.ac.ncl.jcarlton.util.RegistrationGenerator;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * <h1>JUnit test class for {@link RegistrationGenerator}</h1>
+ *
+ * @author Jonathan Carlton
+ */
+public class RegistrationGeneratorTest {
+
+    /**
+     * Test that ordinals map to registrations in order, and back.
+     *
+     * @see uk.ac.ncl.jcarlton.util.RegistrationGenerator#packed(long)
+     * @see uk.ac.ncl.jcarlton.util.RegistrationGenerator#ordinal(Registration)
+     */
+    @Test
+    public void ordinals() {
+        assertEquals("AA00 AAA", Registration.getInstance(RegistrationGenerator.packed(0)).toString());
+        assertEquals("AA00 AAB", Registration.getInstance(RegistrationGenerator.packed(1)).toString());
+        assertEquals("AA01 AAA", Registration.getInstance(RegistrationGenerator.packed(17576)).toString());
+        assertEquals("ZZ99 ZZZ", Registration.getInstance(
+                RegistrationGenerator.packed(RegistrationGenerator.PLATE_COUNT - 1)).toString());
+
+        Registration registration = Registration.getInstance("NG57HXE");
+        assertEquals(registration.getPackedValue(),
+                RegistrationGenerator.packed(RegistrationGenerator.ordinal(registration)));
+
+        try {
+            RegistrationGenerator.packed(RegistrationGenerator.PLATE_COUNT);
+            fail("An ordinal past the last registration was accepted.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a parallel range gives every registration in
+     * the range exactly once.
+     *
+     * @see uk.ac.ncl.jcarlton.util.RegistrationGenerator#range(long, long)
+     */
+    @Test
+    public void parallelRange() {
+        long from = 5000000, to = from + 100000;
+        List<Registration> registrations = RegistrationGenerator.range(from, to)
+                .parallel().collect(Collectors.toList());
+        assertEquals(to - from, registrations.size());
+        for (int i = 0; i < registrations.size(); i++)
+            assertEquals(from + i, RegistrationGenerator.ordinal(registrations.get(i)));
+        assertEquals(to - from, registrations.parallelStream().distinct().count());
+    }
+
+    /**
+     * Test that a sample is distinct, repeatable and different
+     * for different seeds.
+     *
+     * @see uk.ac.ncl.jcarlton.util.RegistrationGenerator#packedSample(long, long)
+     */
+    @Test
+    public void sample() {
+        int count = 200000;
+        long[] sample = RegistrationGenerator.packedSample(7, count).parallel().toArray();
+        assertEquals(count, sample.length);
+        assertEquals(count, RegistrationGenerator.packedSample(7, count).parallel().distinct().count());
+        assertArrayEquals(sample, RegistrationGenerator.packedSample(7, count).toArray());
+
+        long[] other = RegistrationGenerator.packedSample(8, 100).toArray();
+        int same = 0;
+        for (int i = 0; i < other.length; i++) {
+            if (other[i] == sample[i])
+                same++;
+            // throws if it isn't a valid registration
+            Registration.getInstance(other[i]);
+        }
+        assertTrue(same < 5);
+
+        // spread across the whole space, not just the start of it
+        long max = RegistrationGenerator.packedSample(7, 1000)
+                .map(packed -> RegistrationGenerator.ordinal(Registration.getInstance(packed))).max().getAsLong();
+        assertTrue(max > RegistrationGenerator.PLATE_COUNT / 2);
+    }
+}
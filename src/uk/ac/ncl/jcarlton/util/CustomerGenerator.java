@@ -0,0 +1,94 @@
+package uk.ac.ncl.jcarlton.util;
+
+import uk.ac.ncl.jcarlton.objects.Person;
+
+import java.util.SplittableRandom;
+
+/**
+ * <h1>CustomerGenerator</h1>
+ *
+ * Makes up customers for load testing, with ages and license
+ * ages shaped like a real customer base rather than spread
+ * evenly:
+ * <ul><li>ages are normally distributed around 44, from 17 to 90</li>
+ * <li>most people pass their test soon after 17, the years they
+ * wait are exponentially distributed with a mean of 4</li>
+ * <li>nearly everyone who has held a license for a year has a full
+ * license, about half of those who haven't do</li></ul>
+ *
+ * Each customer is worked out from the seed and their index
+ * alone, so millions of customers can be produced on demand,
+ * in any order and from any thread, without storing them, and
+ * the same seed always gives the same customers. Every index
+ * gives a different person.
+ *
+ * @author Jonathan Carlton
+ */
+public final class CustomerGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Oliver", "Amelia", "George", "Isla", "Harry", "Ava", "Noah", "Mia", "Jack", "Emily",
+            "Leo", "Sophia", "Arthur", "Grace", "Muhammad", "Lily", "Oscar", "Freya", "Charlie", "Ella",
+            "Jacob", "Ivy", "Thomas", "Evie", "Henry", "Florence", "William", "Poppy", "James", "Rosie",
+            "Sarah", "David", "Priya", "Wei", "Fatima", "Kofi", "Aisha", "Tomasz", "Chloe", "Daniel"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies", "Patel", "Robinson",
+            "Wright", "Thompson", "Evans", "Walker", "White", "Roberts", "Green", "Hall", "Thomas", "Clarke",
+            "Jackson", "Wood", "Harris", "Edwards", "Turner", "Martin", "Cooper", "Hill", "Ward", "Hughes",
+            "Khan", "Ali", "Singh", "Chen", "Nowak", "Okafor", "Murphy", "Kelly", "Scott", "Carlton"
+    };
+
+    private static final double DAYS_PER_YEAR = 365.2425;
+
+    private final long seed;
+    private final int today;
+
+    /**
+     * Create a generator.
+     *
+     * @param seed  the seed, the same seed gives the same customers.
+     * @param today the epoch day the customers' ages are worked out from.
+     */
+    public CustomerGenerator(long seed, int today) {
+        this.seed = seed;
+        this.today = today;
+    }
+
+    /**
+     * Get the customer with an index.
+     *
+     * @param index the index, from 0.
+     * @return the customer.
+     * @throws IllegalArgumentException thrown if the index is negative.
+     */
+    public Person customer(long index) {
+        if (index < 0)
+            throw new IllegalArgumentException("Index cannot be negative: " + index);
+        SplittableRandom random = new SplittableRandom(seed ^ index * 0x9E3779B97F4A7C15L);
+
+        double age = Math.max(17, Math.min(90, 44 + 15 * gaussian(random)));
+        int birthDay = today - (int) Math.ceil(age * DAYS_PER_YEAR) - random.nextInt(365);
+
+        // years waited after turning 17, no later than today
+        double waited = -4 * Math.log(1 - random.nextDouble());
+        int passedDay = birthDay + (int) ((17 + waited) * DAYS_PER_YEAR);
+        int licenseDay = Math.min(passedDay, today);
+        boolean full = random.nextDouble() < (today - licenseDay >= 365 ? 0.97 : 0.5);
+
+        // the index makes the last name, and so the person, unique
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + "-" + Long.toString(index, 36);
+        return new Person(firstName, lastName, birthDay, full, licenseDay);
+    }
+
+    /**
+     * A standard normal value, by the Box-Muller transform.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
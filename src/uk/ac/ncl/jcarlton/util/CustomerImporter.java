@@ -0,0 +1,150 @@
+package uk.ac.ncl.jcarlton.util;
+
+import uk.ac.ncl.jcarlton.objects.Person;
+import uk.ac.ncl.jcarlton.objects.PersonParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>CustomerImporter</h1>
+ *
+ * Imports customers in bulk from a UTF-8 text file holding
+ * one {@code Person} per line, in the form given by
+ * {@code Person.toString()}.
+ *
+ * The file is split into chunks at line boundaries and each
+ * chunk is memory-mapped and parsed on its own core, so only
+ * the chunks being parsed are held in memory. Every customer
+ * parsed is stored along with their driving license, as if
+ * they had been created with {@code Person.valueOf()}.
+ *
+ * Blank lines are skipped, lines that cannot be parsed are
+ * reported with their line number and the import carries on.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.objects.PersonParser
+ */
+public final class CustomerImporter {
+
+    // the size each chunk is split at, the chunk carries on to the end of the line
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private CustomerImporter() {
+    }
+
+    /**
+     * Import the customers in a file.
+     *
+     * @param file  the file to import.
+     * @param sink  given each customer, from many threads at once,
+     *              and in no particular order. May be null.
+     * @return the number imported and the lines that couldn't be.
+     * @throws IOException thrown if the file cannot be read.
+     */
+    public static ImportReport importFile(Path file, Consumer<? super Person> sink) throws IOException {
+        return importFile(file, sink, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Import the customers in a file, split into chunks of a given size.
+     *
+     * @param file      the file to import.
+     * @param sink      given each customer, from many threads at once,
+     *                  and in no particular order. May be null.
+     * @param chunkSize the number of bytes each chunk is split at.
+     * @return the number imported and the lines that couldn't be.
+     * @throws IOException thrown if the file cannot be read, or a
+     *                     single line is too long to map.
+     * @throws IllegalArgumentException thrown if the chunk size isn't positive.
+     */
+    public static ImportReport importFile(Path file, final Consumer<? super Person> sink, int chunkSize) throws IOException {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long[] bounds = LineChunks.split(channel, chunkSize);
+            final Chunk[] chunks = new Chunk[bounds.length - 1];
+
+            try {
+                IntStream.range(0, chunks.length).parallel().forEach(i -> {
+                    try {
+                        chunks[i] = parse(channel, bounds[i], bounds[i + 1], sink);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            // number the errors now the lines in each chunk are known
+            long imported = 0;
+            long firstLine = 1;
+            List<ImportReport.LineError> errors = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                imported += chunk.imported;
+                for (int i = 0; i < chunk.errorLines.size(); i++)
+                    errors.add(new ImportReport.LineError(firstLine + chunk.errorLines.get(i), chunk.errorMessages.get(i)));
+                firstLine += chunk.lines;
+            }
+            return new ImportReport(imported, errors);
+        }
+    }
+
+    /**
+     * Parse each line of a chunk.
+     */
+    private static Chunk parse(FileChannel channel, long start, long end, Consumer<? super Person> sink) throws IOException {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        Chunk chunk = new Chunk();
+
+        int length = chars.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && chars.charAt(lineEnd) != '\n')
+                lineEnd++;
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && chars.charAt(lineEnd - 1) == '\r')
+                lineEnd--;
+
+            if (lineEnd > lineStart) {
+                try {
+                    Person person = PersonParser.parse(chars, lineStart, lineEnd);
+                    if (sink != null)
+                        sink.accept(person);
+                    chunk.imported++;
+                } catch (ParseException e) {
+                    chunk.errorLines.add(chunk.lines);
+                    chunk.errorMessages.add(e.getMessage() + " at column " + (e.getErrorOffset() - lineStart + 1));
+                }
+            }
+
+            chunk.lines++;
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    /**
+     * The result of parsing one chunk, with its errors
+     * numbered from the start of the chunk.
+     */
+    private static final class Chunk {
+        private long lines;
+        private long imported;
+        private final List<Long> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * <h1>EpochDayClock</h1>
+ *
+ * A clock that gives the current local epoch day. The day is
+ * worked out once and then reused until midnight, so asking
+ * for it is a single comparison against the current time.
+ *
+ * This class is thread-safe.
+ *
+ * @see uk.ac.ncl.jcarlton.util.EpochDays
+ *
+ * @author Jonathan Carlton
+ */
+public final class EpochDayClock {
+
+    private final LongSupplier millis;
+
+    // the current day, replaced as a whole when the day changes
+    private volatile Day day;
+
+    /**
+     * Object constructor, create a clock that reads
+     * the time from the given source.
+     *
+     * @param millis    gives the current time in milliseconds
+     *                  since 1970-01-01T00:00Z.
+     * @throws IllegalArgumentException thrown if the source is null.
+     */
+    public EpochDayClock(LongSupplier millis) {
+        if (millis == null)
+            throw new IllegalArgumentException("Time source cannot be null.");
+        this.millis = millis;
+        this.day = new Day(EpochDays.ofMillis(millis.getAsLong()));
+    }
+
+    /**
+     * Get a clock that uses the system time.
+     *
+     * @return the clock.
+     */
+    public static EpochDayClock system() {
+        return new EpochDayClock(System::currentTimeMillis);
+    }
+
+    /**
+     * Get a clock that is always on the same day.
+     *
+     * @param epochDay  the day.
+     * @return the clock.
+     */
+    public static EpochDayClock fixed(int epochDay) {
+        final long midday = EpochDays.toMillis(epochDay) + 12 * 60 * 60 * 1000;
+        return new EpochDayClock(() -> midday);
+    }
+
+    /**
+     * Get the current local epoch day.
+     *
+     * @return the number of days since 1970-01-01.
+     */
+    public int today() {
+        long now = millis.getAsLong();
+        Day current = day;
+        if (now < current.start || now >= current.end) {
+            current = new Day(EpochDays.ofMillis(now));
+            day = current;
+        }
+        return current.epochDay;
+    }
+
+    /**
+     * An epoch day along with when it starts and ends.
+     */
+    private static final class Day {
+        private final int epochDay;
+        private final long start;
+        private final long end;
+
+        private Day(int epochDay) {
+            this.epochDay = epochDay;
+            this.start = EpochDays.toMillis(epochDay);
+            this.end = EpochDays.toMillis(epochDay + 1);
+        }
+    }
+}
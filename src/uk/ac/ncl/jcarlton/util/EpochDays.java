@@ -0,0 +1,169 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * <h1>EpochDays</h1>
+ *
+ * Converts dates to and from the number of days since
+ * 1970-01-01, in the default time zone, using plain integer
+ * arithmetic so that no {@code Calendar} or {@code LocalDate}
+ * objects are created.
+ *
+ * @author Jonathan Carlton
+ */
+public final class EpochDays {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // the zone that dates are converted in, the same as Calendar.getInstance()
+    private static final TimeZone ZONE = TimeZone.getDefault();
+
+    private EpochDays() {
+    }
+
+    /**
+     * Get the local epoch day of a {@code Date}.
+     *
+     * @param date  the date to convert.
+     * @return the number of days since 1970-01-01.
+     */
+    public static int of(Date date) {
+        return ofMillis(date.getTime());
+    }
+
+    /**
+     * Get the local epoch day of an instant.
+     *
+     * @param millis    milliseconds since 1970-01-01T00:00Z.
+     * @return the number of days since 1970-01-01.
+     */
+    public static int ofMillis(long millis) {
+        return (int) Math.floorDiv(millis + ZONE.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Get the epoch day of a year, month and day.
+     *
+     * @param year  the year.
+     * @param month the month, 1 to 12.
+     * @param day   the day of the month, 1 to 31.
+     * @return the number of days since 1970-01-01.
+     */
+    public static int of(int year, int month, int day) {
+        // days from civil, see http://howardhinnant.github.io/date_algorithms.html
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Get the start of an epoch day, as a local midnight.
+     *
+     * @param epochDay  the number of days since 1970-01-01.
+     * @return milliseconds since 1970-01-01T00:00Z.
+     */
+    public static long toMillis(int epochDay) {
+        long local = epochDay * MILLIS_PER_DAY;
+        // use the offset either side of midnight, in case it changes during the day
+        long millis = local - ZONE.getOffset(local);
+        return local - ZONE.getOffset(millis);
+    }
+
+    /**
+     * Get a {@code Date} for the start of an epoch day.
+     *
+     * @param epochDay  the number of days since 1970-01-01.
+     * @return the date.
+     */
+    public static Date toDate(int epochDay) {
+        return new Date(toMillis(epochDay));
+    }
+
+    /**
+     * Get the year, month and day of an epoch day packed into
+     * a single {@code int} as {@code year * 10000 + month * 100 + day}.
+     *
+     * @param epochDay  the number of days since 1970-01-01.
+     * @return the packed year, month and day.
+     * @see #year(int)
+     * @see #month(int)
+     * @see #dayOfMonth(int)
+     */
+    public static int yearMonthDay(int epochDay) {
+        // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Get the year of a packed year, month and day.
+     *
+     * @param yearMonthDay  the value from {@code yearMonthDay()}.
+     * @return the year.
+     */
+    public static int year(int yearMonthDay) {
+        return yearMonthDay / 10000;
+    }
+
+    /**
+     * Get the month of a packed year, month and day.
+     *
+     * @param yearMonthDay  the value from {@code yearMonthDay()}.
+     * @return the month, 1 to 12.
+     */
+    public static int month(int yearMonthDay) {
+        return yearMonthDay / 100 % 100;
+    }
+
+    /**
+     * Get the day of the month of a packed year, month and day.
+     *
+     * @param yearMonthDay  the value from {@code yearMonthDay()}.
+     * @return the day of the month, 1 to 31.
+     */
+    public static int dayOfMonth(int yearMonthDay) {
+        return yearMonthDay % 100;
+    }
+
+    /**
+     * Subtract a number of whole years from an epoch day. The 29th
+     * of February becomes the 28th if the year isn't a leap year,
+     * the same as {@code LocalDate.minusYears()}.
+     *
+     * @param epochDay  the number of days since 1970-01-01.
+     * @param years     the number of years to subtract.
+     * @return the epoch day, the given number of years earlier.
+     */
+    public static int minusYears(int epochDay, int years) {
+        int ymd = yearMonthDay(epochDay);
+        int year = year(ymd) - years;
+        int month = month(ymd);
+        int day = dayOfMonth(ymd);
+        if (month == 2 && day == 29 && !isLeapYear(year))
+            day = 28;
+        return of(year, month, day);
+    }
+
+    /**
+     * Check if a year is a leap year.
+     *
+     * @param year  the year.
+     * @return true, if it is, else false.
+     */
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+}
@@ -0,0 +1,568 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * <h1>IdBitmap</h1>
+ *
+ * A compressed set of non-negative {@code int} ids, laid out in
+ * the style of a roaring bitmap: ids are grouped by their top 16
+ * bits, and each group of up to 65536 ids is held either as a
+ * sorted array of their low 16 bits, while there are at most 4096
+ * of them, or as a plain 8KB bitmap once there are more.
+ *
+ * Sparse sets cost two bytes an id, dense sets one bit an id, and
+ * {@link #and(IdBitmap)}, {@link #or(IdBitmap)} and
+ * {@link #andNot(IdBitmap)} work a group at a time, a word at a
+ * time for dense groups, returning a new bitmap.
+ *
+ * A bitmap isn't thread-safe.
+ *
+ * @author Jonathan Carlton
+ */
+public final class IdBitmap {
+
+    // the most ids held as an array, past this a bitmap is smaller
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1 << 16 >>> 6;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Create an empty bitmap.
+     */
+    public IdBitmap() {
+    }
+
+    /**
+     * Add an id.
+     *
+     * @param id the id.
+     * @return true, if it wasn't already in the bitmap.
+     * @throws IllegalArgumentException thrown if the id is negative.
+     */
+    public boolean add(int id) {
+        if (id < 0)
+            throw new IllegalArgumentException("Id cannot be negative: " + id);
+        char key = (char) (id >>> 16);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, key, new ArrayContainer(new char[4], 0));
+        }
+        int before = containers[i].cardinality();
+        containers[i] = containers[i].add((char) id);
+        return containers[i].cardinality() != before;
+    }
+
+    /**
+     * Remove an id.
+     *
+     * @param id the id.
+     * @return true, if it was in the bitmap.
+     */
+    public boolean remove(int id) {
+        if (id < 0)
+            return false;
+        int i = find((char) (id >>> 16));
+        if (i < 0)
+            return false;
+        int before = containers[i].cardinality();
+        Container after = containers[i].remove((char) id);
+        if (after.cardinality() == 0)
+            delete(i);
+        else
+            containers[i] = after;
+        return after.cardinality() != before;
+    }
+
+    /**
+     * Check if an id is in the bitmap.
+     *
+     * @param id the id.
+     * @return true, if it is.
+     */
+    public boolean contains(int id) {
+        if (id < 0)
+            return false;
+        int i = find((char) (id >>> 16));
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    /**
+     * Get the number of ids in the bitmap.
+     * @return the count.
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++)
+            total += containers[i].cardinality();
+        return total;
+    }
+
+    /**
+     * Check if the bitmap holds no ids.
+     * @return true, if empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the ids in both this and another bitmap.
+     *
+     * @param other the other bitmap.
+     * @return a new bitmap.
+     */
+    public IdBitmap and(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0)
+                    result.append(keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the ids in either this or another bitmap.
+     *
+     * @param other the other bitmap.
+     * @return a new bitmap.
+     */
+    public IdBitmap or(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the ids in this bitmap that aren't in another.
+     *
+     * @param other the other bitmap.
+     * @return a new bitmap.
+     */
+    public IdBitmap andNot(IdBitmap other) {
+        IdBitmap result = new IdBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i])
+                j++;
+            Container c = j < other.size && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (c.cardinality() > 0)
+                result.append(keys[i], c);
+        }
+        return result;
+    }
+
+    /**
+     * Get a copy of the bitmap.
+     * @return a new bitmap.
+     */
+    public IdBitmap copy() {
+        IdBitmap result = new IdBitmap();
+        for (int i = 0; i < size; i++)
+            result.append(keys[i], containers[i].copy());
+        return result;
+    }
+
+    /**
+     * Pass every id in the bitmap, in ascending order, to an action.
+     *
+     * @param action the action.
+     */
+    public void forEach(IntConsumer action) {
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); )
+            action.accept(it.nextInt());
+    }
+
+    /**
+     * Get an iterator over the ids in ascending order. The
+     * bitmap must not be changed while iterating.
+     *
+     * @return the iterator.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int container;
+            private int next = advance(0, -1);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                int id = next;
+                next = advance(container, (char) id);
+                return id;
+            }
+
+            /**
+             * Find the next id after a low value in a container, moving
+             * on to the following containers if there isn't one.
+             */
+            private int advance(int from, int low) {
+                for (container = from; container < size; container++, low = -1) {
+                    int found = containers[container].next(low + 1);
+                    if (found >= 0)
+                        return keys[container] << 16 | found;
+                }
+                return -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof IdBitmap))
+            return false;
+        IdBitmap other = (IdBitmap) o;
+        if (size != other.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != other.keys[i] || containers[i].cardinality() != other.containers[i].cardinality()
+                    || containers[i].andNot(other.containers[i]).cardinality() != 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); )
+            hash = 31 * hash + it.nextInt();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            builder.append(it.nextInt());
+            if (it.hasNext())
+                builder.append(", ");
+        }
+        return builder.append('}').toString();
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int i, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        size++;
+    }
+
+    private void append(char key, Container container) {
+        insert(size, key, container);
+    }
+
+    private void delete(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * The low 16 bits of the ids in one group, an add or remove
+     * may return a different container if the layout changes.
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char low);
+
+        abstract Container add(char low);
+
+        abstract Container remove(char low);
+
+        /**
+         * Get the first low value at or after {@code from}, or -1.
+         */
+        abstract int next(int from);
+
+        abstract Container copy();
+
+        abstract BitmapContainer toBitmap();
+
+        Container and(Container other) {
+            if (other instanceof ArrayContainer)
+                return other.and(this);
+            BitmapContainer a = toBitmap(), b = (BitmapContainer) other;
+            long[] words = new long[WORDS];
+            for (int i = 0; i < WORDS; i++)
+                words[i] = a.words[i] & b.words[i];
+            return new BitmapContainer(words).shrink();
+        }
+
+        Container or(Container other) {
+            BitmapContainer a = toBitmap();
+            // an array was copied into a new bitmap already, a bitmap needs copying
+            long[] words = a == this ? a.words.clone() : a.words;
+            BitmapContainer b = other.toBitmap();
+            for (int i = 0; i < WORDS; i++)
+                words[i] |= b.words[i];
+            return new BitmapContainer(words).shrink();
+        }
+
+        Container andNot(Container other) {
+            BitmapContainer a = toBitmap(), b = other.toBitmap();
+            long[] words = a == this ? a.words.clone() : a.words;
+            for (int i = 0; i < WORDS; i++)
+                words[i] &= ~b.words[i];
+            return new BitmapContainer(words).shrink();
+        }
+    }
+
+    /**
+     * Up to {@code ARRAY_LIMIT} sorted low values.
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0)
+                return this;
+            if (cardinality == ARRAY_LIMIT) {
+                BitmapContainer bitmap = toBitmap();
+                bitmap.add(low);
+                return bitmap;
+            }
+            i = -i - 1;
+            if (cardinality == values.length)
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = low;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, cardinality, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from) {
+            if (from > 0xFFFF)
+                return -1;
+            int i = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if (i < 0)
+                i = -i - 1;
+            return i < cardinality ? values[i] : -1;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++)
+                words[values[i] >>> 6] |= 1L << values[i];
+            return new BitmapContainer(words, cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.max(1, Math.min(cardinality, other.cardinality()))];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i]))
+                    result[n++] = values[i];
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer || cardinality + other.cardinality() > ARRAY_LIMIT)
+                return super.or(other);
+            ArrayContainer b = (ArrayContainer) other;
+            char[] result = new char[Math.max(1, cardinality + b.cardinality)];
+            int i = 0, j = 0, n = 0;
+            while (i < cardinality || j < b.cardinality) {
+                if (j == b.cardinality || (i < cardinality && values[i] < b.values[j]))
+                    result[n++] = values[i++];
+                else if (i == cardinality || values[i] > b.values[j])
+                    result[n++] = b.values[j++];
+                else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!(other.contains(values[i])))
+                    result[n++] = values[i];
+            }
+            return new ArrayContainer(result, n);
+        }
+    }
+
+    /**
+     * A bit for every one of the 65536 low values.
+     */
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer(long[] words) {
+            this(words, count(words));
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        Container add(char low) {
+            if (!(contains(low))) {
+                words[low >>> 6] |= 1L << low;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            if (!(contains(low)))
+                return this;
+            words[low >>> 6] &= ~(1L << low);
+            cardinality--;
+            return shrink();
+        }
+
+        @Override
+        int next(int from) {
+            if (from > 0xFFFF)
+                return -1;
+            int i = from >>> 6;
+            long word = words[i] & -1L << from;
+            while (true) {
+                if (word != 0)
+                    return i << 6 | Long.numberOfTrailingZeros(word);
+                if (++i == WORDS)
+                    return -1;
+                word = words[i];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        /**
+         * Switch to an array once there are few enough values.
+         */
+        private Container shrink() {
+            if (cardinality > ARRAY_LIMIT)
+                return this;
+            char[] values = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int low = next(0); low >= 0; low = next(low + 1))
+                values[n++] = (char) low;
+            return new ArrayContainer(values, n);
+        }
+    }
+
+    private static int count(long[] words) {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+}
@@ -0,0 +1,100 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <h1>ImportReport</h1>
+ *
+ * The result of a bulk import: how many lines were imported
+ * and the lines that couldn't be, in line order.
+ *
+ * @author Jonathan Carlton
+ */
+public final class ImportReport {
+
+    private final long imported;
+    private final List<LineError> errors;
+
+    /**
+     * Create a report.
+     *
+     * @param imported  the number of lines imported.
+     * @param errors    the lines that couldn't be imported.
+     */
+    public ImportReport(long imported, List<LineError> errors) {
+        if (errors == null)
+            throw new IllegalArgumentException("Errors cannot be null.");
+
+        this.imported = imported;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    /**
+     * Get the number of lines that were imported.
+     * @return the number imported.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Get the lines that couldn't be imported.
+     * @return an unmodifiable list of the errors.
+     */
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "Imported " + imported + ", " + errors.size() + " errors";
+    }
+
+    /**
+     * A line that couldn't be imported.
+     */
+    public static final class LineError {
+        private final long line;
+        private final String message;
+
+        /**
+         * Create a line error.
+         *
+         * @param line      the line number, from 1.
+         * @param message   why the line couldn't be imported.
+         */
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Get the line number, the first line is 1.
+         * @return the line number.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Get why the line couldn't be imported.
+         * @return the message.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+}
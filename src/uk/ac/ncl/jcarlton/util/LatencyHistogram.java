@@ -0,0 +1,201 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h1>LatencyHistogram</h1>
+ *
+ * Records latencies, in nanoseconds, into log-linear buckets in
+ * the style of an HDR histogram: each power of two is split into
+ * eight equal buckets, so a value is known to within 12.5% from
+ * one nanosecond up to the largest {@code long}, using a fixed
+ * 488 counters.
+ *
+ * Recording is safe from any number of threads. The counters are
+ * striped: each thread records into one of a few copies of them,
+ * picked by its thread id, so threads recording at once rarely
+ * touch the same counters. A record is a couple of shifts and
+ * two atomic adds to the thread's stripe, the stripes are added
+ * together when the histogram is read. Reading while recording
+ * is going on gives counts that are each correct but may not add
+ * up to the same instant.
+ *
+ * @author Jonathan Carlton
+ */
+public final class LatencyHistogram {
+
+    // each power of two is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    // the layout of a stripe, the counters are padded so two stripes never share a cache line
+    private static final int PADDING = 8;
+    private static final int SUM = PADDING + BUCKETS;
+    private static final int MAX = SUM + 1;
+    private static final int STRIPE_LENGTH = MAX + 1 + PADDING;
+
+    // a stripe per core, up to a limit, as a power of two
+    private static final int MAX_STRIPES = 16;
+    private static final int STRIPES = Math.min(MAX_STRIPES,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new AtomicLongArray(STRIPE_LENGTH);
+    }
+
+    /**
+     * Record a latency, negative values are recorded as 0.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet(PADDING + bucket(nanos));
+        stripe.addAndGet(SUM, nanos);
+
+        // the maximum rarely changes, so it's only written when it does
+        for (long max; nanos > (max = stripe.get(MAX)); ) {
+            if (stripe.compareAndSet(MAX, max, nanos))
+                break;
+        }
+    }
+
+    /**
+     * Get the number of latencies recorded.
+     * @return the count.
+     */
+    public long count() {
+        long total = 0;
+        for (long c : snapshot())
+            total += c;
+        return total;
+    }
+
+    /**
+     * Get the total of the latencies recorded.
+     * @return the sum, in nanoseconds.
+     */
+    public long sum() {
+        long total = 0;
+        for (AtomicLongArray stripe : stripes)
+            total += stripe.get(SUM);
+        return total;
+    }
+
+    /**
+     * Get the largest latency recorded.
+     * @return the maximum, in nanoseconds.
+     */
+    public long max() {
+        long max = 0;
+        for (AtomicLongArray stripe : stripes)
+            max = Math.max(max, stripe.get(MAX));
+        return max;
+    }
+
+    /**
+     * Get the latency at a percentile, as the highest value
+     * in the bucket holding it.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the latency in nanoseconds, or 0 if nothing has been recorded.
+     * @throws IllegalArgumentException thrown if the percentile is out of range.
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long c : snapshot)
+            total += c;
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(highest(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * Get the number of latencies recorded that are no more
+     * than a given value. The value is rounded down to the
+     * nearest bucket boundary.
+     *
+     * @param nanos the value, in nanoseconds.
+     * @return the number of latencies at or below it.
+     */
+    public long countAtOrBelow(long nanos) {
+        if (nanos < 0)
+            return 0;
+        int last = bucket(nanos);
+        if (highest(last) > nanos)
+            last--;
+
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i <= last; i++)
+                total += stripe.get(PADDING + i);
+        }
+        return total;
+    }
+
+    /**
+     * Get the bucket that holds a value.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get the highest value a bucket holds.
+     */
+    private static long highest(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        long width = 1L << (exponent - SUB_BITS);
+        return lowest + width - 1 < 0 ? Long.MAX_VALUE : lowest + width - 1;
+    }
+
+    /**
+     * Get the stripe the current thread records into.
+     */
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash >>> 16) & (STRIPES - 1)];
+    }
+
+    /**
+     * Add the counts of the stripes together.
+     */
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++)
+                snapshot[i] += stripe.get(PADDING + i);
+        }
+        return snapshot;
+    }
+}
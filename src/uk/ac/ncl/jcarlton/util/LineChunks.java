@@ -0,0 +1,79 @@
+package uk.ac.ncl.jcarlton.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h1>LineChunks</h1>
+ *
+ * Splits a file into chunks of whole lines, so that each
+ * chunk can be memory-mapped and parsed on its own core.
+ *
+ * @author Jonathan Carlton
+ * @see uk.ac.ncl.jcarlton.util.CustomerImporter
+ */
+public final class LineChunks {
+
+    private LineChunks() {
+    }
+
+    /**
+     * Find where each chunk starts, so that every chunk is whole
+     * lines. Each chunk is split at the given size and carries on
+     * to just after the next line break.
+     *
+     * @param channel   the file.
+     * @param chunkSize the number of bytes each chunk is split at.
+     * @return the start of each chunk, followed by the size of the file.
+     * @throws IOException thrown if the file cannot be read, or a
+     *                     single line is too long to map.
+     * @throws IllegalArgumentException thrown if the chunk size isn't positive.
+     */
+    public static long[] split(FileChannel channel, int chunkSize) throws IOException {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+
+        long start = 0;
+        while (start < size) {
+            bounds.add(start);
+            long at = start + chunkSize;
+            if (at >= size)
+                break;
+
+            // carry the chunk on to just after the next line break
+            search:
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, at);
+                if (read <= 0) {
+                    at = size;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        at += i + 1;
+                        break search;
+                    }
+                }
+                at += read;
+            }
+
+            if (at - start > Integer.MAX_VALUE)
+                throw new IOException("Line is too long to import, starting after byte " + start);
+            start = at;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+}
@@ -4,12 +4,28 @@ import uk.ac.ncl.jcarlton.objects.Registration;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * <h1>RegistrationGenerator</h1>
  *
  * Used to generate the registrations of the
  * cars that the company is managing.
+ * <p>
+ * As well as the company's own registrations, it can generate
+ * any number of the {@link #PLATE_COUNT} valid registrations,
+ * for test fleets. Every registration has an ordinal, counting
+ * from "AA00AAA" to "ZZ99ZZZ", and a stream of registrations is
+ * a range of ordinals mapped to registrations, so nothing is
+ * made until it's used and a parallel stream splits the range
+ * evenly between the threads. Different ordinals are always
+ * different registrations, so the registrations are unique
+ * without keeping a set of those already made.
+ * <p>
+ * A random sample shuffles the ordinals with a permutation picked
+ * by the seed, rather than drawing them at random, so a sample
+ * is just as unique, lazy and splittable as a range.
  *
  * @see uk.ac.ncl.jcarlton.objects.Registration
  *
@@ -17,6 +33,15 @@ import java.util.List;
  */
 public final class RegistrationGenerator {
 
+    /**
+     * The number of valid registrations, 2 letters, 2 digits and
+     * then 3 letters.
+     */
+    public static final long PLATE_COUNT = 26L * 26 * 100 * 26 * 26 * 26;
+
+    // the shuffle permutes 32 bit values, as two 16 bit halves
+    private static final int FEISTEL_ROUNDS = 4;
+
     /**
      * Get all of the registrations of the cars that the
      * company manages.
@@ -57,4 +82,140 @@ public final class RegistrationGenerator {
         registrations.add(Registration.getInstance("DZ61", "LFK"));
         return registrations;
     }
+
+    /**
+     * Get the registrations with a range of ordinals, in order.
+     * The stream is lazy and may be made parallel, each registration
+     * is only fetched or created as it is reached.
+     *
+     * @param from the first ordinal.
+     * @param to   the ordinal after the last.
+     * @return a {@code Stream<Registration>} of the registrations.
+     * @throws IllegalArgumentException thrown if the range isn't within
+     *                                  {@code 0} to {@link #PLATE_COUNT}.
+     */
+    public static Stream<Registration> range(long from, long to) {
+        return packedRange(from, to).mapToObj(Registration::getInstance);
+    }
+
+    /**
+     * Get the packed values of the registrations with a range of
+     * ordinals, in order, without creating the registrations.
+     *
+     * @param from the first ordinal.
+     * @param to   the ordinal after the last.
+     * @return a {@code LongStream} of the packed values.
+     * @throws IllegalArgumentException thrown if the range isn't within
+     *                                  {@code 0} to {@link #PLATE_COUNT}.
+     * @see uk.ac.ncl.jcarlton.objects.Registration#getPackedValue()
+     */
+    public static LongStream packedRange(long from, long to) {
+        if (from < 0 || to < from || to > PLATE_COUNT)
+            throw new IllegalArgumentException("Invalid range of ordinals: " + from + " to " + to);
+        return LongStream.range(from, to).map(RegistrationGenerator::packed);
+    }
+
+    /**
+     * Get a random sample of distinct registrations. The same seed
+     * always gives the same registrations in the same order, and a
+     * longer sample starts with the registrations of a shorter one.
+     *
+     * @param seed  the seed.
+     * @param count the number of registrations.
+     * @return a {@code Stream<Registration>} of the registrations.
+     * @throws IllegalArgumentException thrown if the count is negative or
+     *                                  more than {@link #PLATE_COUNT}.
+     */
+    public static Stream<Registration> sample(long seed, long count) {
+        return packedSample(seed, count).mapToObj(Registration::getInstance);
+    }
+
+    /**
+     * Get the packed values of a random sample of distinct
+     * registrations, without creating the registrations.
+     *
+     * @param seed  the seed.
+     * @param count the number of registrations.
+     * @return a {@code LongStream} of the packed values.
+     * @throws IllegalArgumentException thrown if the count is negative or
+     *                                  more than {@link #PLATE_COUNT}.
+     * @see #sample(long, long)
+     */
+    public static LongStream packedSample(long seed, long count) {
+        if (count < 0 || count > PLATE_COUNT)
+            throw new IllegalArgumentException("Invalid sample size: " + count);
+        final int[] keys = new int[FEISTEL_ROUNDS];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = (int) mix(seed + (i + 1) * 0x9E3779B97F4A7C15L);
+        return LongStream.range(0, count).map(index -> packed(shuffle(index, keys)));
+    }
+
+    /**
+     * Get the packed value of the registration with an ordinal.
+     *
+     * @param ordinal the ordinal.
+     * @return the packed value.
+     * @throws IllegalArgumentException thrown if the ordinal isn't within
+     *                                  {@code 0} to {@link #PLATE_COUNT}.
+     */
+    public static long packed(long ordinal) {
+        if (ordinal < 0 || ordinal >= PLATE_COUNT)
+            throw new IllegalArgumentException("Invalid ordinal: " + ordinal);
+        // from the last letter back, each byte holds one character
+        long packed = 0;
+        for (int i = 0; i < 7; i++) {
+            int radix = i == 3 || i == 4 ? 10 : 26;
+            char base = i == 3 || i == 4 ? '0' : 'A';
+            packed |= (base + ordinal % radix) << (8 * i);
+            ordinal /= radix;
+        }
+        return packed;
+    }
+
+    /**
+     * Get the ordinal of a registration.
+     *
+     * @param registration the registration.
+     * @return the ordinal, from {@code 0} to {@link #PLATE_COUNT}.
+     */
+    public static long ordinal(Registration registration) {
+        long packed = registration.getPackedValue();
+        long ordinal = 0;
+        for (int i = 6; i >= 0; i--) {
+            int c = (int) (packed >>> (8 * i)) & 0xFF;
+            ordinal = i == 3 || i == 4 ? ordinal * 10 + (c - '0') : ordinal * 26 + (c - 'A');
+        }
+        return ordinal;
+    }
+
+    /**
+     * The index-th ordinal of a shuffle of every ordinal. A Feistel
+     * network permutes the 32 bit values, the ones that land outside
+     * the ordinals are permuted again until they land inside, which
+     * still gives a permutation and, as over a quarter of the values
+     * are ordinals, takes fewer than four tries on average.
+     */
+    private static long shuffle(long index, int[] keys) {
+        long value = index;
+        do {
+            int left = (int) (value >>> 16);
+            int right = (int) value & 0xFFFF;
+            for (int key : keys) {
+                int next = left ^ ((int) mix(right ^ (long) key << 16) & 0xFFFF);
+                left = right;
+                right = next;
+            }
+            value = (long) left << 16 | right;
+        } while (value >= PLATE_COUNT);
+        return value;
+    }
+
+    /**
+     * Scramble the bits of a value, the finaliser of {@code SplittableRandom}.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
 }